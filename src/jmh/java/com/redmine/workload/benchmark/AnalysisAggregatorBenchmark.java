@@ -0,0 +1,58 @@
+package com.redmine.workload.benchmark;
+
+import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.service.WorkingDayCalculator;
+import com.redmine.workload.service.WorkloadAnalysisAggregator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 各時間顆粒度的 2D 彙總（取代舊的 processDaily/Weekly/MonthlyAnalysis）：
+// 只量測彙總器本身，輸入為已排序的議題列
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AnalysisAggregatorBenchmark {
+
+    @Param({"daily", "weekly", "monthly", "quarterly"})
+    public String granularity;
+
+    @Param({"50"})
+    public int users;
+
+    // false 時每日模式立即展開為 DailyWorkload 物件（workload.analysis.compact-daily-matrix=false）
+    @Param({"true"})
+    public boolean compactDailyMatrix;
+
+    @Param({"20250101"})
+    public long seed;
+
+    private SyntheticWorkloadData data;
+    private WorkingDayCalculator workingDayCalculator;
+
+    @Setup
+    public void setUp() {
+        data = SyntheticWorkloadData.department(users, seed);
+        workingDayCalculator = BenchmarkServices.workingDayCalculator();
+    }
+
+    @Benchmark
+    public void aggregate(Blackhole blackhole) {
+        WorkloadAnalysisAggregator aggregator = new WorkloadAnalysisAggregator(workingDayCalculator,
+            data.getStartDate(), data.getEndDate(), granularity, compactDailyMatrix, blackhole::consume);
+        List<WorkloadAnalysis2D> rows = data.getAnalysisRows();
+        for (WorkloadAnalysis2D row : rows) {
+            aggregator.accept(row);
+        }
+        aggregator.finish();
+    }
+}
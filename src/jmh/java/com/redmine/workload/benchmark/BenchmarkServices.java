@@ -0,0 +1,58 @@
+package com.redmine.workload.benchmark;
+
+import com.redmine.workload.cache.AnalysisResultCache;
+import com.redmine.workload.cache.IssueSnapshotStore;
+import com.redmine.workload.metrics.WorkloadMetrics;
+import com.redmine.workload.service.WorkingDayCalculator;
+import com.redmine.workload.service.WorkloadService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.io.ClassPathResource;
+
+import java.lang.reflect.Field;
+
+// 不啟動 Spring 的情況下組裝 WorkloadService：欄位注入改以反射設定，
+// 設定值對應 application.properties 的 workload.analysis.*（分析結果快取關閉，每次都重新計算）
+final class BenchmarkServices {
+
+    private BenchmarkServices() {
+    }
+
+    // mode：sequential（先取完整清單再單執行緒彙總）、parallel（依使用者平行彙總）、streaming（逐列餵入彙總器）
+    static WorkloadService workloadService(SyntheticWorkloadData data, String mode, int parallelThreads) {
+        WorkloadService service = new WorkloadService();
+        set(service, "workloadRepository", new SyntheticWorkloadRepository(data));
+        set(service, "workingDayCalculator", workingDayCalculator());
+        set(service, "metrics", new WorkloadMetrics(new SimpleMeterRegistry()));
+
+        AnalysisResultCache analysisResultCache = new AnalysisResultCache();
+        set(analysisResultCache, "enabled", false);
+        set(service, "analysisResultCache", analysisResultCache);
+        set(service, "issueSnapshotStore", new IssueSnapshotStore());
+
+        set(service, "streamingEnabled", "streaming".equals(mode));
+        set(service, "parallelEnabled", "parallel".equals(mode));
+        set(service, "parallelMaxThreads", parallelThreads);
+        set(service, "parallelMinUsers", 8);
+        service.initAnalysisPool();
+        return service;
+    }
+
+    // 與正式環境相同，使用內建的國定假日檔案
+    static WorkingDayCalculator workingDayCalculator() {
+        WorkingDayCalculator calculator = new WorkingDayCalculator();
+        set(calculator, "source", "file");
+        set(calculator, "holidayFile", new ClassPathResource("calendar/holidays-tw.csv"));
+        calculator.init();
+        return calculator;
+    }
+
+    private static void set(Object target, String fieldName, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + target.getClass().getSimpleName() + "." + fieldName, e);
+        }
+    }
+}
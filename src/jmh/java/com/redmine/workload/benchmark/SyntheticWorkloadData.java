@@ -0,0 +1,115 @@
+package com.redmine.workload.benchmark;
+
+import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.model.WorkloadData;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// 可重現的合成 Redmine 資料：相同參數與 seed 一定產生相同的議題。
+// 議題長度（日曆天）依平均值的指數分布產生並限制在 [1, maxIssueDays]，
+// 開始日平均分布在查詢區間前後，使部分議題跨越區間邊界（與實際資料相同）。
+// 資料依使用者 → 專案 → 議題編號排序，與 2D 分析 SQL 的 ORDER BY 一致
+public final class SyntheticWorkloadData {
+
+    public static final String GROUP_NAME = "效能測試部";
+
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final List<String> users = new ArrayList<>();
+    private final List<WorkloadAnalysis2D> analysisRows = new ArrayList<>();
+    private final List<WorkloadData> workloadRows = new ArrayList<>();
+
+    public SyntheticWorkloadData(int userCount, int projectsPerUser, int issuesPerUser,
+                                 int meanIssueDays, int maxIssueDays,
+                                 LocalDate startDate, LocalDate endDate, long seed) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+
+        SplittableRandom random = new SplittableRandom(seed);
+        long rangeDays = endDate.toEpochDay() - startDate.toEpochDay() + 1;
+        long issueId = 1;
+
+        for (int u = 0; u < userCount; u++) {
+            users.add(String.format("使用者%04d", u));
+        }
+        Collections.sort(users);
+
+        for (String user : users) {
+            // 每位使用者參與的專案名稱依姓名錯開，不同使用者會有部分相同的專案
+            List<String> projects = new ArrayList<>();
+            int offset = (user.hashCode() & 0x7fffffff) % 500;
+            for (int p = 0; p < projectsPerUser; p++) {
+                projects.add(String.format("專案%03d", (offset + p * 7) % 500));
+            }
+            Collections.sort(projects);
+
+            for (int p = 0; p < projectsPerUser; p++) {
+                String project = projects.get(p);
+                int issues = issuesPerUser / projectsPerUser + (p < issuesPerUser % projectsPerUser ? 1 : 0);
+                for (int i = 0; i < issues; i++) {
+                    int length = (int) Math.min(maxIssueDays,
+                        1 + Math.round(-Math.log(1 - random.nextDouble()) * (meanIssueDays - 1)));
+                    LocalDate issueStart = startDate.plusDays(random.nextLong(-length / 2, rangeDays));
+                    LocalDate issueDue = issueStart.plusDays(length - 1);
+                    BigDecimal estimatedHours = BigDecimal.valueOf(random.nextInt(1, 161)).divide(BigDecimal.valueOf(2));
+                    boolean closed = random.nextInt(100) < 30;
+                    addIssue(user, project, issueId++, issueStart, issueDue, estimatedHours, closed);
+                }
+            }
+        }
+    }
+
+    // 一般規模：單一部門一年的資料
+    public static SyntheticWorkloadData department(int userCount, long seed) {
+        return new SyntheticWorkloadData(userCount, 4, 40, 15, 120,
+            LocalDate.of(2025, 1, 1), LocalDate.of(2025, 12, 31), seed);
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public List<String> getUsers() {
+        return users;
+    }
+
+    // 2D 分析查詢結果（彙總器會在列上寫入每日／期間工時，重複使用時結果相同）
+    public List<WorkloadAnalysis2D> getAnalysisRows() {
+        return analysisRows;
+    }
+
+    // 工作負載統計查詢結果
+    public List<WorkloadData> getWorkloadRows() {
+        return workloadRows;
+    }
+
+    private void addIssue(String user, String project, long issueId, LocalDate issueStart, LocalDate issueDue,
+                          BigDecimal estimatedHours, boolean closed) {
+        WorkloadAnalysis2D row = new WorkloadAnalysis2D();
+        row.setGroupName(GROUP_NAME);
+        row.setUserFullname(user);
+        row.setProjectName(project);
+        row.setIssueId(issueId);
+        row.setIssueSubject("議題 #" + issueId);
+        row.setStartDate(issueStart);
+        row.setDueDate(issueDue);
+        row.setEstimatedHours(estimatedHours);
+        analysisRows.add(row);
+
+        long calendarDays = issueDue.toEpochDay() - issueStart.toEpochDay() + 1;
+        workloadRows.add(new WorkloadData(GROUP_NAME, user, "u" + user.hashCode(), project, issueId,
+            row.getIssueSubject(), issueStart, issueDue, estimatedHours,
+            estimatedHours.divide(BigDecimal.valueOf(calendarDays), 2, RoundingMode.HALF_UP),
+            closed ? "已結案" : "進行中", closed, closed ? issueDue : null));
+    }
+}
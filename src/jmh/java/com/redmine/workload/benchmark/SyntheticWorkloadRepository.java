@@ -0,0 +1,85 @@
+package com.redmine.workload.benchmark;
+
+import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.model.WorkloadData;
+import com.redmine.workload.repository.WorkloadRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// 以合成資料取代 MySQL 的儲存庫：只量測 Java 端的彙總與統計，不含 JDBC 與網路往返。
+// 查詢條件只依使用者篩選（合成資料本身就在查詢區間附近）
+class SyntheticWorkloadRepository extends WorkloadRepository {
+
+    private final SyntheticWorkloadData data;
+
+    SyntheticWorkloadRepository(SyntheticWorkloadData data) {
+        this.data = data;
+    }
+
+    @Override
+    public List<WorkloadData> getWorkloadData(String groupName, String userFullname,
+                                              LocalDate startDate, LocalDate endDate) {
+        return userFullname == null || userFullname.isBlank()
+            ? new ArrayList<>(data.getWorkloadRows())
+            : filter(data.getWorkloadRows(), Set.of(userFullname), WorkloadData::getUserFullname);
+    }
+
+    @Override
+    public List<WorkloadData> getWorkloadDataForUsers(String groupName, List<String> userFullnames,
+                                                      LocalDate startDate, LocalDate endDate) {
+        return filter(data.getWorkloadRows(), new HashSet<>(userFullnames), WorkloadData::getUserFullname);
+    }
+
+    @Override
+    public List<WorkloadAnalysis2D> getWorkloadAnalysis2D(String groupName, String userFullname,
+                                                          LocalDate startDate, LocalDate endDate) {
+        return userFullname == null
+            ? new ArrayList<>(data.getAnalysisRows())
+            : filter(data.getAnalysisRows(), Set.of(userFullname), WorkloadAnalysis2D::getUserFullname);
+    }
+
+    @Override
+    public List<WorkloadAnalysis2D> getWorkloadAnalysis2DForUsers(String groupName, List<String> userFullnames,
+                                                                  LocalDate startDate, LocalDate endDate) {
+        return filter(data.getAnalysisRows(), new HashSet<>(userFullnames), WorkloadAnalysis2D::getUserFullname);
+    }
+
+    @Override
+    public void streamWorkloadAnalysis2D(String groupName, List<String> userFullnames,
+                                         LocalDate startDate, LocalDate endDate,
+                                         Consumer<WorkloadAnalysis2D> consumer) {
+        if (userFullnames == null || userFullnames.isEmpty()) {
+            data.getAnalysisRows().forEach(consumer);
+        } else {
+            filter(data.getAnalysisRows(), new HashSet<>(userFullnames), WorkloadAnalysis2D::getUserFullname)
+                .forEach(consumer);
+        }
+    }
+
+    @Override
+    public List<String> getAllGroups() {
+        return List.of(SyntheticWorkloadData.GROUP_NAME);
+    }
+
+    @Override
+    public List<String> getUsersByGroup(String groupName) {
+        return data.getUsers();
+    }
+
+    private static <T> List<T> filter(List<T> rows, Set<String> users,
+                                      Function<T, String> userKey) {
+        List<T> result = new ArrayList<>();
+        for (T row : rows) {
+            if (users.contains(userKey.apply(row))) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+}
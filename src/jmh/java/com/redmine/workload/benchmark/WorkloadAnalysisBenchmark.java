@@ -0,0 +1,59 @@
+package com.redmine.workload.benchmark;
+
+import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.service.WorkloadService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 整條 2D 分析路徑（getWorkloadAnalysis2DForMultipleUsers，快取關閉）：
+// 比較 10 / 50 / 200 位使用者時循序、平行（workload.analysis.parallel.*）與串流模式的差異
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class WorkloadAnalysisBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int users;
+
+    @Param({"sequential", "parallel", "streaming"})
+    public String mode;
+
+    @Param({"daily"})
+    public String granularity;
+
+    @Param({"4"})
+    public int parallelThreads;
+
+    @Param({"20250101"})
+    public long seed;
+
+    private SyntheticWorkloadData data;
+    private WorkloadService workloadService;
+
+    @Setup
+    public void setUp() {
+        data = SyntheticWorkloadData.department(users, seed);
+        workloadService = BenchmarkServices.workloadService(data, mode, parallelThreads);
+    }
+
+    @TearDown
+    public void tearDown() {
+        workloadService.shutdownAnalysisPool();
+    }
+
+    @Benchmark
+    public List<WorkloadAnalysis2D> analysis() {
+        return workloadService.getWorkloadAnalysis2DForMultipleUsers(SyntheticWorkloadData.GROUP_NAME,
+            List.of(), data.getStartDate(), data.getEndDate(), granularity);
+    }
+}
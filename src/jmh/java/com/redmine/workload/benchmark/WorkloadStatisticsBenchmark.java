@@ -0,0 +1,43 @@
+package com.redmine.workload.benchmark;
+
+import com.redmine.workload.model.WorkloadStatistics;
+import com.redmine.workload.service.WorkloadService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 工作負載統計（getWorkloadStatisticsForMultipleUsers）：指定全部使用者時的批次查詢與 BigDecimal 加總
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WorkloadStatisticsBenchmark {
+
+    @Param({"10", "50", "200"})
+    public int users;
+
+    @Param({"20250101"})
+    public long seed;
+
+    private SyntheticWorkloadData data;
+    private WorkloadService workloadService;
+
+    @Setup
+    public void setUp() {
+        data = SyntheticWorkloadData.department(users, seed);
+        workloadService = BenchmarkServices.workloadService(data, "sequential", 1);
+    }
+
+    @Benchmark
+    public WorkloadStatistics statistics() {
+        return workloadService.getWorkloadStatisticsForMultipleUsers(SyntheticWorkloadData.GROUP_NAME,
+            data.getUsers(), data.getStartDate(), data.getEndDate());
+    }
+}
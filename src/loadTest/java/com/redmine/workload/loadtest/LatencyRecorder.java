@@ -0,0 +1,63 @@
+package com.redmine.workload.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// 單一端點的延遲紀錄：保留每個請求的耗時（微秒），結束後排序計算百分位數
+class LatencyRecorder {
+
+    private final String name;
+    private long[] micros = new long[1024];
+    private int count;
+    private int errors;
+
+    LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    synchronized void record(long elapsedNanos, boolean success) {
+        if (count == micros.length) {
+            micros = Arrays.copyOf(micros, count * 2);
+        }
+        micros[count++] = elapsedNanos / 1_000;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    // 合併到另一個紀錄（計算所有端點的整體數字）
+    synchronized void copyTo(LatencyRecorder target) {
+        synchronized (target) {
+            for (int i = 0; i < count; i++) {
+                if (target.count == target.micros.length) {
+                    target.micros = Arrays.copyOf(target.micros, target.count * 2);
+                }
+                target.micros[target.count++] = micros[i];
+            }
+            target.errors += errors;
+        }
+    }
+
+    static String header() {
+        return String.format(Locale.ROOT, "%-22s %8s %7s %9s %9s %9s %9s %9s",
+            "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+    }
+
+    synchronized String summary(double seconds) {
+        long[] sorted = Arrays.copyOf(micros, count);
+        Arrays.sort(sorted);
+        return String.format(Locale.ROOT, "%-22s %8d %7d %9.1f %9.1f %9.1f %9.1f %9.1f",
+            name, count, errors, count / seconds,
+            percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+            count == 0 ? 0.0 : sorted[count - 1] / 1000.0);
+    }
+
+    // 最近排名法（nearest-rank）
+    private static double percentile(long[] sorted, int percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)] / 1000.0;
+    }
+}
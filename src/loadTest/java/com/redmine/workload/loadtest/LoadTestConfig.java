@@ -0,0 +1,40 @@
+package com.redmine.workload.loadtest;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+// 負載測試參數，皆可由系統屬性 loadtest.* 覆寫（./gradlew loadTest -Ploadtest.users=50）
+record LoadTestConfig(
+    int groups,
+    int usersPerGroup,
+    int projects,
+    int issuesPerUser,
+    LocalDate dataFrom,
+    LocalDate dataTo,
+    long seed,
+    int virtualUsers,
+    int warmupSeconds,
+    int durationSeconds,
+    int thinkMillis,
+    Path report) {
+
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+            intProperty("loadtest.groups", 8),
+            intProperty("loadtest.usersPerGroup", 40),
+            intProperty("loadtest.projects", 150),
+            intProperty("loadtest.issuesPerUser", 300),
+            LocalDate.parse(System.getProperty("loadtest.dataFrom", "2024-01-01")),
+            LocalDate.parse(System.getProperty("loadtest.dataTo", "2026-12-31")),
+            Long.getLong("loadtest.seed", 20250101L),
+            intProperty("loadtest.users", 20),
+            intProperty("loadtest.warmupSeconds", 15),
+            intProperty("loadtest.durationSeconds", 60),
+            intProperty("loadtest.thinkMillis", 0),
+            Path.of(System.getProperty("loadtest.report", "build/reports/loadtest/summary.txt")));
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        return Integer.getInteger(name, defaultValue);
+    }
+}
@@ -0,0 +1,251 @@
+package com.redmine.workload.loadtest;
+
+import com.google.gson.Gson;
+import com.redmine.workload.WorkloadApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// 端對端負載測試：以記憶體中的 H2（MySQL 相容模式）取代 Redmine 資料庫啟動應用程式，
+// 寫入測試資料後由多個虛擬使用者同時送出 /workload、/workload2d 與 /api/users/{groupName} 請求，
+// 暖機後的量測區間內統計各端點的 p50 / p95 / p99 延遲與吞吐量。執行方式：./gradlew loadTest
+// 任何請求（含暖機期間）回應非 2xx 或連線失敗時，輸出報告後以失敗結束
+public class LoadTestRunner {
+
+    private static final String WORKLOAD = "POST /workload";
+    private static final String WORKLOAD_2D = "POST /workload2d";
+    private static final String USERS = "GET /api/users/{group}";
+
+    private final LoadTestConfig config;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+    private final Map<String, List<String>> usersByGroup = new LinkedHashMap<>();
+    private final AtomicLong failedRequests = new AtomicLong();
+    private final AtomicReference<String> firstFailure = new AtomicReference<>();
+    private String baseUrl;
+    private long measureStart;
+    private long measureEnd;
+
+    LoadTestRunner(LoadTestConfig config) {
+        this.config = config;
+        for (String endpoint : List.of(WORKLOAD, WORKLOAD_2D, USERS)) {
+            recorders.put(endpoint, new LatencyRecorder(endpoint));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+
+        ConfigurableApplicationContext context = SpringApplication.run(WorkloadApplication.class,
+            "--spring.datasource.url=jdbc:h2:mem:redmine;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+                + "BUILTIN_ALIAS_OVERRIDE=TRUE;DB_CLOSE_DELAY=-1",
+            "--spring.datasource.driver-class-name=org.h2.Driver",
+            "--spring.datasource.username=sa",
+            "--spring.datasource.password=",
+            // H2 不接受 MySQL 逐列串流用的 Integer.MIN_VALUE，改用驅動程式預設的 fetch size
+            "--workload.analysis.streaming.fetch-size=0",
+            "--server.port=0",
+            "--spring.thymeleaf.cache=true",
+            "--logging.level.com.redmine=WARN");
+        try {
+            long seedStart = System.nanoTime();
+            List<String> groups = new RedmineSeeder(context.getBean(JdbcTemplate.class), config).seed();
+            System.out.printf(Locale.ROOT, "Seeded %d groups, %d users, %d issues in %.1f s%n",
+                config.groups(), config.groups() * config.usersPerGroup(),
+                config.groups() * config.usersPerGroup() * config.issuesPerUser(),
+                (System.nanoTime() - seedStart) / 1e9);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTestRunner runner = new LoadTestRunner(config);
+            String report = runner.run("http://localhost:" + port, groups);
+
+            System.out.println(report);
+            Files.createDirectories(config.report().toAbsolutePath().getParent());
+            Files.writeString(config.report(), report, StandardCharsets.UTF_8);
+            System.out.println("Report written to " + config.report().toAbsolutePath());
+            if (runner.failedRequests.get() > 0) {
+                throw new IllegalStateException(runner.failedRequests.get() + " requests failed, first: "
+                    + runner.firstFailure.get());
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    String run(String baseUrl, List<String> groups) throws Exception {
+        this.baseUrl = baseUrl;
+        Gson gson = new Gson();
+        for (String group : groups) {
+            HttpResponse<String> response = send(usersRequest(group));
+            if (!isSuccess(response)) {
+                throw new IllegalStateException(describe(response));
+            }
+            usersByGroup.put(group, Arrays.asList(gson.fromJson(response.body(), String[].class)));
+        }
+
+        long start = System.nanoTime();
+        measureStart = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds());
+        measureEnd = measureStart + TimeUnit.SECONDS.toNanos(config.durationSeconds());
+
+        ExecutorService virtualUsers = Executors.newFixedThreadPool(config.virtualUsers());
+        for (int vu = 0; vu < config.virtualUsers(); vu++) {
+            SplittableRandom random = new SplittableRandom(config.seed() * 31 + vu);
+            virtualUsers.execute(() -> virtualUser(random, groups));
+        }
+        virtualUsers.shutdown();
+        if (!virtualUsers.awaitTermination(config.warmupSeconds() + config.durationSeconds() + 300L, TimeUnit.SECONDS)) {
+            virtualUsers.shutdownNow();
+        }
+        return report();
+    }
+
+    // 封閉迴圈：每個虛擬使用者收到回應（並等待 thinkMillis）後才送出下一個請求
+    private void virtualUser(SplittableRandom random, List<String> groups) {
+        while (System.nanoTime() < measureEnd) {
+            String group = groups.get(random.nextInt(groups.size()));
+            int scenario = random.nextInt(10);
+            String endpoint;
+            HttpRequest request;
+            if (scenario < 5) {
+                endpoint = WORKLOAD_2D;
+                request = formRequest("/workload2d", group, random);
+            } else if (scenario < 8) {
+                endpoint = WORKLOAD;
+                request = formRequest("/workload", group, random);
+            } else {
+                endpoint = USERS;
+                request = usersRequest(group);
+            }
+
+            long requestStart = System.nanoTime();
+            boolean success;
+            try {
+                HttpResponse<String> response = send(request);
+                success = isSuccess(response);
+                if (!success) {
+                    recordFailure(describe(response));
+                }
+            } catch (IOException e) {
+                success = false;
+                recordFailure(request.method() + " " + request.uri() + " -> " + e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long requestEnd = System.nanoTime();
+            if (requestStart >= measureStart && requestEnd <= measureEnd) {
+                recorders.get(endpoint).record(requestEnd - requestStart, success);
+            }
+
+            if (config.thinkMillis() > 0) {
+                try {
+                    Thread.sleep(config.thinkMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // 查詢 1、3 或 6 個月（由月初開始）；約三成的請求只選取群組中的 3～8 位成員
+    private HttpRequest formRequest(String path, String group, SplittableRandom random) {
+        int months = new int[]{1, 3, 6}[random.nextInt(3)];
+        long monthCount = (config.dataTo().getYear() - config.dataFrom().getYear()) * 12L
+            + config.dataTo().getMonthValue() - config.dataFrom().getMonthValue() + 1 - months;
+        LocalDate startDate = config.dataFrom().withDayOfMonth(1).plusMonths(random.nextLong(Math.max(1, monthCount)));
+        LocalDate endDate = startDate.plusMonths(months).minusDays(1);
+
+        StringBuilder form = new StringBuilder()
+            .append("groupName=").append(encode(group))
+            .append("&startDate=").append(startDate)
+            .append("&endDate=").append(endDate);
+        List<String> members = usersByGroup.getOrDefault(group, List.of());
+        if (!members.isEmpty() && random.nextInt(10) < 3) {
+            int selected = Math.min(members.size(), 3 + random.nextInt(6));
+            List<String> pool = new ArrayList<>(members);
+            for (int i = 0; i < selected; i++) {
+                String member = pool.remove(random.nextInt(pool.size()));
+                form.append("&userFullname=").append(encode(member));
+            }
+        }
+
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+            .timeout(Duration.ofSeconds(120))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(form.toString()))
+            .build();
+    }
+
+    private HttpRequest usersRequest(String group) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/users/" + encode(group).replace("+", "%20")))
+            .timeout(Duration.ofSeconds(30))
+            .GET()
+            .build();
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static boolean isSuccess(HttpResponse<?> response) {
+        return response.statusCode() >= 200 && response.statusCode() < 300;
+    }
+
+    private static String describe(HttpResponse<?> response) {
+        return response.request().method() + " " + response.request().uri() + " -> " + response.statusCode();
+    }
+
+    private void recordFailure(String failure) {
+        failedRequests.incrementAndGet();
+        firstFailure.compareAndSet(null, failure);
+    }
+
+    private String report() {
+        double seconds = config.durationSeconds();
+        LatencyRecorder all = new LatencyRecorder("all");
+        StringBuilder report = new StringBuilder()
+            .append(String.format(Locale.ROOT, "Load test: %d virtual users, %d s warm-up, %d s measured, think %d ms%n",
+                config.virtualUsers(), config.warmupSeconds(), config.durationSeconds(), config.thinkMillis()))
+            .append(String.format(Locale.ROOT, "Data: %d groups x %d users x %d issues, seed %d%n%n",
+                config.groups(), config.usersPerGroup(), config.issuesPerUser(), config.seed()))
+            .append(LatencyRecorder.header()).append('\n');
+        for (LatencyRecorder recorder : recorders.values()) {
+            report.append(recorder.summary(seconds)).append('\n');
+            recorder.copyTo(all);
+        }
+        report.append(all.summary(seconds)).append('\n');
+        return report.toString();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
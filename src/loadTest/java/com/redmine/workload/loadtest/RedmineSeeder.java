@@ -0,0 +1,116 @@
+package com.redmine.workload.loadtest;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// 建立 Redmine 資料表並寫入可重現的測試資料（固定 seed）：
+// 每個群組有 usersPerGroup 位成員，每位成員在數個專案中各有議題，
+// 議題長度以指數分布產生（多數為一至三週，少數為數月），約 3% 的成員為停用狀態
+class RedmineSeeder {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int GROUP_ID_BASE = 100_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LoadTestConfig config;
+
+    RedmineSeeder(JdbcTemplate jdbcTemplate, LoadTestConfig config) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.config = config;
+    }
+
+    // 回傳群組名稱
+    List<String> seed() {
+        new ResourceDatabasePopulator(new ClassPathResource("loadtest/redmine-schema.sql"))
+            .execute(jdbcTemplate.getDataSource());
+
+        SplittableRandom random = new SplittableRandom(config.seed());
+        jdbcTemplate.batchUpdate("INSERT INTO issue_statuses (id, name, is_closed) VALUES (?, ?, ?)", List.of(
+            new Object[]{1, "新建立", false},
+            new Object[]{2, "進行中", false},
+            new Object[]{3, "已解決", false},
+            new Object[]{5, "已結束", true},
+            new Object[]{6, "已拒絕", true}));
+
+        List<Object[]> projects = new ArrayList<>();
+        for (int p = 1; p <= config.projects(); p++) {
+            projects.add(new Object[]{p, String.format("專案%04d", p)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO projects (id, name) VALUES (?, ?)", projects);
+
+        List<String> groupNames = new ArrayList<>();
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> memberships = new ArrayList<>();
+        for (int g = 0; g < config.groups(); g++) {
+            String groupName = String.format("研發%02d部", g + 1);
+            groupNames.add(groupName);
+            users.add(new Object[]{GROUP_ID_BASE + g, "", "", groupName, "Group", 1});
+            for (int u = 0; u < config.usersPerGroup(); u++) {
+                int userId = g * config.usersPerGroup() + u + 1;
+                int status = random.nextInt(100) < 3 ? 3 : 1;
+                users.add(new Object[]{userId, "user" + userId, String.format("成員%04d", userId), "測試", "User", status});
+                memberships.add(new Object[]{GROUP_ID_BASE + g, userId});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, login, firstname, lastname, type, status) VALUES (?, ?, ?, ?, ?, ?)", users);
+        jdbcTemplate.batchUpdate("INSERT INTO groups_users (group_id, user_id) VALUES (?, ?)", memberships);
+
+        long rangeDays = config.dataTo().toEpochDay() - config.dataFrom().toEpochDay() + 1;
+        int userCount = config.groups() * config.usersPerGroup();
+        int issueId = 1;
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int userId = 1; userId <= userCount; userId++) {
+            // 每位成員集中在少數幾個專案
+            int projectOffset = random.nextInt(config.projects());
+            for (int i = 0; i < config.issuesPerUser(); i++) {
+                int length = (int) Math.min(180, 1 + Math.round(-Math.log(1 - random.nextDouble()) * 14));
+                LocalDate start = config.dataFrom().plusDays(random.nextLong(rangeDays));
+                LocalDate due = start.plusDays(length - 1);
+                int statusId = switch (random.nextInt(10)) {
+                    case 0, 1, 2 -> 5;
+                    case 3 -> 6;
+                    case 4, 5 -> 1;
+                    case 6 -> 3;
+                    default -> 2;
+                };
+                boolean closed = statusId >= 5;
+                // 少部分議題缺少日期或工時，查詢時應被排除
+                boolean incomplete = random.nextInt(50) == 0;
+                batch.add(new Object[]{
+                    issueId,
+                    (projectOffset + random.nextInt(5)) % config.projects() + 1,
+                    "議題 #" + issueId,
+                    statusId,
+                    userId,
+                    Date.valueOf(start),
+                    incomplete ? null : Date.valueOf(due),
+                    random.nextInt(1, 161) / 2.0,
+                    closed ? Timestamp.valueOf(due.atTime(18, 0)) : null,
+                    Timestamp.valueOf(start.atStartOfDay().plusMinutes(random.nextInt(60 * 24 * 30)))
+                });
+                issueId++;
+                if (batch.size() == BATCH_SIZE) {
+                    insertIssues(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            insertIssues(batch);
+        }
+        return groupNames;
+    }
+
+    private void insertIssues(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO issues (id, project_id, subject, status_id, assigned_to_id, " +
+            "start_date, due_date, estimated_hours, closed_on, updated_on) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", batch);
+    }
+}
@@ -0,0 +1,49 @@
+-- 查詢用到的 Redmine 資料表與欄位（欄位型別對應 Redmine 3.4 的 MySQL 結構）
+CREATE TABLE users (
+    id INT NOT NULL PRIMARY KEY,
+    login VARCHAR(255) DEFAULT '' NOT NULL,
+    firstname VARCHAR(30) DEFAULT '' NOT NULL,
+    lastname VARCHAR(255) DEFAULT '' NOT NULL,
+    type VARCHAR(255),
+    status INT DEFAULT 1 NOT NULL
+);
+
+CREATE TABLE groups_users (
+    group_id INT NOT NULL,
+    user_id INT NOT NULL,
+    PRIMARY KEY (group_id, user_id)
+);
+
+CREATE TABLE projects (
+    id INT NOT NULL PRIMARY KEY,
+    name VARCHAR(255) DEFAULT '' NOT NULL
+);
+
+CREATE TABLE issue_statuses (
+    id INT NOT NULL PRIMARY KEY,
+    name VARCHAR(30) DEFAULT '' NOT NULL,
+    is_closed BOOLEAN DEFAULT FALSE NOT NULL
+);
+
+CREATE TABLE issues (
+    id INT NOT NULL PRIMARY KEY,
+    project_id INT DEFAULT 0 NOT NULL,
+    subject VARCHAR(255) DEFAULT '' NOT NULL,
+    status_id INT DEFAULT 0 NOT NULL,
+    assigned_to_id INT,
+    start_date DATE,
+    due_date DATE,
+    estimated_hours DOUBLE,
+    closed_on TIMESTAMP,
+    updated_on TIMESTAMP
+);
+
+-- Redmine 本身的索引
+CREATE INDEX index_issues_on_project_id ON issues (project_id);
+CREATE INDEX index_issues_on_status_id ON issues (status_id);
+CREATE INDEX index_issues_on_assigned_to_id ON issues (assigned_to_id);
+CREATE INDEX index_users_on_type ON users (type);
+CREATE INDEX index_groups_users_on_user_id ON groups_users (user_id);
+
+-- MySQL 的 DATEDIFF(a, b) 只有兩個參數，H2 內建的版本需要時間單位，以 Java 函式取代
+CREATE ALIAS DATEDIFF FOR 'com.redmine.workload.loadtest.H2Functions.dateDiff';
@@ -0,0 +1,216 @@
+package com.redmine.workload.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.redmine.workload.metrics.WorkloadMetrics;
+import com.redmine.workload.model.WorkloadAnalysis2D;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// 2D 分析結果快取：以（群組、使用者集合、日期區間、時間顆粒度）為鍵，
+// 使用者順序不影響命中，取出時再依請求的使用者順序排列。
+// 同一個鍵同時未命中時只由第一個請求計算，其餘請求等待同一個結果（計算在請求執行緒上進行，不在快取的鎖內）
+@Component
+public class AnalysisResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisResultCache.class);
+
+    @Autowired
+    private IssueFingerprints issueFingerprints;
+
+    @Autowired
+    private WorkloadMetrics metrics;
+
+    @Value("${workload.cache.analysis.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${workload.cache.analysis.ttl-minutes:5}")
+    private long ttlMinutes = 5;
+
+    // 快取占用記憶體上限（以估計大小計算）
+    @Value("${workload.cache.analysis.max-megabytes:64}")
+    private long maxMegabytes = 64;
+
+    // 命中時先以群組議題指紋檢查資料是否有異動（同一群組的檢查頻率見 IssueFingerprints）
+    @Value("${workload.cache.analysis.freshness-check:true}")
+    private boolean freshnessCheck = true;
+
+    private Cache<Key, Entry> cache;
+
+    // 計算中的鍵：後到的相同請求等待這裡的結果，不重複計算
+    private final Map<Key, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+            .maximumWeight(maxMegabytes * 1024 * 1024)
+            .weigher((Key key, Entry entry) -> entry.weight)
+            .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+            .recordStats()
+            .build();
+        metrics.monitorCache("analysis", cache);
+    }
+
+    public List<WorkloadAnalysis2D> get(String groupName, List<String> userFullnames,
+                                        LocalDate startDate, LocalDate endDate, String timeGranularity,
+                                        Supplier<List<WorkloadAnalysis2D>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Key key = new Key(groupName, normalizeUsers(userFullnames), startDate, endDate, timeGranularity);
+        Entry entry = getFreshEntry(key);
+        if (entry == null) {
+            entry = load(key, loader);
+        }
+        return orderByUsers(entry.rows, userFullnames);
+    }
+
+    // 未命中：第一個請求計算並放入快取，同時到達的相同請求等待同一個 future
+    private Entry load(Key key, Supplier<List<WorkloadAnalysis2D>> loader) {
+        CompletableFuture<Entry> created = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            // 先取得指紋再計算，計算期間若有異動，下一次檢查就會發現
+            String fingerprint = freshnessCheck ? issueFingerprints.get(key.groupName()) : null;
+            Entry entry = new Entry(loader.get(), fingerprint);
+            cache.put(key, entry);
+            created.complete(entry);
+            return entry;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    // 只查詢快取，不計算；沒有可用的結果時回傳 null（供串流輸出直接重用已計算的結果）
+    public List<WorkloadAnalysis2D> peek(String groupName, List<String> userFullnames,
+                                         LocalDate startDate, LocalDate endDate, String timeGranularity) {
+        if (!enabled) {
+            return null;
+        }
+        Key key = new Key(groupName, normalizeUsers(userFullnames), startDate, endDate, timeGranularity);
+        Entry entry = getFreshEntry(key);
+        return entry != null ? orderByUsers(entry.rows, userFullnames) : null;
+    }
+
+    // 取得仍為最新的快取項目；過期（指紋不同）時移除並回傳 null
+    private Entry getFreshEntry(Key key) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && freshnessCheck) {
+            String fingerprint = issueFingerprints.get(key.groupName());
+            if (!fingerprint.equals(entry.fingerprint)) {
+                log.debug("Analysis cache entry stale, recomputing: {}", key);
+                cache.invalidate(key);
+                return null;
+            }
+        }
+        return entry;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        log.info("Analysis result cache invalidated");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = LookupCache.toMap(cache.stats(), cache.estimatedSize());
+        stats.put("enabled", enabled);
+        stats.put("inFlight", inFlight.size());
+        stats.put("weightedBytes", cache.policy().eviction()
+            .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L));
+        return stats;
+    }
+
+    // 使用者去重並排序，讓不同的選取順序對應到同一個快取鍵
+    private static List<String> normalizeUsers(List<String> userFullnames) {
+        if (userFullnames == null || userFullnames.isEmpty()) {
+            return List.of();
+        }
+        return List.copyOf(new TreeSet<>(userFullnames));
+    }
+
+    // 依請求的使用者順序重新排列使用者區塊；未指定使用者（整個群組）時維持原順序
+    private static List<WorkloadAnalysis2D> orderByUsers(List<WorkloadAnalysis2D> rows, List<String> userFullnames) {
+        if (userFullnames == null || userFullnames.isEmpty()) {
+            return new ArrayList<>(rows);
+        }
+
+        Map<String, List<WorkloadAnalysis2D>> rowsByUser = new LinkedHashMap<>();
+        for (WorkloadAnalysis2D row : rows) {
+            rowsByUser.computeIfAbsent(row.getUserFullname(), k -> new ArrayList<>()).add(row);
+        }
+
+        List<WorkloadAnalysis2D> result = new ArrayList<>(rows.size());
+        for (String userFullname : userFullnames) {
+            List<WorkloadAnalysis2D> userRows = rowsByUser.remove(userFullname);
+            if (userRows != null) {
+                result.addAll(userRows);
+            }
+        }
+        return result;
+    }
+
+    // 估計結果占用的記憶體（位元組），供快取依大小淘汰
+    private static int estimateWeight(List<WorkloadAnalysis2D> rows) {
+        long bytes = 64;
+        for (WorkloadAnalysis2D row : rows) {
+            bytes += 256;
+            if (row.getDailyHundredths() != null) {
+                bytes += 16 + 8L * row.getDailyHundredths().length;
+            } else if (row.getDailyWorkloads() != null) {
+                bytes += 120L * row.getDailyWorkloads().size();
+            }
+            if (row.getPeriodWorkloads() != null) {
+                bytes += 160L * row.getPeriodWorkloads().size();
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private record Key(String groupName, List<String> userFullnames,
+                       LocalDate startDate, LocalDate endDate, String timeGranularity) {
+    }
+
+    private static class Entry {
+        private final List<WorkloadAnalysis2D> rows;
+        private final String fingerprint;
+        private final int weight;
+
+        private Entry(List<WorkloadAnalysis2D> rows, String fingerprint) {
+            this.rows = rows;
+            this.fingerprint = fingerprint;
+            this.weight = estimateWeight(rows);
+        }
+    }
+}
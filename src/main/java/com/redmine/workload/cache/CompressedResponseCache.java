@@ -0,0 +1,80 @@
+package com.redmine.workload.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.redmine.workload.metrics.WorkloadMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+// 預先壓縮的回應快取：以 ETag 為鍵保存序列化並 gzip 壓縮後的位元組，
+// 熱門的分析結果再次請求（不同使用者、或瀏覽器快取已清除）時直接送出，不必重新序列化與壓縮。
+// ETag 已包含資料指紋與請求參數，資料異動後自然對應到新的鍵，舊項目由 TTL 與大小上限淘汰
+@Component
+public class CompressedResponseCache {
+
+    @Autowired
+    private WorkloadMetrics metrics;
+
+    @Value("${workload.http.compressed-cache.max-megabytes:32}")
+    private long maxMegabytes = 32;
+
+    @Value("${workload.http.compressed-cache.ttl-minutes:10}")
+    private long ttlMinutes = 10;
+
+    private Cache<String, byte[]> cache;
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+            .maximumWeight(maxMegabytes * 1024 * 1024)
+            .weigher((String key, byte[] body) -> body.length + 64)
+            .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+            .recordStats()
+            .build();
+        metrics.monitorCache("compressed", cache);
+    }
+
+    // 已壓縮的內容；未命中時回傳 null
+    public byte[] getIfPresent(String etag) {
+        return cache.getIfPresent(etag);
+    }
+
+    // 壓縮後放入快取並回傳壓縮後的內容。呼叫端在快取外計算與序列化，
+    // 計算分析結果期間不占用 Caffeine 的鎖，也不會擋住其他鍵的寫入
+    public byte[] put(String etag, byte[] body) {
+        byte[] compressed = gzip(body);
+        cache.put(etag, compressed);
+        return compressed;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = LookupCache.toMap(cache.stats(), cache.estimatedSize());
+        stats.put("weightedBytes", cache.policy().eviction()
+            .map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L));
+        return stats;
+    }
+
+    public static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer, 8192)) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+}
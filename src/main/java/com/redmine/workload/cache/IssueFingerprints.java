@@ -0,0 +1,76 @@
+package com.redmine.workload.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.redmine.workload.metrics.WorkloadMetrics;
+import com.redmine.workload.repository.WorkloadRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+
+// 群組議題指紋（議題數 + MAX(updated_on)），用來判斷快取的分析結果是否仍為最新。
+// 同一群組在 check-interval-seconds 內只查詢一次：熱門群組的每次快取命中不必各多一次查詢，
+// 代價是資料異動後最多延遲 check-interval-seconds 秒才會重新計算。設為 0 時每次都查詢。
+// 在 HTTP 請求中取得的指紋另外保存在請求屬性，ETag 與分析結果快取在同一請求內使用同一個值
+@Component
+public class IssueFingerprints {
+
+    @Autowired
+    private WorkloadRepository workloadRepository;
+
+    @Autowired
+    private WorkloadMetrics metrics;
+
+    @Value("${workload.cache.analysis.freshness-check-interval-seconds:5}")
+    private long checkIntervalSeconds = 5;
+
+    private static final String REQUEST_ATTRIBUTE_PREFIX = IssueFingerprints.class.getName() + ".";
+
+    private Cache<String, String> recent;
+
+    @PostConstruct
+    public void init() {
+        if (checkIntervalSeconds > 0) {
+            recent = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofSeconds(checkIntervalSeconds))
+                .recordStats()
+                .build();
+            metrics.monitorCache("fingerprint", recent);
+        }
+    }
+
+    // 指紋查詢很輕，直接在 Caffeine 的載入函式中執行：同一群組同時到達的請求共用一次查詢
+    public String get(String groupName) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return load(groupName);
+        }
+        String attribute = REQUEST_ATTRIBUTE_PREFIX + groupName;
+        String fingerprint = (String) request.getAttribute(attribute, RequestAttributes.SCOPE_REQUEST);
+        if (fingerprint == null) {
+            fingerprint = load(groupName);
+            request.setAttribute(attribute, fingerprint, RequestAttributes.SCOPE_REQUEST);
+        }
+        return fingerprint;
+    }
+
+    private String load(String groupName) {
+        if (recent == null) {
+            return workloadRepository.getIssueFingerprint(groupName);
+        }
+        return recent.get(groupName, workloadRepository::getIssueFingerprint);
+    }
+
+    public void invalidateAll() {
+        if (recent != null) {
+            recent.invalidateAll();
+        }
+    }
+}
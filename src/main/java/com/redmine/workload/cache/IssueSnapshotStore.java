@@ -0,0 +1,276 @@
+package com.redmine.workload.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.repository.WorkloadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 群組議題快照：保留群組議題的原始資料列，之後只依 issues.updated_on 讀取有異動的議題並就地更新，
+// 不必每次都重跑 5 個資料表的 JOIN 查詢。
+// 資料列的順序一律來自資料庫（依資料庫定序排序），不在 Java 端重新排序：
+// 增量更新時以 SQL 重新讀取受影響使用者的整個區塊，使用者之間維持完整載入時的順序
+@Component
+public class IssueSnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IssueSnapshotStore.class);
+
+    @Autowired
+    private WorkloadRepository workloadRepository;
+
+    @Value("${workload.snapshot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${workload.snapshot.max-groups:20}")
+    private long maxGroups = 20;
+
+    // 增量同步的最短間隔，避免短時間內的連續請求重複查詢
+    @Value("${workload.snapshot.min-sync-interval-seconds:5}")
+    private long minSyncIntervalSeconds = 5;
+
+    // 定期完整重新載入。刪除的議題、停用的使用者與群組成員異動不會更新 issues.updated_on，
+    // 每次增量同步會比對資料庫筆數，筆數不同時立即完整載入；筆數剛好不變的異動要等到這裡才會反映
+    @Value("${workload.snapshot.full-refresh-minutes:60}")
+    private long fullRefreshMinutes = 60;
+
+    private Cache<String, GroupSnapshot> snapshots;
+
+    @PostConstruct
+    public void init() {
+        snapshots = Caffeine.newBuilder()
+            .maximumSize(maxGroups)
+            .expireAfterAccess(Duration.ofMinutes(fullRefreshMinutes))
+            .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 取得群組在查詢區間內的 2D 分析原始資料；指定使用者時依使用者順序排列
+    public List<WorkloadAnalysis2D> getWorkloadAnalysis2D(String groupName, List<String> userFullnames,
+                                                          LocalDate startDate, LocalDate endDate) {
+        GroupSnapshot snapshot = snapshots.get(groupName, GroupSnapshot::new);
+        synchronized (snapshot) {
+            refresh(snapshot, startDate, endDate);
+            return select(snapshot, userFullnames, startDate, endDate);
+        }
+    }
+
+    public void invalidateAll() {
+        snapshots.invalidateAll();
+        log.info("Issue snapshots invalidated");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("groups", snapshots.estimatedSize());
+        snapshots.asMap().forEach((groupName, snapshot) -> {
+            Map<String, Object> groupStats = new LinkedHashMap<>();
+            groupStats.put("issues", snapshot.rowsById.size());
+            groupStats.put("users", snapshot.rowsByUser.size());
+            groupStats.put("windowStart", snapshot.windowStart);
+            groupStats.put("windowEnd", snapshot.windowEnd);
+            groupStats.put("watermark", snapshot.watermark);
+            stats.put(groupName, groupStats);
+        });
+        return stats;
+    }
+
+    private void refresh(GroupSnapshot snapshot, LocalDate startDate, LocalDate endDate) {
+        long now = System.currentTimeMillis();
+        boolean covered = snapshot.watermark != null
+            && !startDate.isBefore(snapshot.windowStart) && !endDate.isAfter(snapshot.windowEnd);
+
+        if (!covered || now - snapshot.lastFullLoadMillis >= fullRefreshMinutes * 60_000) {
+            // 查詢區間超出快照範圍時擴大範圍後完整載入
+            LocalDate windowStart = snapshot.watermark != null && snapshot.windowStart.isBefore(startDate)
+                ? snapshot.windowStart : startDate;
+            LocalDate windowEnd = snapshot.watermark != null && snapshot.windowEnd.isAfter(endDate)
+                ? snapshot.windowEnd : endDate;
+            fullLoad(snapshot, windowStart, windowEnd);
+        } else if (now - snapshot.lastSyncMillis >= minSyncIntervalSeconds * 1000) {
+            incrementalSync(snapshot);
+        }
+    }
+
+    private void fullLoad(GroupSnapshot snapshot, LocalDate windowStart, LocalDate windowEnd) {
+        log.info("Full snapshot load: {} [{} ~ {}]", snapshot.groupName, windowStart, windowEnd);
+        // 先取得水位再查詢，查詢期間的異動會在下一次增量同步時讀到
+        LocalDateTime watermark = workloadRepository.getMaxIssueUpdatedOn();
+        List<WorkloadAnalysis2D> rows = workloadRepository.getWorkloadAnalysis2D(
+            snapshot.groupName, null, windowStart, windowEnd);
+
+        snapshot.rowsById.clear();
+        snapshot.rowsByUser.clear();
+        for (WorkloadAnalysis2D row : rows) {
+            snapshot.rowsById.put(row.getIssueId(), row);
+            snapshot.rowsByUser.computeIfAbsent(row.getUserFullname(), k -> new ArrayList<>()).add(row);
+        }
+        snapshot.windowStart = windowStart;
+        snapshot.windowEnd = windowEnd;
+        snapshot.watermark = watermark != null ? watermark : LocalDateTime.of(1970, 1, 1, 0, 0);
+        snapshot.lastFullLoadMillis = System.currentTimeMillis();
+        snapshot.lastSyncMillis = snapshot.lastFullLoadMillis;
+    }
+
+    private void incrementalSync(GroupSnapshot snapshot) {
+        // 以 >= 水位查詢，同一秒內的異動不會遺漏（重複讀取同一筆議題不影響結果）
+        Map<Long, LocalDateTime> changedIssues = workloadRepository.getChangedIssues(snapshot.watermark);
+        snapshot.lastSyncMillis = System.currentTimeMillis();
+        if (!changedIssues.isEmpty() && !patch(snapshot, changedIssues)) {
+            return;
+        }
+
+        // 刪除議題、停用使用者、群組成員異動都不會留下 updated_on，以筆數比對發現後完整載入
+        long count = workloadRepository.countWorkloadAnalysis2D(
+            snapshot.groupName, snapshot.windowStart, snapshot.windowEnd);
+        if (count != snapshot.rowsById.size()) {
+            log.info("Snapshot {} has {} issues but the database has {}, reloading",
+                snapshot.groupName, snapshot.rowsById.size(), count);
+            fullLoad(snapshot, snapshot.windowStart, snapshot.windowEnd);
+        }
+    }
+
+    // 套用有異動的議題；需要完整載入時（已經載入）回傳 false
+    private boolean patch(GroupSnapshot snapshot, Map<Long, LocalDateTime> changedIssues) {
+        // 異動議題的新舊負責人都受影響（改派到其他群組者在重新讀取後即不在快照內）
+        List<Long> changedIds = new ArrayList<>(changedIssues.keySet());
+        Set<String> affectedUsers = new HashSet<>();
+        for (Long issueId : changedIds) {
+            WorkloadAnalysis2D row = snapshot.rowsById.get(issueId);
+            if (row != null) {
+                affectedUsers.add(row.getUserFullname());
+            }
+        }
+        List<WorkloadAnalysis2D> reloaded = workloadRepository.getWorkloadAnalysis2DByIssueIds(
+            snapshot.groupName, changedIds, snapshot.windowStart, snapshot.windowEnd);
+        for (WorkloadAnalysis2D row : reloaded) {
+            if (!snapshot.rowsByUser.containsKey(row.getUserFullname())) {
+                // 快照中還沒有這位使用者，無法得知他在資料庫定序中的位置
+                fullLoad(snapshot, snapshot.windowStart, snapshot.windowEnd);
+                return false;
+            }
+            affectedUsers.add(row.getUserFullname());
+        }
+
+        if (!affectedUsers.isEmpty()) {
+            // 依快照中的使用者順序重新查詢受影響使用者的整個區塊，區塊內的順序與完整載入相同
+            List<String> users = new ArrayList<>();
+            for (String userFullname : snapshot.rowsByUser.keySet()) {
+                if (affectedUsers.contains(userFullname)) {
+                    users.add(userFullname);
+                }
+            }
+            Map<String, List<WorkloadAnalysis2D>> blocks = new HashMap<>();
+            for (WorkloadAnalysis2D row : workloadRepository.getWorkloadAnalysis2DForUsers(
+                    snapshot.groupName, users, snapshot.windowStart, snapshot.windowEnd)) {
+                blocks.computeIfAbsent(row.getUserFullname(), k -> new ArrayList<>()).add(row);
+            }
+            // 先移除所有舊區塊再放入新區塊：改派的議題可能從後面的使用者移到前面的使用者
+            for (String userFullname : users) {
+                for (WorkloadAnalysis2D row : snapshot.rowsByUser.get(userFullname)) {
+                    snapshot.rowsById.remove(row.getIssueId());
+                }
+            }
+            for (String userFullname : users) {
+                // 沒有議題的使用者保留空區塊，之後再分派議題給他時不必完整載入
+                List<WorkloadAnalysis2D> block = blocks.getOrDefault(userFullname, new ArrayList<>());
+                for (WorkloadAnalysis2D row : block) {
+                    snapshot.rowsById.put(row.getIssueId(), row);
+                }
+                snapshot.rowsByUser.put(userFullname, block);
+            }
+        }
+
+        for (LocalDateTime updatedOn : changedIssues.values()) {
+            if (updatedOn.isAfter(snapshot.watermark)) {
+                snapshot.watermark = updatedOn;
+            }
+        }
+        log.debug("Snapshot {} patched: {} changed, {} users reloaded",
+            snapshot.groupName, changedIds.size(), affectedUsers.size());
+        return true;
+    }
+
+    // 從快照挑出查詢區間與使用者的資料列，回傳副本（彙總時會寫入每日／週期工時）
+    private List<WorkloadAnalysis2D> select(GroupSnapshot snapshot, List<String> userFullnames,
+                                            LocalDate startDate, LocalDate endDate) {
+        List<WorkloadAnalysis2D> inRange = new ArrayList<>();
+        Set<String> users = userFullnames == null || userFullnames.isEmpty() ? null : new HashSet<>(userFullnames);
+        for (Map.Entry<String, List<WorkloadAnalysis2D>> block : snapshot.rowsByUser.entrySet()) {
+            if (users != null && !users.contains(block.getKey())) {
+                continue;
+            }
+            for (WorkloadAnalysis2D row : block.getValue()) {
+                if (!row.getStartDate().isAfter(endDate) && !row.getDueDate().isBefore(startDate)) {
+                    inRange.add(copyOf(row));
+                }
+            }
+        }
+        if (users == null) {
+            return inRange;
+        }
+
+        // 依使用者傳入順序排列，與批次查詢的結果順序一致
+        Map<String, List<WorkloadAnalysis2D>> rowsByUser = new HashMap<>();
+        for (WorkloadAnalysis2D row : inRange) {
+            rowsByUser.computeIfAbsent(row.getUserFullname(), k -> new ArrayList<>()).add(row);
+        }
+        List<WorkloadAnalysis2D> result = new ArrayList<>(inRange.size());
+        for (String userFullname : userFullnames) {
+            List<WorkloadAnalysis2D> userRows = rowsByUser.get(userFullname);
+            if (userRows != null) {
+                result.addAll(userRows);
+            }
+        }
+        return result;
+    }
+
+    private static WorkloadAnalysis2D copyOf(WorkloadAnalysis2D row) {
+        WorkloadAnalysis2D copy = new WorkloadAnalysis2D();
+        copy.setGroupName(row.getGroupName());
+        copy.setUserFullname(row.getUserFullname());
+        copy.setProjectName(row.getProjectName());
+        copy.setIssueId(row.getIssueId());
+        copy.setIssueSubject(row.getIssueSubject());
+        copy.setStartDate(row.getStartDate());
+        copy.setDueDate(row.getDueDate());
+        copy.setEstimatedHours(row.getEstimatedHours());
+        return copy;
+    }
+
+    private static class GroupSnapshot {
+        private final String groupName;
+        private final Map<Long, WorkloadAnalysis2D> rowsById = new HashMap<>();
+        // 使用者區塊，依完整載入時的 SQL 順序（資料庫定序）排列
+        private final Map<String, List<WorkloadAnalysis2D>> rowsByUser = new LinkedHashMap<>();
+        private LocalDate windowStart;
+        private LocalDate windowEnd;
+        private LocalDateTime watermark;
+        private long lastFullLoadMillis;
+        private long lastSyncMillis;
+
+        private GroupSnapshot(String groupName) {
+            this.groupName = groupName;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.redmine.workload.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.redmine.workload.metrics.WorkloadMetrics;
+import com.redmine.workload.repository.WorkloadRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 群組與群組成員查詢的快取：Redmine 的群組成員很少變動，避免每次頁面請求都查詢 MySQL
+@Component
+public class LookupCache {
+
+    private static final Logger log = LoggerFactory.getLogger(LookupCache.class);
+
+    private static final String ALL_GROUPS_KEY = "*";
+
+    @Autowired
+    private WorkloadRepository workloadRepository;
+
+    @Autowired
+    private WorkloadMetrics metrics;
+
+    @Value("${workload.cache.lookup.ttl-minutes:60}")
+    private long ttlMinutes = 60;
+
+    @Value("${workload.cache.lookup.max-size:500}")
+    private long maxSize = 500;
+
+    private Cache<String, List<String>> groupsCache;
+    private Cache<String, List<String>> usersByGroupCache;
+
+    @PostConstruct
+    public void init() {
+        groupsCache = Caffeine.newBuilder()
+            .maximumSize(1)
+            .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+            .recordStats()
+            .build();
+        usersByGroupCache = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+            .recordStats()
+            .build();
+        metrics.monitorCache("lookup.groups", groupsCache);
+        metrics.monitorCache("lookup.usersByGroup", usersByGroupCache);
+    }
+
+    public List<String> getAllGroups() {
+        return groupsCache.get(ALL_GROUPS_KEY, key -> List.copyOf(workloadRepository.getAllGroups()));
+    }
+
+    public List<String> getUsersByGroup(String groupName) {
+        if (groupName == null) {
+            return workloadRepository.getUsersByGroup(null);
+        }
+        return usersByGroupCache.get(groupName, key -> List.copyOf(workloadRepository.getUsersByGroup(key)));
+    }
+
+    // 清除所有群組與成員快取（例如 Redmine 調整了群組成員之後）
+    public void invalidateAll() {
+        groupsCache.invalidateAll();
+        usersByGroupCache.invalidateAll();
+        log.info("Lookup cache invalidated");
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("groups", toMap(groupsCache.stats(), groupsCache.estimatedSize()));
+        stats.put("usersByGroup", toMap(usersByGroupCache.stats(), usersByGroupCache.estimatedSize()));
+        return stats;
+    }
+
+    static Map<String, Object> toMap(CacheStats cacheStats, long size) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("size", size);
+        map.put("hitCount", cacheStats.hitCount());
+        map.put("missCount", cacheStats.missCount());
+        map.put("hitRate", cacheStats.hitRate());
+        map.put("evictionCount", cacheStats.evictionCount());
+        return map;
+    }
+}
@@ -0,0 +1,77 @@
+package com.redmine.workload.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 分析端點的強 ETag：由端點名稱、群組議題指紋（議題數 + MAX(updated_on)，與分析結果快取的新鮮度檢查共用
+// IssueFingerprints，同一請求只查詢一次）與請求參數計算 SHA-256。資料未異動時不必重新計算分析結果即可回傳 304。
+// 世代值以啟動時間起算，清除快取或重新載入工作日表時遞增，使重新啟動或假日變更後舊的 ETag 失效
+@Component
+public class ResponseETags {
+
+    @Autowired
+    private IssueFingerprints issueFingerprints;
+
+    @Value("${workload.http.etag.enabled:true}")
+    private boolean enabled = true;
+
+    private final AtomicLong generation = new AtomicLong(System.currentTimeMillis());
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // 回傳含引號的 ETag；停用時回傳 null。params 依序納入（使用者順序會影響輸出順序，不排序）
+    public String forGroup(String endpoint, String groupName, Object... params) {
+        if (!enabled) {
+            return null;
+        }
+        StringBuilder source = new StringBuilder(128)
+            .append(endpoint).append('\u0000')
+            .append(generation.get()).append('\u0000')
+            .append(issueFingerprints.get(groupName)).append('\u0000')
+            .append(groupName);
+        for (Object param : params) {
+            source.append('\u0000');
+            if (param instanceof Object[] values) {
+                for (Object value : values) {
+                    source.append(value).append('\u0001');
+                }
+            } else if (param instanceof Iterable<?> values) {
+                for (Object value : values) {
+                    source.append(value).append('\u0001');
+                }
+            } else {
+                source.append(param);
+            }
+        }
+        return '"' + hash(source) + '"';
+    }
+
+    // 同一份資料的 gzip 表示法使用不同的強 ETag（"...-gzip"）
+    public static String gzipVariant(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+    }
+
+    // 前 128 位元即足以區分
+    private static String hash(CharSequence source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                .digest(source.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
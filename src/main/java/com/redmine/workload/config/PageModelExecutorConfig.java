@@ -0,0 +1,38 @@
+package com.redmine.workload.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 頁面下拉選單（群組、成員）查詢用的執行緒池，所有請求共用；主要查詢在請求執行緒上執行，不占用此池。
+// 這些查詢有快取且很輕，佇列滿時由請求執行緒自己執行
+@Configuration
+public class PageModelExecutorConfig {
+
+    @Value("${workload.page.executor.threads:8}")
+    private int threads = 8;
+
+    @Value("${workload.page.executor.queue-capacity:100}")
+    private int queueCapacity = 100;
+
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService pageModelExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "page-model-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
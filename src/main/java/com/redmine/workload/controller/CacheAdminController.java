@@ -0,0 +1,82 @@
+package com.redmine.workload.controller;
+
+import com.redmine.workload.cache.AnalysisResultCache;
+import com.redmine.workload.cache.CompressedResponseCache;
+import com.redmine.workload.cache.IssueFingerprints;
+import com.redmine.workload.cache.IssueSnapshotStore;
+import com.redmine.workload.cache.LookupCache;
+import com.redmine.workload.cache.ResponseETags;
+import com.redmine.workload.repository.WorkloadRollupRepository;
+import com.redmine.workload.service.WorkingDayCalculator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin/cache")
+public class CacheAdminController {
+
+    @Autowired
+    private LookupCache lookupCache;
+
+    @Autowired
+    private AnalysisResultCache analysisResultCache;
+
+    @Autowired
+    private IssueSnapshotStore issueSnapshotStore;
+
+    @Autowired
+    private IssueFingerprints issueFingerprints;
+
+    @Autowired
+    private CompressedResponseCache compressedResponseCache;
+
+    @Autowired
+    private ResponseETags responseETags;
+
+    @Autowired
+    private WorkingDayCalculator workingDayCalculator;
+
+    @Autowired
+    private WorkloadRollupRepository workloadRollupRepository;
+
+    // 查看快取命中／未命中統計
+    @GetMapping
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("lookup", lookupCache.getStats());
+        stats.put("analysis", analysisResultCache.getStats());
+        stats.put("snapshot", issueSnapshotStore.getStats());
+        stats.put("compressed", compressedResponseCache.getStats());
+        stats.put("calendar", workingDayCalculator.getStats());
+        return stats;
+    }
+
+    // 清除快取，下一次請求會重新查詢 Redmine；已發出的 ETag 一併失效
+    @PostMapping("/flush")
+    public Map<String, Object> flushCaches() {
+        lookupCache.invalidateAll();
+        analysisResultCache.invalidateAll();
+        issueFingerprints.invalidateAll();
+        issueSnapshotStore.invalidateAll();
+        compressedResponseCache.invalidateAll();
+        responseETags.invalidateAll();
+        return getCacheStats();
+    }
+
+    // 更新假日資料後重新載入工作日表；已算好的分析結果與 SQL 彙總用的日曆表一併清除
+    @PostMapping("/calendar/reload")
+    public Map<String, Object> reloadCalendar() {
+        workingDayCalculator.reload();
+        workloadRollupRepository.resetCalendar();
+        analysisResultCache.invalidateAll();
+        compressedResponseCache.invalidateAll();
+        responseETags.invalidateAll();
+        return getCacheStats();
+    }
+}
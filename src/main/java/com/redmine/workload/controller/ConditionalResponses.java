@@ -0,0 +1,111 @@
+package com.redmine.workload.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redmine.workload.cache.CompressedResponseCache;
+import com.redmine.workload.cache.ResponseETags;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+
+// 條件式 GET 與預先壓縮的 JSON 回應。
+// 呼叫端回傳 null 表示已設定 304 Not Modified（Spring MVC 不再處理回傳值），不需計算分析結果。
+// 回應一律加上 Cache-Control: no-cache，瀏覽器每次都以 If-None-Match 重新驗證
+@Component
+public class ConditionalResponses {
+
+    @Autowired
+    private ResponseETags responseETags;
+
+    @Autowired
+    private CompressedResponseCache compressedResponseCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public String etag(String endpoint, String groupName, Object... params) {
+        return responseETags.forGroup(endpoint, groupName, params);
+    }
+
+    // 串流與 HTML 回應：If-None-Match 相符時回傳 true（回應已設為 304）。
+    // 內容由 Tomcat 即時壓縮，壓縮後的位元組與原文不同，因此使用弱 ETag（Tomcat 也不壓縮帶強 ETag 的回應）
+    public boolean notModified(ServletWebRequest request, String etag) {
+        return etag != null && checkNotModified(request, "W/" + etag);
+    }
+
+    // JSON 回應：用戶端接受 gzip 時送出快取中預先壓縮的內容（ETag 為 gzip 表示法專用的 "...-gzip"），
+    // 否則即時序列化；If-None-Match 相符時回傳 null
+    public ResponseEntity<byte[]> json(ServletWebRequest request, String etag, Supplier<?> body) {
+        if (etag == null) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(serialize(body.get()));
+        }
+
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        String variant = gzip ? ResponseETags.gzipVariant(etag) : etag;
+        if (checkNotModified(request, variant)) {
+            return null;
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .eTag(variant)
+            .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .contentType(MediaType.APPLICATION_JSON);
+        if (!gzip) {
+            return response.body(serialize(body.get()));
+        }
+        // 未命中時在快取外計算；同一個鍵同時未命中時，重複計算由分析結果快取合併
+        byte[] compressed = compressedResponseCache.getIfPresent(variant);
+        if (compressed == null) {
+            compressed = compressedResponseCache.put(variant, serialize(body.get()));
+        }
+        // 已設定 Content-Encoding 的回應不會再經過 Tomcat 壓縮
+        return response
+            .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .body(compressed);
+    }
+
+    private static boolean checkNotModified(ServletWebRequest request, String etag) {
+        request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        return request.checkNotModified(etag);
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Accept-Encoding 明確列出 gzip 時依其品質值判斷，否則看 *；q=0 表示不接受
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        Boolean any = null;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.trim().split(";");
+            String coding = parts[0].trim();
+            boolean accepted = true;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim().replace(" ", "");
+                if (parameter.startsWith("q=")) {
+                    accepted = !parameter.substring(2).matches("0(\\.0{0,3})?");
+                }
+            }
+            if (coding.equalsIgnoreCase("gzip")) {
+                gzip = accepted;
+            } else if (coding.equals("*")) {
+                any = accepted;
+            }
+        }
+        return gzip != null ? gzip : Boolean.TRUE.equals(any);
+    }
+}
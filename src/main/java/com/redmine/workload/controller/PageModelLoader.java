@@ -0,0 +1,100 @@
+package com.redmine.workload.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// 單一請求的頁面資料載入：下拉選單等次要查詢送到共用的執行緒池，主要查詢（統計或 2D 分析）
+// 同時在請求執行緒上執行，頁面延遲取決於最慢的一項而不是總和。
+// 主要查詢的逾時由 JDBC 的查詢逾時（spring.jdbc.template.query-timeout）負責，資料庫會真正中止查詢；
+// 每項查詢各自計時，結果以 Server-Timing 標頭輸出
+class PageModelLoader {
+
+    private static final Logger log = LoggerFactory.getLogger(PageModelLoader.class);
+
+    private final Executor executor;
+    private final long requestStart = System.nanoTime();
+    private final Map<String, Double> timings = new LinkedHashMap<>();
+
+    PageModelLoader(Executor executor) {
+        this.executor = executor;
+    }
+
+    // 次要查詢：在執行緒池中執行
+    <T> CompletableFuture<T> submit(String name, Supplier<T> supplier) {
+        synchronized (timings) {
+            timings.put(name, null);
+        }
+        return CompletableFuture.supplyAsync(() -> timed(name, supplier), executor);
+    }
+
+    // 主要查詢：在請求執行緒上執行；資料庫查詢逾時回傳 504，其他例外原樣拋出
+    <T> T run(String name, Supplier<T> supplier) {
+        try {
+            return timed(name, supplier);
+        } catch (QueryTimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, name + " timed out", e);
+        }
+    }
+
+    // 等待次要查詢；逾時或失敗時以 fallback 顯示頁面，不影響主要結果。
+    // 逾時的查詢不中斷，完成後仍會填入查詢快取（LookupCache），下一次請求即可使用
+    <T> T awaitOrDefault(CompletableFuture<T> future, long timeoutSeconds, String name, T fallback) {
+        try {
+            return future.get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.info("Page model {} unavailable: timed out after {}s", name, timeoutSeconds);
+            return fallback;
+        } catch (ExecutionException e) {
+            log.warn("Page model {} unavailable", name, e.getCause());
+            return fallback;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback;
+        }
+    }
+
+    // 例如 "statistics;dur=120.5, groups;dur=0.8, users;dur=1.2, total;dur=121.3"
+    String serverTiming() {
+        StringBuilder header = new StringBuilder();
+        synchronized (timings) {
+            timings.forEach((name, millis) -> {
+                if (millis != null) {
+                    header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.1f", millis)).append(", ");
+                }
+            });
+        }
+        return header.append("total;dur=").append(String.format(Locale.ROOT, "%.1f", elapsedMillis(requestStart))).toString();
+    }
+
+    private <T> T timed(String name, Supplier<T> supplier) {
+        long start = System.nanoTime();
+        try {
+            return supplier.get();
+        } finally {
+            record(name, start);
+        }
+    }
+
+    private void record(String name, long start) {
+        synchronized (timings) {
+            timings.put(name, elapsedMillis(start));
+        }
+    }
+
+    private static double elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000.0;
+    }
+}
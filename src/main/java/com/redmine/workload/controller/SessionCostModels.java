@@ -0,0 +1,51 @@
+package com.redmine.workload.controller;
+
+import com.redmine.workload.service.CostExclusionModel;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// 工作階段中的成本計算模型：同一工作階段可同時開啟多個 /workload2d 分頁或重新查詢，
+// 每個模型以建立時回傳的 modelId 區分，勾選變更只套用到對應的模型。
+// 只保留最近使用的 maxModels 個模型，較舊的模型被淘汰後其變更回傳 409
+class SessionCostModels implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final RecentModels models;
+
+    SessionCostModels(int maxModels) {
+        this.models = new RecentModels(maxModels);
+    }
+
+    synchronized String add(CostExclusionModel model) {
+        String modelId = UUID.randomUUID().toString();
+        models.put(modelId, model);
+        return modelId;
+    }
+
+    // 找不到（未建立或已淘汰）時回傳 null
+    synchronized CostExclusionModel get(String modelId) {
+        return models.get(modelId);
+    }
+
+    // 依存取順序排列，超過上限時淘汰最久未使用的模型
+    private static final class RecentModels extends LinkedHashMap<String, CostExclusionModel> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxModels;
+
+        RecentModels(int maxModels) {
+            super(16, 0.75f, true);
+            this.maxModels = maxModels;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CostExclusionModel> eldest) {
+            return size() > maxModels;
+        }
+    }
+}
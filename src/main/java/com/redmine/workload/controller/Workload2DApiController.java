@@ -0,0 +1,245 @@
+package com.redmine.workload.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.redmine.workload.export.AnalysisMatrixWriter;
+import com.redmine.workload.export.AnalysisNdjsonWriter;
+import com.redmine.workload.model.CostExclusionChange;
+import com.redmine.workload.model.CostExclusionResult;
+import com.redmine.workload.service.CostExclusionModel;
+import com.redmine.workload.service.WorkloadService;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.WebUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// 2D 分析的 REST API（與 /workload2d 頁面使用相同的查詢參數）
+@RestController
+@RequestMapping("/api/workload2d")
+public class Workload2DApiController {
+
+    static final String COST_MODELS_ATTRIBUTE = "workload2d.costModels";
+
+    // 每個工作階段最多保留的成本計算模型數（分頁或查詢數）
+    @Value("${workload.cost-model.max-per-session:8}")
+    private int maxCostModelsPerSession = 8;
+
+    @Autowired
+    private WorkloadService workloadService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ConditionalResponses conditionalResponses;
+
+    // 串流輸出分析結果：每彙總完一位使用者就送出，不必等整份結果完成，也不建立整份 JSON 文件。
+    // 預設為 NDJSON；Accept 為 application/x-workload-matrix 或 format=matrix 時輸出欄式二進位格式。
+    // 不宣告 produces：格式由 wantsMatrix 決定，無法解析的 Accept 也以 NDJSON 回應，而不是 406。
+    // 資料未異動（ETag 相同）時回傳 304，不重新計算
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> streamWorkload2D(
+            @RequestParam("groupName") String groupName,
+            @RequestParam(value = "userFullname", required = false) String[] userFullnames,
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "timeGranularity", defaultValue = "daily") String timeGranularity,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            ServletWebRequest webRequest) {
+
+        List<String> selectedUsers = selectedUsers(userFullnames);
+        boolean matrix = wantsMatrix(format, accept);
+        String etag = conditionalResponses.etag(matrix ? "stream-matrix" : "stream-ndjson", groupName,
+            selectedUsers, startDate, endDate, timeGranularity);
+        if (conditionalResponses.notModified(webRequest, etag)) {
+            return null;
+        }
+
+        if (matrix) {
+            StreamingResponseBody body = outputStream -> {
+                AnalysisMatrixWriter writer = new AnalysisMatrixWriter(outputStream, startDate, endDate, timeGranularity);
+                writer.writeHeader(groupName, startDate, endDate);
+                workloadService.streamWorkloadAnalysis2DForMultipleUsers(
+                    groupName, selectedUsers, startDate, endDate, timeGranularity, writer);
+                writer.finish();
+            };
+            return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(AnalysisMatrixWriter.MEDIA_TYPE))
+                .body(body);
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            AnalysisNdjsonWriter writer = new AnalysisNdjsonWriter(objectMapper.getFactory(), outputStream);
+            writer.writeMeta(groupName, startDate, endDate, timeGranularity);
+            workloadService.streamWorkloadAnalysis2DForMultipleUsers(
+                groupName, selectedUsers, startDate, endDate, timeGranularity, writer);
+            writer.finish();
+        };
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
+
+    // 虛擬捲動：回傳列範圍 [rowOffset, rowOffset + rowLimit) 與日期視窗內的矩陣區塊，以及整個區間的總計
+    @GetMapping(value = "/viewport", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getViewport(
+            @RequestParam("groupName") String groupName,
+            @RequestParam(value = "userFullname", required = false) String[] userFullnames,
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "timeGranularity", defaultValue = "daily") String timeGranularity,
+            @RequestParam(value = "rowOffset", defaultValue = "0") int rowOffset,
+            @RequestParam(value = "rowLimit", defaultValue = "40") int rowLimit,
+            @RequestParam(value = "windowStart", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate windowStart,
+            @RequestParam(value = "windowEnd", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate windowEnd,
+            ServletWebRequest webRequest) {
+
+        List<String> selectedUsers = selectedUsers(userFullnames);
+        String etag = conditionalResponses.etag("viewport", groupName, selectedUsers, startDate, endDate,
+            timeGranularity, rowOffset, rowLimit, windowStart, windowEnd);
+        return conditionalResponses.json(webRequest, etag,
+            () -> workloadService.getWorkloadAnalysis2DViewport(groupName, selectedUsers,
+                startDate, endDate, timeGranularity, rowOffset, rowLimit, windowStart, windowEnd));
+    }
+
+    // 只回傳使用者與專案總計列；月／季模式的大型查詢可由 SQL 彙總（workload.analysis.sql-rollup.*）
+    @GetMapping(value = "/summary", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getSummaries(
+            @RequestParam("groupName") String groupName,
+            @RequestParam(value = "userFullname", required = false) String[] userFullnames,
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "timeGranularity", defaultValue = "monthly") String timeGranularity,
+            ServletWebRequest webRequest) {
+
+        List<String> selectedUsers = selectedUsers(userFullnames);
+        String etag = conditionalResponses.etag("summary", groupName, selectedUsers, startDate, endDate, timeGranularity);
+        return conditionalResponses.json(webRequest, etag,
+            () -> workloadService.getWorkloadAnalysis2DSummaries(groupName, selectedUsers,
+                startDate, endDate, timeGranularity));
+    }
+
+    // 超載偵測：每位使用者每日工時超過 capacity 的區間、空檔與最高工時；
+    // userCapacity 可重複指定「姓名:小時」，個別調整使用者的上限
+    @GetMapping(value = "/overloads", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getOverloads(
+            @RequestParam("groupName") String groupName,
+            @RequestParam(value = "userFullname", required = false) String[] userFullnames,
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "capacity", required = false) BigDecimal capacity,
+            @RequestParam(value = "userCapacity", required = false) List<String> userCapacities,
+            ServletWebRequest webRequest) {
+
+        List<String> selectedUsers = selectedUsers(userFullnames);
+        String etag = conditionalResponses.etag("overloads", groupName, selectedUsers, startDate, endDate,
+            capacity, userCapacities);
+        return conditionalResponses.json(webRequest, etag,
+            () -> workloadService.getOverloadReport(groupName, selectedUsers,
+                startDate, endDate, capacity, userCapacities));
+    }
+
+    // 建立成本計算模型並加入此工作階段，回傳 modelId、所有總計列與整體成本統計
+    @PostMapping("/cost-model")
+    public CostExclusionResult createCostModel(
+            @RequestParam("groupName") String groupName,
+            @RequestParam(value = "userFullname", required = false) String[] userFullnames,
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "timeGranularity", defaultValue = "daily") String timeGranularity,
+            HttpSession session) {
+
+        CostExclusionModel costModel = workloadService.createCostExclusionModel(
+            groupName, selectedUsers(userFullnames), startDate, endDate, timeGranularity);
+        SessionCostModels costModels = sessionCostModels(session);
+        CostExclusionResult result = costModel.snapshot();
+        result.setModelId(costModels.add(costModel));
+        // 重新設定屬性，讓容器知道工作階段內容已變更（工作階段複寫或持久化時）
+        session.setAttribute(COST_MODELS_ATTRIBUTE, costModels);
+        return result;
+    }
+
+    // 套用勾選變更（排除／納入）到 modelId 對應的模型，只回傳有變動的總計列；
+    // 模型不存在（工作階段已過期或模型已被淘汰）時回傳 409
+    @PostMapping("/cost-model/changes")
+    public ResponseEntity<CostExclusionResult> applyCostChanges(@RequestParam("modelId") String modelId,
+                                                                @RequestBody List<CostExclusionChange> changes,
+                                                                HttpSession session) {
+        CostExclusionModel costModel = session.getAttribute(COST_MODELS_ATTRIBUTE) instanceof SessionCostModels costModels
+            ? costModels.get(modelId) : null;
+        if (costModel == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(costModel.applyChanges(changes));
+    }
+
+    // 同一工作階段的請求可能同時到達，建立時以工作階段的互斥物件同步
+    private SessionCostModels sessionCostModels(HttpSession session) {
+        synchronized (WebUtils.getSessionMutex(session)) {
+            if (session.getAttribute(COST_MODELS_ATTRIBUTE) instanceof SessionCostModels costModels) {
+                return costModels;
+            }
+            SessionCostModels costModels = new SessionCostModels(maxCostModelsPerSession);
+            session.setAttribute(COST_MODELS_ATTRIBUTE, costModels);
+            return costModels;
+        }
+    }
+
+    // 單一端點依 format 參數或 Accept 標頭選擇格式，避免兩個 produces 不同的方法在 Accept: */* 時衝突；
+    // Accept 格式錯誤時視為未指定
+    static boolean wantsMatrix(String format, String accept) {
+        if (format != null && !format.isBlank()) {
+            return "matrix".equalsIgnoreCase(format.trim());
+        }
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MediaType matrix = MediaType.parseMediaType(AnalysisMatrixWriter.MEDIA_TYPE);
+        for (MediaType mediaType : mediaTypes) {
+            if (matrix.equalsTypeAndSubtype(mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 處理空的使用者選擇
+    static List<String> selectedUsers(String[] userFullnames) {
+        List<String> selectedUsers = new ArrayList<>();
+        if (userFullnames != null) {
+            for (String user : userFullnames) {
+                if (user != null && !user.trim().isEmpty()) {
+                    selectedUsers.add(user.trim());
+                }
+            }
+        }
+        return selectedUsers;
+    }
+}
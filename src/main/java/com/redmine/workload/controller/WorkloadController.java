@@ -3,17 +3,23 @@ package com.redmine.workload.controller;
 import com.redmine.workload.model.WorkloadStatistics;
 import com.redmine.workload.model.WorkloadAnalysis2D;
 import com.redmine.workload.service.WorkloadService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.time.LocalDate;
 import java.time.DayOfWeek;
 import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Controller
 public class WorkloadController {
@@ -21,6 +27,22 @@ public class WorkloadController {
     @Autowired
     private WorkloadService workloadService;
 
+    @Autowired
+    private ConditionalResponses conditionalResponses;
+
+    // 啟用時 2D 分析頁只輸出使用者總計列，展開使用者時再載入其專案與議題列
+    @Value("${workload.analysis.lazy-drill-down:false}")
+    private boolean lazyDrillDown;
+
+    // 頁面資料並行載入：群組、成員下拉選單在此執行緒池查詢，統計／分析同時在請求執行緒上查詢
+    @Autowired
+    @Qualifier("pageModelExecutor")
+    private ExecutorService pageModelExecutor;
+
+    // 下拉選單查詢的逾時秒數，逾時時以空清單顯示頁面
+    @Value("${workload.page.timeout.lookup-seconds:10}")
+    private long lookupTimeoutSeconds = 10;
+
     @GetMapping("/")
     public String index(Model model) {
         List<String> groups = workloadService.getAllGroups();
@@ -48,7 +70,7 @@ public class WorkloadController {
             @RequestParam(value = "userFullname", required = false) String[] userFullnames,
             @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            Model model) {
+            Model model, HttpServletResponse response) {
         
         System.out.println("========================================");
         System.out.println("POST /workload - Request Parameters:");
@@ -73,15 +95,20 @@ public class WorkloadController {
         System.out.println("Selected Users: " + selectedUsers);
         System.out.println("========================================");
         
-        // 使用新的多使用者查詢方法
-        WorkloadStatistics statistics = workloadService.getWorkloadStatisticsForMultipleUsers(
-            groupName, selectedUsers, startDate, endDate);
+        // 統計與下拉選單資料彼此獨立，同時查詢
+        PageModelLoader loader = new PageModelLoader(pageModelExecutor);
+        CompletableFuture<List<String>> groupsFuture = loader.submit("groups", workloadService::getAllGroups);
+        CompletableFuture<List<String>> usersFuture = loader.submit("users", () -> workloadService.getUsersByGroup(groupName));
+
+        WorkloadStatistics statistics = loader.run("statistics",
+            () -> workloadService.getWorkloadStatisticsForMultipleUsers(groupName, selectedUsers, startDate, endDate));
+        List<String> groups = loader.awaitOrDefault(groupsFuture, lookupTimeoutSeconds, "groups", List.of());
+        List<String> users = loader.awaitOrDefault(usersFuture, lookupTimeoutSeconds, "users", List.of());
         
         System.out.println("Statistics - Total Issues: " + statistics.getTotalIssues());
         System.out.println("Statistics - Total Hours: " + statistics.getTotalEstimatedHours());
         
-        List<String> groups = workloadService.getAllGroups();
-        List<String> users = workloadService.getUsersByGroup(groupName);
+        response.setHeader("Server-Timing", loader.serverTiming());
         
         model.addAttribute("statistics", statistics);
         model.addAttribute("groups", groups);
@@ -126,7 +153,7 @@ public class WorkloadController {
             @RequestParam(value = "userFullname", required = false) String[] userFullnames,
             @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            Model model) {
+            Model model, HttpServletResponse response) {
         
         // 時間顆粒度固定為每日
         String timeGranularity = "daily";
@@ -155,14 +182,20 @@ public class WorkloadController {
         System.out.println("Selected Users: " + selectedUsers);
         System.out.println("========================================");
         
-        // 使用新的多使用者查詢方法
-        List<WorkloadAnalysis2D> analysis2D = workloadService.getWorkloadAnalysis2DForMultipleUsers(
-            groupName, selectedUsers, startDate, endDate, timeGranularity);
+        // 分析與下拉選單資料彼此獨立，同時查詢（延遲展開模式只取使用者總計列）
+        PageModelLoader loader = new PageModelLoader(pageModelExecutor);
+        CompletableFuture<List<String>> groupsFuture = loader.submit("groups", workloadService::getAllGroups);
+        CompletableFuture<List<String>> usersFuture = loader.submit("users", () -> workloadService.getUsersByGroup(groupName));
+
+        List<WorkloadAnalysis2D> analysis2D = loader.run("analysis", () -> lazyDrillDown
+            ? workloadService.getWorkloadAnalysis2DUserSummaries(groupName, selectedUsers, startDate, endDate, timeGranularity)
+            : workloadService.getWorkloadAnalysis2DForMultipleUsers(groupName, selectedUsers, startDate, endDate, timeGranularity));
+        List<String> groups = loader.awaitOrDefault(groupsFuture, lookupTimeoutSeconds, "groups", List.of());
+        List<String> users = loader.awaitOrDefault(usersFuture, lookupTimeoutSeconds, "users", List.of());
         
         System.out.println("2D Analysis - Total Items: " + analysis2D.size());
         
-        List<String> groups = workloadService.getAllGroups();
-        List<String> users = workloadService.getUsersByGroup(groupName);
+        response.setHeader("Server-Timing", loader.serverTiming());
         
         // 計算日期範圍的天數
         long daysBetween = java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate) + 1;
@@ -206,13 +239,44 @@ public class WorkloadController {
         model.addAttribute("startDate", startDate);
         model.addAttribute("endDate", endDate);
         model.addAttribute("daysBetween", daysBetween);
+        model.addAttribute("nonWorkingDays", workloadService.getNonWorkingDays(startDate, endDate));
         model.addAttribute("startWeek", startWeek);
         model.addAttribute("weekCount", weekCount);
         model.addAttribute("weekNumbers", weekNumbers);
         model.addAttribute("monthCount", monthCount);
         model.addAttribute("startYear", startYear);
         model.addAttribute("isGroupQuery", isGroupQuery);
+        model.addAttribute("lazyDrillDown", lazyDrillDown);
         
         return "workload2d";
     }
+
+    // 延遲展開：回傳單一使用者的專案總計與議題列（HTML 片段，與頁面表格使用相同的列樣板）；
+    // 資料未異動（ETag 相同）時回傳 304，重複展開同一位使用者不必重新計算
+    @GetMapping("/workload2d/rows")
+    public String getWorkload2DUserRows(
+            @RequestParam("groupName") String groupName,
+            @RequestParam(value = "userFullname", required = false) String[] userFullnames,
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "timeGranularity", defaultValue = "daily") String timeGranularity,
+            @RequestParam("expandUser") String expandUser,
+            ServletWebRequest webRequest,
+            Model model) {
+
+        List<String> selectedUsers = Workload2DApiController.selectedUsers(userFullnames);
+        String etag = conditionalResponses.etag("rows", groupName, selectedUsers, startDate, endDate,
+            timeGranularity, expandUser);
+        if (conditionalResponses.notModified(webRequest, etag)) {
+            return null;
+        }
+
+        List<WorkloadAnalysis2D> rows = workloadService.getWorkloadAnalysis2DUserRows(
+            groupName, selectedUsers, startDate, endDate, timeGranularity, expandUser);
+
+        model.addAttribute("analysis2D", rows);
+        model.addAttribute("timeGranularity", timeGranularity);
+        model.addAttribute("lazyDrillDown", false);
+        return "workload2d :: analysisRows";
+    }
 }
@@ -0,0 +1,106 @@
+package com.redmine.workload.controller;
+
+import com.redmine.workload.export.AnalysisTableExporter;
+import com.redmine.workload.export.ExportFormat;
+import com.redmine.workload.export.StatisticsTableExporter;
+import com.redmine.workload.export.TableWriter;
+import com.redmine.workload.model.WorkloadStatistics;
+import com.redmine.workload.service.WorkloadService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+// 試算表匯出（CSV / XLSX），查詢參數與 /workload、/workload2d 頁面相同。
+// 查詢結果逐列寫入暫存檔（不建立完整的清單或活頁簿），查詢結束、資料庫連線歸還後才送給用戶端；
+// XLSX 只在記憶體中保留 workload.export.xlsx.window-rows 列
+@RestController
+@RequestMapping("/api/export")
+public class WorkloadExportController {
+
+    @Autowired
+    private WorkloadService workloadService;
+
+    @Value("${workload.export.xlsx.window-rows:200}")
+    private int xlsxWindowRows = 200;
+
+    // 工作負載統計：每筆議題一列，最後附上統計摘要
+    @GetMapping("/statistics")
+    public ResponseEntity<StreamingResponseBody> exportStatistics(
+            @RequestParam("groupName") String groupName,
+            @RequestParam(value = "userFullname", required = false) String[] userFullnames,
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "format", defaultValue = "xlsx") String format) {
+
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<String> selectedUsers = Workload2DApiController.selectedUsers(userFullnames);
+
+        StreamingResponseBody body = outputStream -> {
+            try (TableWriter writer = exportFormat.open(outputStream, "工作負載統計", xlsxWindowRows)) {
+                StatisticsTableExporter exporter = new StatisticsTableExporter(writer);
+                exporter.writeHeader();
+                WorkloadStatistics statistics = workloadService.streamWorkloadStatisticsForMultipleUsers(
+                    groupName, selectedUsers, startDate, endDate, exporter);
+                exporter.writeSummary(statistics);
+                writer.finish();
+            }
+        };
+        return attachment(exportFormat, "workload_" + groupName + "_" + startDate + "_" + endDate, body);
+    }
+
+    // 2D 分析：使用者 → 專案 → 議題，每欄為一天或一個週／月／季期間
+    @GetMapping("/workload2d")
+    public ResponseEntity<StreamingResponseBody> exportWorkload2D(
+            @RequestParam("groupName") String groupName,
+            @RequestParam(value = "userFullname", required = false) String[] userFullnames,
+            @RequestParam("startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam("endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(value = "timeGranularity", defaultValue = "daily") String timeGranularity,
+            @RequestParam(value = "format", defaultValue = "xlsx") String format) {
+
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        if (exportFormat == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<String> selectedUsers = Workload2DApiController.selectedUsers(userFullnames);
+
+        StreamingResponseBody body = outputStream -> {
+            try (TableWriter writer = exportFormat.open(outputStream, "2D 工作負載分析", xlsxWindowRows)) {
+                AnalysisTableExporter exporter = new AnalysisTableExporter(writer, startDate, endDate, timeGranularity);
+                exporter.writeHeader();
+                workloadService.streamWorkloadAnalysis2DForMultipleUsers(
+                    groupName, selectedUsers, startDate, endDate, timeGranularity, exporter);
+                writer.finish();
+            }
+        };
+        return attachment(exportFormat,
+            "workload2d_" + groupName + "_" + startDate + "_" + endDate + "_" + timeGranularity, body);
+    }
+
+    private static ResponseEntity<StreamingResponseBody> attachment(ExportFormat format, String baseName,
+                                                                    StreamingResponseBody body) {
+        ContentDisposition disposition = ContentDisposition.attachment()
+            .filename(baseName + "." + format.getExtension(), StandardCharsets.UTF_8)
+            .build();
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
+            .contentType(MediaType.parseMediaType(format.getMediaType()))
+            .body(body);
+    }
+}
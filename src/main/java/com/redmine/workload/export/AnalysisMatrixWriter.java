@@ -0,0 +1,216 @@
+package com.redmine.workload.export;
+
+import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.service.AnalysisColumns;
+import com.redmine.workload.service.PeriodAxis;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// 2D 分析的欄式二進位格式（little-endian），日期軸與列資訊只送一次，工時以百分之一小時的整數陣列傳送：
+//
+//   標頭：  "WLM1" | u8 顆粒度(0=每日,1=每週,2=每月,3=每季) | i32 開始 epoch day | i32 結束 epoch day
+//           | 字串 群組名稱 | i32 欄數 | （週／月／季）每欄：字串 標籤, i32 開始 epoch day, i32 結束 epoch day
+//   每列：  u8 1 | u8 層級(0=使用者,1=專案,2=議題) | i32 議題編號 | 字典字串 使用者 | 字典字串 專案
+//           | 字串 主旨 | i32 開始 epoch day | i32 到期 epoch day（無則為 NO_DATE） | i32 預估工時(百分之一小時)
+//           | u8 編碼旗標(bit0: 1=int32／0=int16, bit1: 1=零值遊程編碼) | 工時資料
+//   結尾：  u8 0 | i32 列數
+//
+//   字串為 i32 UTF-8 位元組長度 + 內容（null 為 -1）；字典字串為 i32 字典索引，
+//   索引等於目前字典大小時表示新字串，後面接著字串內容。
+//   遊程編碼：i32 段數，每段為 i32 連續零的數量、i32 非零值數量、非零值陣列。
+public class AnalysisMatrixWriter implements Consumer<WorkloadAnalysis2D> {
+
+    public static final String MEDIA_TYPE = "application/x-workload-matrix";
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final byte[] MAGIC = {'W', 'L', 'M', '1'};
+    private static final int FLAG_INT32 = 1;
+    private static final int FLAG_RLE = 2;
+
+    private final OutputStream outputStream;
+    private final int columnCount;
+    private final PeriodAxis periodAxis;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final long[] cells;
+    private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+    private int rowCount;
+
+    public AnalysisMatrixWriter(OutputStream outputStream, LocalDate startDate, LocalDate endDate,
+                                String timeGranularity) {
+        this.outputStream = outputStream;
+        this.periodAxis = AnalysisColumns.periodAxis(startDate, endDate, timeGranularity);
+        this.columnCount = AnalysisColumns.columnCount(startDate, endDate, periodAxis);
+        this.cells = new long[columnCount];
+    }
+
+    public void writeHeader(String groupName, LocalDate startDate, LocalDate endDate) throws IOException {
+        ensure(MAGIC.length + 9);
+        buffer.put(MAGIC);
+        buffer.put((byte) (periodAxis == null ? 0 : PeriodAxis.GRANULARITIES.indexOf(periodAxis.getGranularity()) + 1));
+        buffer.putInt((int) startDate.toEpochDay());
+        buffer.putInt((int) endDate.toEpochDay());
+        putString(groupName);
+        ensure(4);
+        buffer.putInt(columnCount);
+        if (periodAxis != null) {
+            for (int i = 0; i < periodAxis.size(); i++) {
+                putString(periodAxis.getLabel(i));
+                ensure(8);
+                buffer.putInt((int) periodAxis.getStartDate(i).toEpochDay());
+                buffer.putInt((int) periodAxis.getEndDate(i).toEpochDay());
+            }
+        }
+        flush();
+    }
+
+    @Override
+    public void accept(WorkloadAnalysis2D row) {
+        try {
+            writeRow(row);
+            rowCount++;
+            if (row.getIssueId() != null && row.getIssueId() == -1L) {
+                flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish() throws IOException {
+        ensure(5);
+        buffer.put((byte) 0);
+        buffer.putInt(rowCount);
+        flush();
+    }
+
+    private void writeRow(WorkloadAnalysis2D row) throws IOException {
+        ensure(10);
+        buffer.put((byte) 1);
+        buffer.put((byte) AnalysisNdjsonWriter.level(row));
+        buffer.putInt(row.getIssueId() != null ? row.getIssueId().intValue() : 0);
+        putDictionaryString(row.getUserFullname());
+        putDictionaryString(row.getProjectName());
+        putString(row.getIssueSubject());
+        ensure(12);
+        buffer.putInt(row.getStartDate() != null ? (int) row.getStartDate().toEpochDay() : NO_DATE);
+        buffer.putInt(row.getDueDate() != null ? (int) row.getDueDate().toEpochDay() : NO_DATE);
+        buffer.putInt(row.getEstimatedHours() != null ? (int) WorkloadAnalysis2D.toHundredths(row.getEstimatedHours()) : 0);
+
+        AnalysisColumns.fill(row, periodAxis, cells);
+        putCells();
+    }
+
+    private void putCells() throws IOException {
+        int zeros = 0;
+        int segments = 0;
+        boolean int32 = false;
+        boolean previousZero = false;
+        for (int i = 0; i < columnCount; i++) {
+            long value = cells[i];
+            if (value == 0) {
+                zeros++;
+            } else if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
+                int32 = true;
+            }
+            // 每段以零的遊程開頭：遇到「前一格非零、這格為零」或第一格時開新段
+            if (i == 0 || (value == 0 && !previousZero)) {
+                segments++;
+            }
+            previousZero = value == 0;
+        }
+
+        int width = int32 ? 4 : 2;
+        int denseBytes = columnCount * width;
+        int rleBytes = 4 + segments * 8 + (columnCount - zeros) * width;
+        boolean rle = rleBytes < denseBytes;
+
+        ensure(1);
+        buffer.put((byte) ((int32 ? FLAG_INT32 : 0) | (rle ? FLAG_RLE : 0)));
+        if (!rle) {
+            for (int i = 0; i < columnCount; i++) {
+                putCell(cells[i], int32);
+            }
+            return;
+        }
+
+        ensure(4);
+        buffer.putInt(segments);
+        int i = 0;
+        while (i < columnCount) {
+            int zeroStart = i;
+            while (i < columnCount && cells[i] == 0) i++;
+            int literalStart = i;
+            while (i < columnCount && cells[i] != 0) i++;
+            ensure(8);
+            buffer.putInt(literalStart - zeroStart);
+            buffer.putInt(i - literalStart);
+            for (int j = literalStart; j < i; j++) {
+                putCell(cells[j], int32);
+            }
+        }
+    }
+
+    private void putCell(long value, boolean int32) throws IOException {
+        ensure(4);
+        if (int32) {
+            buffer.putInt((int) value);
+        } else {
+            buffer.putShort((short) value);
+        }
+    }
+
+    private void putDictionaryString(String value) throws IOException {
+        String key = value != null ? value : "";
+        Integer index = dictionary.get(key);
+        ensure(4);
+        if (index != null) {
+            buffer.putInt(index);
+        } else {
+            buffer.putInt(dictionary.size());
+            dictionary.put(key, dictionary.size());
+            putString(key);
+        }
+    }
+
+    private void putString(String value) throws IOException {
+        if (value == null) {
+            ensure(4);
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensure(4 + bytes.length);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    // 確保緩衝區有足夠空間，不足時先寫出；單筆資料超過緩衝區大小時擴大緩衝區
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        flushBuffer();
+        if (buffer.capacity() < bytes) {
+            buffer = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        outputStream.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    private void flush() throws IOException {
+        flushBuffer();
+        outputStream.flush();
+    }
+}
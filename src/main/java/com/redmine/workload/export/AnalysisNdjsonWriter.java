@@ -0,0 +1,124 @@
+package com.redmine.workload.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.redmine.workload.model.WorkloadAnalysis2D;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Consumer;
+
+// 以 NDJSON（每行一個 JSON 物件）串流輸出 2D 分析：
+// 第一行為 meta（日期區間、顆粒度），接著每列一行，最後一行為 end（列數）
+public class AnalysisNdjsonWriter implements Consumer<WorkloadAnalysis2D> {
+
+    private final JsonGenerator generator;
+    private int rowCount;
+
+    public AnalysisNdjsonWriter(JsonFactory jsonFactory, OutputStream outputStream) throws IOException {
+        this.generator = jsonFactory.createGenerator(outputStream);
+        this.generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+    }
+
+    public void writeMeta(String groupName, LocalDate startDate, LocalDate endDate, String timeGranularity)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "meta");
+        generator.writeStringField("groupName", groupName);
+        generator.writeStringField("startDate", startDate.toString());
+        generator.writeStringField("endDate", endDate.toString());
+        generator.writeStringField("timeGranularity", timeGranularity);
+        generator.writeNumberField("days", endDate.toEpochDay() - startDate.toEpochDay() + 1);
+        generator.writeEndObject();
+        generator.flush();
+    }
+
+    @Override
+    public void accept(WorkloadAnalysis2D row) {
+        try {
+            writeRow(row);
+            rowCount++;
+            // 每位使用者的總計列送出後就 flush，讓瀏覽器可以逐步顯示
+            if (row.getIssueId() != null && row.getIssueId() == -1L) {
+                generator.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void finish() throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "end");
+        generator.writeNumberField("rows", rowCount);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+
+    private void writeRow(WorkloadAnalysis2D row) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "row");
+        generator.writeNumberField("level", level(row));
+        generator.writeStringField("groupName", row.getGroupName());
+        generator.writeStringField("userFullname", row.getUserFullname());
+        generator.writeStringField("projectName", row.getProjectName());
+        generator.writeNumberField("issueId", row.getIssueId());
+        generator.writeStringField("issueSubject", row.getIssueSubject());
+        if (row.getStartDate() != null) {
+            generator.writeStringField("startDate", row.getStartDate().toString());
+        }
+        if (row.getDueDate() != null) {
+            generator.writeStringField("dueDate", row.getDueDate().toString());
+        }
+        if (row.getEstimatedHours() != null) {
+            generator.writeNumberField("estimatedHours", row.getEstimatedHours());
+        }
+
+        if (row.getDailyHundredths() != null) {
+            generator.writeArrayFieldStart("hours");
+            for (long hundredths : row.getDailyHundredths()) {
+                writeHundredths(hundredths);
+            }
+            generator.writeEndArray();
+        } else if (row.getDailyWorkloads() != null) {
+            generator.writeArrayFieldStart("hours");
+            for (WorkloadAnalysis2D.DailyWorkload daily : row.getDailyWorkloads()) {
+                writeHundredths(WorkloadAnalysis2D.toHundredths(daily.getHours()));
+            }
+            generator.writeEndArray();
+        }
+
+        List<WorkloadAnalysis2D.PeriodWorkload> periods = row.getPeriodWorkloads();
+        if (periods != null) {
+            generator.writeArrayFieldStart("periods");
+            for (WorkloadAnalysis2D.PeriodWorkload period : periods) {
+                generator.writeStartObject();
+                generator.writeStringField("period", period.getPeriod());
+                generator.writeNumberField("hours", period.getHours());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeHundredths(long hundredths) throws IOException {
+        if (hundredths == 0) {
+            generator.writeNumber(0);
+        } else {
+            generator.writeNumber(BigDecimal.valueOf(hundredths, 2));
+        }
+    }
+
+    // 0 = 使用者總計、1 = 專案總計、2 = 議題
+    static int level(WorkloadAnalysis2D row) {
+        long issueId = row.getIssueId() != null ? row.getIssueId() : 0L;
+        return issueId == -1L ? 0 : (issueId == -2L ? 1 : 2);
+    }
+}
@@ -0,0 +1,76 @@
+package com.redmine.workload.export;
+
+import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.service.AnalysisColumns;
+import com.redmine.workload.service.PeriodAxis;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+// 2D 分析匯出為試算表：每列為使用者總計、專案總計或議題，之後每欄為一天（每日）或一個期間（週／月／季），
+// 與 /workload2d 頁面的表格相同。作為彙總器的 sink 使用，每收到一列就寫出，不保留已寫出的列
+public class AnalysisTableExporter implements Consumer<WorkloadAnalysis2D> {
+
+    private static final String[] LEVELS = {"使用者總計", "專案總計", "議題"};
+
+    private final TableWriter writer;
+    private final LocalDate startDate;
+    private final PeriodAxis periodAxis;
+    private final long[] cells;
+
+    public AnalysisTableExporter(TableWriter writer, LocalDate startDate, LocalDate endDate, String timeGranularity) {
+        this.writer = writer;
+        this.startDate = startDate;
+        this.periodAxis = AnalysisColumns.periodAxis(startDate, endDate, timeGranularity);
+        this.cells = new long[AnalysisColumns.columnCount(startDate, endDate, periodAxis)];
+    }
+
+    public void writeHeader() throws IOException {
+        for (String title : new String[]{"層級", "群組", "成員", "專案名稱", "議題編號", "議題主旨",
+                                         "開始日期", "結束日期", "估計工時"}) {
+            writer.text(title);
+        }
+        for (int i = 0; i < cells.length; i++) {
+            writer.text(periodAxis == null ? startDate.plusDays(i).toString() : periodAxis.getLabel(i));
+        }
+        writer.endRow(true);
+    }
+
+    @Override
+    public void accept(WorkloadAnalysis2D row) {
+        try {
+            writeRow(row);
+            // 每位使用者的總計列寫出後就將緩衝內容寫入暫存檔
+            if (row.getIssueId() != null && row.getIssueId() == -1L) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeRow(WorkloadAnalysis2D row) throws IOException {
+        int level = AnalysisNdjsonWriter.level(row);
+        writer.text(LEVELS[level]);
+        writer.text(row.getGroupName());
+        writer.text(row.getUserFullname());
+        writer.text(level == 0 ? null : row.getProjectName());
+        if (level == 2 && row.getIssueId() != null) {
+            writer.number(row.getIssueId());
+        } else {
+            writer.blank();
+        }
+        writer.text(level == 2 ? row.getIssueSubject() : null);
+        writer.date(row.getStartDate());
+        writer.date(row.getDueDate());
+        writer.number(row.getEstimatedHours());
+
+        AnalysisColumns.fill(row, periodAxis, cells);
+        for (long hundredths : cells) {
+            writer.hundredths(hundredths);
+        }
+        writer.endRow();
+    }
+}
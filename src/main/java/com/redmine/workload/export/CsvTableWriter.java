@@ -0,0 +1,150 @@
+package com.redmine.workload.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+// RFC 4180 CSV：UTF-8 加 BOM（Excel 才會正確辨識中文），列以 CRLF 結束，
+// 含逗號、引號或換行的欄位以雙引號包住。以 = + - @ 開頭的文字前加上單引號，
+// 避免議題主旨等使用者輸入的內容在試算表中被當成公式執行。
+// 與 XLSX 相同，內容先寫入暫存檔，finish 時才複製到輸出串流，close 刪除暫存檔
+public class CsvTableWriter implements TableWriter {
+
+    private static final char BOM = '\uFEFF';
+
+    private final OutputStream outputStream;
+    private final Path spool;
+    private final Writer writer;
+    private boolean firstCell = true;
+
+    public CsvTableWriter(OutputStream outputStream) throws IOException {
+        this.outputStream = outputStream;
+        this.spool = Files.createTempFile("workload-export-", ".csv");
+        try {
+            this.writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(spool), StandardCharsets.UTF_8), 64 * 1024);
+            this.writer.write(BOM);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+    }
+
+    @Override
+    public void text(String value) throws IOException {
+        separator();
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        boolean formula = "=+-@".indexOf(value.charAt(0)) >= 0;
+        boolean quote = formula;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        if (formula) {
+            writer.write('\'');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    @Override
+    public void number(long value) throws IOException {
+        separator();
+        writer.write(Long.toString(value));
+    }
+
+    @Override
+    public void number(BigDecimal value) throws IOException {
+        separator();
+        if (value != null) {
+            writer.write(value.toPlainString());
+        }
+    }
+
+    // 不建立 BigDecimal，直接輸出整數部分與兩位小數（0 輸出為 "0"）
+    @Override
+    public void hundredths(long value) throws IOException {
+        separator();
+        if (value == 0) {
+            writer.write('0');
+            return;
+        }
+        if (value < 0) {
+            writer.write('-');
+            value = -value;
+        }
+        long fraction = value % 100;
+        writer.write(Long.toString(value / 100));
+        writer.write('.');
+        writer.write((char) ('0' + fraction / 10));
+        writer.write((char) ('0' + fraction % 10));
+    }
+
+    @Override
+    public void date(LocalDate value) throws IOException {
+        separator();
+        if (value != null) {
+            writer.write(value.toString());
+        }
+    }
+
+    @Override
+    public void blank() throws IOException {
+        separator();
+    }
+
+    @Override
+    public void endRow(boolean header) throws IOException {
+        writer.write("\r\n");
+        firstCell = true;
+    }
+
+    // 內容在暫存檔中，finish 前不送出
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.close();
+        Files.copy(spool, outputStream);
+        outputStream.flush();
+    }
+
+    // 刪除暫存檔；輸出串流由呼叫端（servlet 容器）關閉
+    @Override
+    public void close() throws IOException {
+        try {
+            writer.close();
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    private void separator() throws IOException {
+        if (!firstCell) {
+            writer.write(',');
+        }
+        firstCell = false;
+    }
+}
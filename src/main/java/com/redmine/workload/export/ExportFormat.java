@@ -0,0 +1,44 @@
+package com.redmine.workload.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+// 試算表匯出格式：format=csv 或 format=xlsx
+public enum ExportFormat {
+
+    CSV("text/csv;charset=UTF-8", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String mediaType;
+    private final String extension;
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    // 不區分大小寫；無法辨識時回傳 null
+    public static ExportFormat parse(String value) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value == null ? "" : value.trim())) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    // xlsxWindowRows：XLSX 在記憶體中保留的列數，其餘寫入暫存檔
+    public TableWriter open(OutputStream outputStream, String sheetName, int xlsxWindowRows) throws IOException {
+        return this == XLSX
+            ? new XlsxTableWriter(outputStream, sheetName, xlsxWindowRows)
+            : new CsvTableWriter(outputStream);
+    }
+}
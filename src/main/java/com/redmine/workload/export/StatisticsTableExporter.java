@@ -0,0 +1,77 @@
+package com.redmine.workload.export;
+
+import com.redmine.workload.model.WorkloadData;
+import com.redmine.workload.model.WorkloadStatistics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.function.Consumer;
+
+// 工作負載統計匯出為試算表：每筆議題一列（欄位與首頁的議題表格相同），
+// 最後空一列後附上統計摘要。議題列邊查詢邊寫出，摘要於查詢結束後由 writeSummary 寫入
+public class StatisticsTableExporter implements Consumer<WorkloadData> {
+
+    private final TableWriter writer;
+
+    public StatisticsTableExporter(TableWriter writer) {
+        this.writer = writer;
+    }
+
+    public void writeHeader() throws IOException {
+        for (String title : new String[]{"群組", "成員", "帳號", "議題編號", "專案名稱", "議題主旨",
+                                         "開始日期", "結束日期", "估計工時", "日均工時", "狀態", "已結案", "結案日期"}) {
+            writer.text(title);
+        }
+        writer.endRow(true);
+    }
+
+    @Override
+    public void accept(WorkloadData data) {
+        try {
+            writer.text(data.getGroupName());
+            writer.text(data.getUserFullname());
+            writer.text(data.getUserLogin());
+            if (data.getIssueId() != null) {
+                writer.number(data.getIssueId());
+            } else {
+                writer.blank();
+            }
+            writer.text(data.getProjectName());
+            writer.text(data.getIssueSubject());
+            writer.date(data.getStartDate());
+            writer.date(data.getDueDate());
+            writer.number(data.getEstimatedHours());
+            writer.number(data.getAvgHoursPerDay());
+            writer.text(data.getStatusName());
+            writer.text(Boolean.TRUE.equals(data.getIsClosed()) ? "是" : "否");
+            writer.date(data.getClosedOn());
+            writer.endRow();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void writeSummary(WorkloadStatistics statistics) throws IOException {
+        writer.endRow();
+        summaryRow("總議題數", statistics.getTotalIssues());
+        summaryRow("已結案", statistics.getClosedIssues());
+        summaryRow("未結案", statistics.getOpenIssues());
+        writer.text("總估計工時");
+        writer.number(statistics.getTotalEstimatedHours());
+        writer.endRow();
+        writer.text("平均日均工時");
+        writer.number(statistics.getAvgHoursPerDay());
+        writer.endRow();
+        writer.text("完成率 (%)");
+        writer.number(BigDecimal.valueOf(statistics.getCompletionRate()).setScale(2, RoundingMode.HALF_UP));
+        writer.endRow();
+    }
+
+    private void summaryRow(String title, long value) throws IOException {
+        writer.text(title);
+        writer.number(value);
+        writer.endRow();
+    }
+}
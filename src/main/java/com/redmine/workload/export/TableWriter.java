@@ -0,0 +1,42 @@
+package com.redmine.workload.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// 試算表匯出的逐格寫入介面（CSV / XLSX）：呼叫端依序寫入儲存格，每列以 endRow 結束，
+// 實作不保留已寫出的列，記憶體用量與總列數無關。內容先寫入暫存檔，finish 之前不寫到輸出串流，
+// 因此可以在資料庫串流查詢的讀取迴圈中寫入；finish 送出內容，close 釋放資源（中途失敗時也須呼叫）
+public interface TableWriter extends Closeable {
+
+    void text(String value) throws IOException;
+
+    void number(long value) throws IOException;
+
+    void number(BigDecimal value) throws IOException;
+
+    // 以百分之一小時儲存的工時（例如 250 = 2.50 小時）
+    void hundredths(long value) throws IOException;
+
+    void date(LocalDate value) throws IOException;
+
+    void blank() throws IOException;
+
+    // header 為 true 時為標題列（XLSX 以粗體顯示並凍結窗格）
+    void endRow(boolean header) throws IOException;
+
+    default void endRow() throws IOException {
+        endRow(false);
+    }
+
+    // 使用者總計列之後呼叫，讓已完成的內容盡早寫入暫存檔
+    void flush() throws IOException;
+
+    // 將暫存的內容寫到輸出串流（不關閉輸出串流）
+    void finish() throws IOException;
+
+    // 釋放暫存資源，不關閉輸出串流；可重複呼叫
+    @Override
+    void close() throws IOException;
+}
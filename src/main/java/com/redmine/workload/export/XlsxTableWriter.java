@@ -0,0 +1,135 @@
+package com.redmine.workload.export;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// XLSX 匯出（Apache POI SXSSF）：記憶體中只保留最近 windowRows 列，較早的列寫入壓縮的暫存檔，
+// finish 時再將暫存檔組成 xlsx（zip）寫到輸出串流並刪除暫存檔。
+// 工時以數值儲存（格式 0.00），日期以日期儲存，匯出後可直接在試算表中加總
+public class XlsxTableWriter implements TableWriter {
+
+    // 單一工作表的列數上限（Excel 限制）
+    private static final int MAX_ROWS = 1_048_576;
+
+    private final OutputStream outputStream;
+    private final SXSSFWorkbook workbook;
+    private final SXSSFSheet sheet;
+    private final CellStyle headerStyle;
+    private final CellStyle dateStyle;
+    private final CellStyle hoursStyle;
+    private Row row;
+    private int rowIndex;
+    private int columnIndex;
+
+    public XlsxTableWriter(OutputStream outputStream, String sheetName, int windowRows) {
+        this.outputStream = outputStream;
+        this.workbook = new SXSSFWorkbook(windowRows);
+        this.workbook.setCompressTempFiles(true);
+        this.sheet = workbook.createSheet(sheetName);
+
+        Font bold = workbook.createFont();
+        bold.setBold(true);
+        this.headerStyle = workbook.createCellStyle();
+        this.headerStyle.setFont(bold);
+        this.dateStyle = workbook.createCellStyle();
+        this.dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+        this.hoursStyle = workbook.createCellStyle();
+        this.hoursStyle.setDataFormat(workbook.createDataFormat().getFormat("0.00"));
+    }
+
+    @Override
+    public void text(String value) {
+        Cell cell = nextCell();
+        if (value != null) {
+            cell.setCellValue(value);
+        }
+    }
+
+    @Override
+    public void number(long value) {
+        nextCell().setCellValue(value);
+    }
+
+    @Override
+    public void number(BigDecimal value) {
+        Cell cell = nextCell();
+        if (value != null) {
+            cell.setCellValue(value.doubleValue());
+            cell.setCellStyle(hoursStyle);
+        }
+    }
+
+    @Override
+    public void hundredths(long value) {
+        Cell cell = nextCell();
+        cell.setCellValue(value / 100.0);
+        cell.setCellStyle(hoursStyle);
+    }
+
+    @Override
+    public void date(LocalDate value) {
+        Cell cell = nextCell();
+        if (value != null) {
+            cell.setCellValue(value);
+            cell.setCellStyle(dateStyle);
+        }
+    }
+
+    @Override
+    public void blank() {
+        nextCell();
+    }
+
+    @Override
+    public void endRow(boolean header) {
+        if (row == null) {
+            row = sheet.createRow(rowIndex);
+        }
+        if (header) {
+            for (Cell cell : row) {
+                cell.setCellStyle(headerStyle);
+            }
+            sheet.createFreezePane(0, rowIndex + 1);
+        }
+        row = null;
+        rowIndex++;
+        columnIndex = 0;
+    }
+
+    // 已超出視窗的列由 SXSSF 寫入暫存檔，xlsx 須待 finish 才能組成，這裡不需要額外處理
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void finish() throws IOException {
+        workbook.write(outputStream);
+        outputStream.flush();
+    }
+
+    // 刪除暫存檔；workbook.close 不會關閉先前傳給 write 的輸出串流
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    private Cell nextCell() {
+        if (row == null) {
+            if (rowIndex >= MAX_ROWS) {
+                throw new IllegalStateException("XLSX export exceeds " + MAX_ROWS + " rows; narrow the query or use CSV");
+            }
+            row = sheet.createRow(rowIndex);
+        }
+        return row.createCell(columnIndex++);
+    }
+}
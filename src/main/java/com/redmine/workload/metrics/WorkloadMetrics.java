@@ -0,0 +1,94 @@
+package com.redmine.workload.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// 查詢與計算階段的度量（經由 Actuator 的 /actuator/prometheus 與 /actuator/metrics 輸出）：
+//   workload.repository.query    每個儲存庫方法的耗時（method、outcome）
+//   workload.repository.rows     每個儲存庫方法回傳的筆數分布（method）
+//   workload.analysis.stage      2D 分析各階段耗時（stage = fetch / group / expand / summarize）
+//   workload.cache.hit.ratio     各快取的命中率（cache），另有 Caffeine 的 cache.gets、cache.size 等
+@Component
+public class WorkloadMetrics {
+
+    private final MeterRegistry registry;
+
+    // 同一名稱的計量器只註冊一次，熱路徑上不必每次經由 registry 查找
+    private final Map<String, Timer> queryTimers = new ConcurrentHashMap<>();
+    private final Map<String, DistributionSummary> rowSummaries = new ConcurrentHashMap<>();
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+
+    public WorkloadMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    // 執行一次儲存庫查詢並記錄耗時與回傳筆數；查詢失敗時以 outcome=error 記錄耗時後原樣拋出
+    public <T> T query(String method, Supplier<T> query, ToLongFunction<? super T> rowCount) {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = query.get();
+        } catch (RuntimeException e) {
+            queryTimer(method, "error").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        queryTimer(method, "success").record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        rowSummary(method).record(result != null ? rowCount.applyAsLong(result) : 0);
+        return result;
+    }
+
+    // 執行一個分析階段並記錄耗時
+    public <T> T stage(String stage, Supplier<T> body) {
+        long start = System.nanoTime();
+        try {
+            return body.get();
+        } finally {
+            recordStage(stage, System.nanoTime() - start);
+        }
+    }
+
+    // 記錄已累計好的階段耗時（例如彙總器在逐列處理時分別累計的展開與總計時間）
+    public void recordStage(String stage, long nanos) {
+        stageTimers.computeIfAbsent(stage, key -> Timer.builder("workload.analysis.stage")
+                .description("Time spent in each stage of the 2D analysis pipeline")
+                .tag("stage", key)
+                .register(registry))
+            .record(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+    }
+
+    // 快取須以 recordStats() 建立；命中率為快取建立以來的累計值
+    public void monitorCache(String name, Cache<?, ?> cache) {
+        CaffeineCacheMetrics.monitor(registry, cache, name);
+        Gauge.builder("workload.cache.hit.ratio", cache, c -> c.stats().hitRate())
+            .description("Hit ratio of the workload caches since startup")
+            .tag("cache", name)
+            .register(registry);
+    }
+
+    private Timer queryTimer(String method, String outcome) {
+        return queryTimers.computeIfAbsent(method + "#" + outcome, key -> Timer.builder("workload.repository.query")
+            .description("Time spent in each repository query method")
+            .tag("method", method)
+            .tag("outcome", outcome)
+            .register(registry));
+    }
+
+    private DistributionSummary rowSummary(String method) {
+        return rowSummaries.computeIfAbsent(method, key -> DistributionSummary.builder("workload.repository.rows")
+            .description("Rows returned by each repository query method")
+            .baseUnit("rows")
+            .tag("method", key)
+            .register(registry));
+    }
+}
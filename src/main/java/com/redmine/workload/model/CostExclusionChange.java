@@ -0,0 +1,16 @@
+package com.redmine.workload.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// 成本計算勾選的變更：issueId 為 -1 表示整位使用者、-2 表示使用者的整個專案，其餘為單一議題
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CostExclusionChange {
+    private String userFullname;
+    private String projectName;
+    private Long issueId;
+    private boolean included;
+}
@@ -0,0 +1,34 @@
+package com.redmine.workload.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+// 成本計算勾選變更後的結果：只包含有變動的使用者／專案總計列，以及整體成本統計。
+// 建立模型時另外回傳 modelId，之後的勾選變更以此指定模型
+@Data
+public class CostExclusionResult {
+    private String modelId;
+    private List<SummaryRow> summaryRows = new ArrayList<>();
+    private BigDecimal includedHours;
+    private BigDecimal excludedHours;
+    private BigDecimal totalHours;
+    private int includedItems;
+    private int totalItems;
+
+    @Data
+    public static class SummaryRow {
+        private String userFullname;
+        private String projectName;
+        private Long issueId; // -1 = 使用者總計、-2 = 專案總計
+        private String issueSubject;
+        private BigDecimal includedHours;
+        private BigDecimal excludedHours;
+        private BigDecimal totalHours;
+        private int includedCount;
+        private int totalCount;
+        private List<BigDecimal> hours; // 每欄（日／週／月）只計入勾選議題的工時
+    }
+}
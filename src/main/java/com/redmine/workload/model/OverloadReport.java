@@ -0,0 +1,38 @@
+package com.redmine.workload.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// 超載偵測結果：每位使用者每日工時超過上限的區間、沒有任何工時的空檔，以及區間內的最高每日工時
+@Data
+public class OverloadReport {
+    private String groupName;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private BigDecimal defaultCapacityHours;
+    private List<UserOverload> users = new ArrayList<>();
+
+    @Data
+    public static class UserOverload {
+        private String userFullname;
+        private BigDecimal capacityHours; // 每日工時上限
+        private BigDecimal peakHours; // 區間內最高的每日工時
+        private LocalDate peakDate; // 第一次達到最高工時的工作日
+        private int overloadedDays; // 超載的工作日數
+        private int idleDays; // 沒有工時的工作日數
+        private List<Interval> overloads = new ArrayList<>();
+        private List<Interval> idleGaps = new ArrayList<>();
+    }
+
+    @Data
+    public static class Interval {
+        private LocalDate startDate; // 第一個工作日
+        private LocalDate endDate; // 最後一個工作日
+        private int workingDays;
+        private BigDecimal peakHours; // 區間內最高的每日工時（空檔為 0）
+    }
+}
@@ -1,11 +1,15 @@
 package com.redmine.workload.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.AllArgsConstructor;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.AbstractList;
 import java.util.List;
 
 @Data
@@ -23,6 +27,64 @@ public class WorkloadAnalysis2D {
     private List<DailyWorkload> dailyWorkloads;
     private List<PeriodWorkload> periodWorkloads; // 新增：支援週/月顆粒度
     
+    // 精簡每日矩陣：自 dailyStartEpochDay 起，每日工時以「百分之一小時」儲存（例如 2.50 小時 = 250）
+    @JsonIgnore
+    private long dailyStartEpochDay;
+    @JsonIgnore
+    private long[] dailyHundredths;
+    // 與 dailyHundredths 對齊的工作日表（含國定假日與補班，同一次查詢的所有列共用）；null 時以週六、週日為非工作日
+    @JsonIgnore
+    private boolean[] dailyWorkingDays;
+    
+    // 使用精簡每日矩陣時，dailyWorkloads 以唯讀檢視的方式逐格展開，不會保留展開後的物件
+    public List<DailyWorkload> getDailyWorkloads() {
+        if (dailyWorkloads == null && dailyHundredths != null) {
+            return new AbstractList<DailyWorkload>() {
+                @Override
+                public DailyWorkload get(int index) {
+                    return expandDailyWorkload(index);
+                }
+
+                @Override
+                public int size() {
+                    return dailyHundredths.length;
+                }
+            };
+        }
+        return dailyWorkloads;
+    }
+    
+    private DailyWorkload expandDailyWorkload(int index) {
+        LocalDate date = LocalDate.ofEpochDay(dailyStartEpochDay + index);
+        DailyWorkload dailyWorkload = new DailyWorkload();
+        dailyWorkload.setDate(date);
+        dailyWorkload.setWeekend(dailyWorkingDays != null ? !dailyWorkingDays[index] :
+                                 date.getDayOfWeek() == DayOfWeek.SATURDAY ||
+                                 date.getDayOfWeek() == DayOfWeek.SUNDAY);
+        
+        long hundredths = dailyHundredths[index];
+        if (hundredths == 0) {
+            // 與原本的 BigDecimal 版本一致：議題未分配工時顯示 "0.0"，彙總列顯示 "0"
+            dailyWorkload.setHours(BigDecimal.ZERO);
+            dailyWorkload.setStatus(issueId != null && issueId < 0 ? "0" : "0.0");
+        } else {
+            BigDecimal hours = fromHundredths(hundredths);
+            dailyWorkload.setHours(hours);
+            dailyWorkload.setStatus(hours.toString());
+        }
+        return dailyWorkload;
+    }
+    
+    // 將已四捨五入至小數 2 位的工時轉為百分之一小時的整數
+    public static long toHundredths(BigDecimal hours) {
+        return hours.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    // 百分之一小時轉回小數 2 位的工時，0 維持 BigDecimal.ZERO 以保留原本的顯示格式
+    public static BigDecimal fromHundredths(long hundredths) {
+        return hundredths == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(hundredths, 2);
+    }
+    
     @Data
     @AllArgsConstructor
     @NoArgsConstructor
@@ -43,6 +105,6 @@ public class WorkloadAnalysis2D {
         private LocalDate endDate; // 期間結束日期
         private BigDecimal hours;
         private String status;
-        private String granularity; // "weekly" 或 "monthly"
+        private String granularity; // "weekly"、"monthly" 或 "quarterly"
     }
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.redmine.workload.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+// 由資料庫彙總的 (使用者, 專案, 期間) 工時；bucketStart 為期間第一天（週一、月初或季初），
+// 議題在查詢區間內沒有工作日時為 null（只用來保留使用者，工時為 0）
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WorkloadRollup {
+    private String groupName;
+    private String userFullname;
+    private String projectName;
+    private LocalDate bucketStart;
+    private long hundredths;
+}
@@ -0,0 +1,41 @@
+package com.redmine.workload.model;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+// 2D 分析矩陣的可視區塊：只包含指定列範圍與日期視窗內的欄位，以及整個查詢區間的總計
+@Data
+public class WorkloadViewport {
+    private int totalRows;
+    private int totalColumns;
+    private int rowOffset;
+    private int columnOffset;
+    private List<Column> columns = new ArrayList<>();
+    private List<Row> rows = new ArrayList<>();
+    private BigDecimal totalHours; // 整個查詢區間所有使用者的總工時
+
+    @Data
+    public static class Column {
+        private String label;
+        private LocalDate startDate;
+        private LocalDate endDate;
+    }
+
+    @Data
+    public static class Row {
+        private int level; // 0 = 使用者總計、1 = 專案總計、2 = 議題
+        private String userFullname;
+        private String projectName;
+        private Long issueId;
+        private String issueSubject;
+        private LocalDate startDate;
+        private LocalDate dueDate;
+        private BigDecimal estimatedHours;
+        private BigDecimal totalHours; // 整個查詢區間的工時
+        private List<BigDecimal> hours; // 可視欄位的工時
+    }
+}
@@ -0,0 +1,35 @@
+package com.redmine.workload.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 單次查詢內的字串字典：群組、姓名、專案、狀態等欄位在結果中大量重複，
+// 相同內容只保留第一次讀到的字串實例並配給一個遞增的整數編號。
+// 之後的分組比較（Objects.equals / HashMap）遇到同一實例可直接以 == 判定，雜湊值也只計算一次，
+// 快取的分析結果不再保留數千份內容相同的字串。非執行緒安全，每個 RowMapper 實例各自持有一份
+final class StringDictionary {
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> table = new ArrayList<>();
+
+    // 回傳共用的字串實例；null 原樣回傳
+    String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        return table.get(idOf(value));
+    }
+
+    // 字串在本字典中的編號（依首次出現順序由 0 開始）
+    int idOf(String value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = table.size();
+            ids.put(value, id);
+            table.add(value);
+        }
+        return id;
+    }
+}
@@ -2,22 +2,49 @@ package com.redmine.workload.repository;
 
 import com.redmine.workload.model.WorkloadData;
 import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.metrics.WorkloadMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Repository
 public class WorkloadRepository {
 
+    // 查詢參數與完整 SQL 只在 DEBUG 等級輸出（logging.level.com.redmine.workload.repository=DEBUG）
+    private static final Logger log = LoggerFactory.getLogger(WorkloadRepository.class);
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private WorkloadMetrics metrics;
+
+    // 串流查詢的 fetch size；MySQL Connector/J 以 Integer.MIN_VALUE 表示逐列串流
+    // （連線參數加上 useCursorFetch=true 時可改用正數，以伺服器端游標分批讀取）
+    @Value("${workload.analysis.streaming.fetch-size:-2147483648}")
+    private int streamFetchSize = Integer.MIN_VALUE;
+
     private static final String WORKLOAD_QUERY = 
         "SELECT " +
         "    g.lastname AS group_name, " +
@@ -51,6 +78,200 @@ public class WorkloadRepository {
         "    AND i.due_date >= ? " +
         "ORDER BY g.lastname, user_fullname, p.name, is_closed DESC, i.id ASC";
 
+    // 整個群組的工作負載明細（未指定使用者時使用）
+    private static final String WORKLOAD_GROUP_QUERY =
+        "SELECT " +
+        "    g.lastname AS group_name, " +
+        "    CONCAT(u.lastname, u.firstname) AS user_fullname, " +
+        "    u.login AS user_login, " +
+        "    p.name AS project_name, " +
+        "    i.id AS issue_id, " +
+        "    i.subject AS issue_subject, " +
+        "    i.start_date, " +
+        "    i.due_date, " +
+        "    i.estimated_hours, " +
+        "    ROUND(i.estimated_hours / NULLIF(DATEDIFF(i.due_date, i.start_date) + 1, 0), 2) AS avg_hours_per_day, " +
+        "    s.name AS status_name, " +
+        "    s.is_closed AS is_closed, " +
+        "    i.closed_on " +
+        "FROM issues i " +
+        "JOIN projects p ON p.id = i.project_id " +
+        "JOIN users u ON u.id = i.assigned_to_id " +
+        "JOIN groups_users gu ON gu.user_id = u.id " +
+        "JOIN users g ON g.id = gu.group_id " +
+        "JOIN issue_statuses s ON s.id = i.status_id " +
+        "WHERE " +
+        "    g.lastname = ? " +
+        "    AND u.status = 1 " +
+        "    AND g.status = 1 " +
+        "    AND i.start_date IS NOT NULL " +
+        "    AND i.due_date IS NOT NULL " +
+        "    AND i.estimated_hours IS NOT NULL " +
+        "    AND i.start_date <= ? " +
+        "    AND i.due_date >= ? " +
+        "ORDER BY g.lastname, user_fullname, p.name, is_closed DESC, i.id ASC";
+
+    // 多使用者批次查詢：以 IN (...) 一次取回多位使用者的資料，{USERS} 於執行時替換為對應數量的參數佔位符
+    private static final String WORKLOAD_MULTI_USER_QUERY = 
+        "SELECT " +
+        "    g.lastname AS group_name, " +
+        "    CONCAT(u.lastname, u.firstname) AS user_fullname, " +
+        "    u.login AS user_login, " +
+        "    p.name AS project_name, " +
+        "    i.id AS issue_id, " +
+        "    i.subject AS issue_subject, " +
+        "    i.start_date, " +
+        "    i.due_date, " +
+        "    i.estimated_hours, " +
+        "    ROUND(i.estimated_hours / NULLIF(DATEDIFF(i.due_date, i.start_date) + 1, 0), 2) AS avg_hours_per_day, " +
+        "    s.name AS status_name, " +
+        "    s.is_closed AS is_closed, " +
+        "    i.closed_on " +
+        "FROM issues i " +
+        "JOIN projects p ON p.id = i.project_id " +
+        "JOIN users u ON u.id = i.assigned_to_id " +
+        "JOIN groups_users gu ON gu.user_id = u.id " +
+        "JOIN users g ON g.id = gu.group_id " +
+        "JOIN issue_statuses s ON s.id = i.status_id " +
+        "WHERE " +
+        "    g.lastname = ? " +
+        "    AND CONCAT(u.lastname, u.firstname) IN ({USERS}) " +
+        "    AND u.status = 1 " +
+        "    AND g.status = 1 " +
+        "    AND i.start_date IS NOT NULL " +
+        "    AND i.due_date IS NOT NULL " +
+        "    AND i.estimated_hours IS NOT NULL " +
+        "    AND i.start_date <= ? " +
+        "    AND i.due_date >= ? " +
+        "ORDER BY g.lastname, user_fullname, p.name, is_closed DESC, i.id ASC";
+
+    // 使用者參數為 null 或空字串時查詢整個群組；單獨的 ? IS NULL 沒有型別，
+    // H2（負載測試使用）無法準備陳述式，因此先轉型
+    private static final String ANALYSIS_2D_QUERY = 
+        "SELECT " +
+        "    g.lastname AS group_name, " +
+        "    CONCAT(u.lastname, u.firstname) AS user_fullname, " +
+        "    p.name AS project_name, " +
+        "    i.id AS issue_id, " +
+        "    i.subject AS issue_subject, " +
+        "    i.start_date, " +
+        "    i.due_date, " +
+        "    i.estimated_hours, " +
+        "    s.is_closed " +
+        "FROM issues i " +
+        "JOIN projects p ON p.id = i.project_id " +
+        "JOIN users u ON u.id = i.assigned_to_id " +
+        "JOIN groups_users gu ON gu.user_id = u.id " +
+        "JOIN users g ON g.id = gu.group_id " +
+        "JOIN issue_statuses s ON s.id = i.status_id " +
+        "WHERE " +
+        "    g.lastname = ? " +
+        "    AND (CAST(? AS CHAR(255)) IS NULL OR ? = '' OR CONCAT(u.lastname, u.firstname) = ?) " +
+        "    AND u.status = 1 " +
+        "    AND g.status = 1 " +
+        "    AND i.start_date IS NOT NULL " +
+        "    AND i.due_date IS NOT NULL " +
+        "    AND i.estimated_hours IS NOT NULL " +
+        "    AND (i.start_date <= ? and i.due_date >= ?) " +
+        "ORDER BY g.lastname, user_fullname, p.name, i.id ASC";
+
+    private static final String ANALYSIS_2D_MULTI_USER_QUERY = 
+        "SELECT " +
+        "    g.lastname AS group_name, " +
+        "    CONCAT(u.lastname, u.firstname) AS user_fullname, " +
+        "    p.name AS project_name, " +
+        "    i.id AS issue_id, " +
+        "    i.subject AS issue_subject, " +
+        "    i.start_date, " +
+        "    i.due_date, " +
+        "    i.estimated_hours, " +
+        "    s.is_closed " +
+        "FROM issues i " +
+        "JOIN projects p ON p.id = i.project_id " +
+        "JOIN users u ON u.id = i.assigned_to_id " +
+        "JOIN groups_users gu ON gu.user_id = u.id " +
+        "JOIN users g ON g.id = gu.group_id " +
+        "JOIN issue_statuses s ON s.id = i.status_id " +
+        "WHERE " +
+        "    g.lastname = ? " +
+        "    AND CONCAT(u.lastname, u.firstname) IN ({USERS}) " +
+        "    AND u.status = 1 " +
+        "    AND g.status = 1 " +
+        "    AND i.start_date IS NOT NULL " +
+        "    AND i.due_date IS NOT NULL " +
+        "    AND i.estimated_hours IS NOT NULL " +
+        "    AND (i.start_date <= ? and i.due_date >= ?) " +
+        "ORDER BY g.lastname, user_fullname, p.name, i.id ASC";
+
+    // 資料指紋：群組內議題數量與最後更新時間，用來判斷快取結果是否仍為最新
+    private static final String ISSUE_FINGERPRINT_QUERY = 
+        "SELECT COUNT(*) AS issue_count, MAX(i.updated_on) AS last_updated " +
+        "FROM issues i " +
+        "JOIN users u ON u.id = i.assigned_to_id " +
+        "JOIN groups_users gu ON gu.user_id = u.id " +
+        "JOIN users g ON g.id = gu.group_id " +
+        "WHERE g.lastname = ? " +
+        "    AND u.status = 1 " +
+        "    AND g.status = 1";
+
+    // 依議題編號查詢 2D 分析資料（增量更新時重新讀取有異動的議題）
+    private static final String ANALYSIS_2D_BY_ISSUE_IDS_QUERY = 
+        "SELECT " +
+        "    g.lastname AS group_name, " +
+        "    CONCAT(u.lastname, u.firstname) AS user_fullname, " +
+        "    p.name AS project_name, " +
+        "    i.id AS issue_id, " +
+        "    i.subject AS issue_subject, " +
+        "    i.start_date, " +
+        "    i.due_date, " +
+        "    i.estimated_hours, " +
+        "    s.is_closed " +
+        "FROM issues i " +
+        "JOIN projects p ON p.id = i.project_id " +
+        "JOIN users u ON u.id = i.assigned_to_id " +
+        "JOIN groups_users gu ON gu.user_id = u.id " +
+        "JOIN users g ON g.id = gu.group_id " +
+        "JOIN issue_statuses s ON s.id = i.status_id " +
+        "WHERE " +
+        "    g.lastname = ? " +
+        "    AND i.id IN ({IDS}) " +
+        "    AND u.status = 1 " +
+        "    AND g.status = 1 " +
+        "    AND i.start_date IS NOT NULL " +
+        "    AND i.due_date IS NOT NULL " +
+        "    AND i.estimated_hours IS NOT NULL " +
+        "    AND (i.start_date <= ? and i.due_date >= ?) " +
+        "ORDER BY g.lastname, user_fullname, p.name, i.id ASC";
+
+    // 群組在區間內的 2D 分析資料筆數（條件與 JOIN 同 ANALYSIS_2D_QUERY），
+    // 用來發現不會更新 issues.updated_on 的異動：刪除議題、停用使用者、群組成員異動
+    private static final String ANALYSIS_2D_COUNT_QUERY = 
+        "SELECT COUNT(*) " +
+        "FROM issues i " +
+        "JOIN projects p ON p.id = i.project_id " +
+        "JOIN users u ON u.id = i.assigned_to_id " +
+        "JOIN groups_users gu ON gu.user_id = u.id " +
+        "JOIN users g ON g.id = gu.group_id " +
+        "JOIN issue_statuses s ON s.id = i.status_id " +
+        "WHERE " +
+        "    g.lastname = ? " +
+        "    AND u.status = 1 " +
+        "    AND g.status = 1 " +
+        "    AND i.start_date IS NOT NULL " +
+        "    AND i.due_date IS NOT NULL " +
+        "    AND i.estimated_hours IS NOT NULL " +
+        "    AND (i.start_date <= ? and i.due_date >= ?)";
+
+    // 自某個時間點之後有異動的議題（含改派、狀態變更）
+    private static final String CHANGED_ISSUES_QUERY = 
+        "SELECT i.id, i.updated_on FROM issues i WHERE i.updated_on >= ?";
+
+    private static final String MAX_ISSUE_UPDATED_ON_QUERY = 
+        "SELECT MAX(i.updated_on) FROM issues i";
+
+    // 單次 IN (...) 的最大參數數量，超過時分批查詢
+    private static final int IN_CLAUSE_CHUNK_SIZE = 500;
+
     private static final String GET_ALL_GROUPS = 
         "SELECT DISTINCT g.lastname " +
         "FROM users g " +
@@ -67,111 +288,113 @@ public class WorkloadRepository {
 
     public List<WorkloadData> getWorkloadData(String groupName, String userFullname, 
                                               LocalDate startDate, LocalDate endDate) {
-        System.out.println("=== Executing Workload Query ===");
-        System.out.println("Group Name: " + groupName);
-        System.out.println("User Fullname: " + userFullname);
-        System.out.println("Start Date: " + startDate);
-        System.out.println("End Date: " + endDate);
-        
         // 如果沒有選擇使用者，查詢整個群組的資料
         if (userFullname == null || userFullname.trim().isEmpty()) {
             return getWorkloadDataByGroup(groupName, startDate, endDate);
         } else {
-            System.out.println("Query: " + WORKLOAD_QUERY);
-            System.out.println("Parameters: [" + groupName + ", " + userFullname + ", " + startDate + ", " + endDate + "]");
-            
-            // 生成完整的 SQL 指令用於除錯
-            String finalSql = WORKLOAD_QUERY;
-            finalSql = finalSql.replaceFirst("\\?", "'" + groupName + "'");
-            finalSql = finalSql.replaceFirst("\\?", "'" + userFullname + "'");
-            finalSql = finalSql.replaceFirst("\\?", "'" + endDate + "'");
-            finalSql = finalSql.replaceFirst("\\?", "'" + startDate + "'");
-            System.out.println("=== Final SQL Command ===");
-            System.out.println(finalSql);
-            System.out.println("========================");
-            
-            List<WorkloadData> result = jdbcTemplate.query(WORKLOAD_QUERY, 
-                new WorkloadRowMapper(), 
-                groupName, userFullname, endDate,startDate);
-            System.out.println("Result count: " + result.size());
-            return result;
+            return query("getWorkloadData", WORKLOAD_QUERY, new WorkloadRowMapper(),
+                groupName, userFullname, endDate, startDate);
         }
     }
 
     private List<WorkloadData> getWorkloadDataByGroup(String groupName, LocalDate startDate, LocalDate endDate) {
-        String GROUP_QUERY = 
-            "SELECT " +
-            "    g.lastname AS group_name, " +
-            "    CONCAT(u.lastname, u.firstname) AS user_fullname, " +
-            "    u.login AS user_login, " +
-            "    p.name AS project_name, " +
-            "    i.id AS issue_id, " +
-            "    i.subject AS issue_subject, " +
-            "    i.start_date, " +
-            "    i.due_date, " +
-            "    i.estimated_hours, " +
-            "    ROUND(i.estimated_hours / NULLIF(DATEDIFF(i.due_date, i.start_date) + 1, 0), 2) AS avg_hours_per_day, " +
-            "    s.name AS status_name, " +
-            "    s.is_closed AS is_closed, " +
-            "    i.closed_on " +
-            "FROM issues i " +
-            "JOIN projects p ON p.id = i.project_id " +
-            "JOIN users u ON u.id = i.assigned_to_id " +
-            "JOIN groups_users gu ON gu.user_id = u.id " +
-            "JOIN users g ON g.id = gu.group_id " +
-            "JOIN issue_statuses s ON s.id = i.status_id " +
-            "WHERE " +
-            "    g.lastname = ? " +
-            "    AND u.status = 1 " +
-            "    AND g.status = 1 " +
-            "    AND i.start_date IS NOT NULL " +
-            "    AND i.due_date IS NOT NULL " +
-            "    AND i.estimated_hours IS NOT NULL " +
-            "    AND i.start_date <= ? " +
-            "    AND i.due_date >= ? " +
-            "ORDER BY g.lastname, user_fullname, p.name, is_closed DESC, i.id ASC";
-        
-        System.out.println("Group Query: " + GROUP_QUERY);
-        System.out.println("Group Parameters: [" + groupName + ", " + startDate + ", " + endDate + "]");
-        
-        // 生成完整的群組 SQL 指令用於除錯
-        String finalGroupSql = GROUP_QUERY
-            .replaceFirst("\\?", "'" + groupName + "'")
-            .replaceFirst("\\?", "'" +endDate  + "'")
-            .replaceFirst("\\?", "'" + startDate + "'");
-        System.out.println("=== Final Group SQL Command ===");
-        System.out.println(finalGroupSql);
-        System.out.println("==============================");
-        
-        List<WorkloadData> result = jdbcTemplate.query(GROUP_QUERY, 
-            new WorkloadRowMapper(), 
-            groupName, endDate,startDate);
-        System.out.println("Group result count: " + result.size());
-        return result;
+        return query("getWorkloadDataByGroup", WORKLOAD_GROUP_QUERY, new WorkloadRowMapper(),
+            groupName, endDate, startDate);
+    }
+
+    // 多使用者批次查詢：一次 SQL 往返取回所有指定使用者的資料，結果依傳入的使用者順序排列
+    public List<WorkloadData> getWorkloadDataForUsers(String groupName, List<String> userFullnames,
+                                                      LocalDate startDate, LocalDate endDate) {
+        return metrics.query("getWorkloadDataForUsers",
+            () -> queryForUsers(WORKLOAD_MULTI_USER_QUERY, new WorkloadRowMapper(),
+                WorkloadData::getUserFullname, groupName, userFullnames, startDate, endDate),
+            List::size);
+    }
+
+    // 取得群組議題的資料指紋（議題數 + 最後更新時間），查詢成本遠低於完整的 2D 分析查詢
+    public String getIssueFingerprint(String groupName) {
+        return metrics.query("getIssueFingerprint",
+            () -> jdbcTemplate.queryForObject(ISSUE_FINGERPRINT_QUERY,
+                (rs, rowNum) -> rs.getLong("issue_count") + "@" + rs.getTimestamp("last_updated"),
+                groupName),
+            fingerprint -> 1);
+    }
+
+    // 全部議題的最後更新時間，作為增量同步的起始水位
+    public LocalDateTime getMaxIssueUpdatedOn() {
+        Timestamp maxUpdatedOn = metrics.query("getMaxIssueUpdatedOn",
+            () -> jdbcTemplate.queryForObject(MAX_ISSUE_UPDATED_ON_QUERY, Timestamp.class),
+            timestamp -> 1);
+        return maxUpdatedOn != null ? maxUpdatedOn.toLocalDateTime() : null;
+    }
+
+    // 查詢 since（含）之後有異動的議題編號與更新時間
+    public Map<Long, LocalDateTime> getChangedIssues(LocalDateTime since) {
+        Map<Long, LocalDateTime> changed = metrics.query("getChangedIssues", () -> {
+            Map<Long, LocalDateTime> rows = new LinkedHashMap<>();
+            jdbcTemplate.query(CHANGED_ISSUES_QUERY,
+                rs -> {
+                    rows.put(rs.getLong("id"), rs.getTimestamp("updated_on").toLocalDateTime());
+                },
+                Timestamp.valueOf(since));
+            return rows;
+        }, Map::size);
+        log.debug("Changed issues since {}: {}", since, changed.size());
+        return changed;
+    }
+
+    // 依議題編號重新讀取群組內的 2D 分析資料（分批 IN 查詢）
+    public List<WorkloadAnalysis2D> getWorkloadAnalysis2DByIssueIds(String groupName, List<Long> issueIds,
+                                                                    LocalDate startDate, LocalDate endDate) {
+        return metrics.query("getWorkloadAnalysis2DByIssueIds", () -> {
+            List<WorkloadAnalysis2D> result = new ArrayList<>();
+            for (int from = 0; from < issueIds.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+                List<Long> chunk = issueIds.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, issueIds.size()));
+                String sql = ANALYSIS_2D_BY_ISSUE_IDS_QUERY.replace("{IDS}",
+                    String.join(", ", Collections.nCopies(chunk.size(), "?")));
+
+                List<Object> params = new ArrayList<>(chunk.size() + 3);
+                params.add(groupName);
+                params.addAll(chunk);
+                params.add(endDate);
+                params.add(startDate);
+
+                logSql(sql, params.toArray());
+                result.addAll(jdbcTemplate.query(sql, new WorkloadAnalysis2DRowMapper(), params.toArray()));
+            }
+            return result;
+        }, List::size);
+    }
+
+    // 群組在區間內的 2D 分析資料筆數，供增量快照比對是否有不留下 updated_on 的異動
+    public long countWorkloadAnalysis2D(String groupName, LocalDate startDate, LocalDate endDate) {
+        Long count = metrics.query("countWorkloadAnalysis2D",
+            () -> jdbcTemplate.queryForObject(ANALYSIS_2D_COUNT_QUERY, Long.class, groupName, endDate, startDate),
+            result -> 1);
+        return count != null ? count : 0;
     }
 
     public List<String> getAllGroups() {
-        System.out.println("=== Getting All Groups ===");
-        List<String> groups = jdbcTemplate.queryForList(GET_ALL_GROUPS, String.class);
-        System.out.println("Found " + groups.size() + " groups: " + groups);
-        return groups;
+        return metrics.query("getAllGroups",
+            () -> jdbcTemplate.queryForList(GET_ALL_GROUPS, String.class), List::size);
     }
 
     public List<String> getUsersByGroup(String groupName) {
-        System.out.println("=== Getting Users for Group: " + groupName + " ===");
-        List<String> users = jdbcTemplate.queryForList(GET_USERS_BY_GROUP, String.class, groupName);
-        System.out.println("Found " + users.size() + " users: " + users);
-        return users;
+        return metrics.query("getUsersByGroup",
+            () -> jdbcTemplate.queryForList(GET_USERS_BY_GROUP, String.class, groupName), List::size);
     }
 
+    // 群組、姓名、帳號、專案與狀態欄位經由本次查詢的字串字典取得共用實例
     private static class WorkloadRowMapper implements RowMapper<WorkloadData> {
+        private final StringDictionary dictionary = new StringDictionary();
+
         @Override
         public WorkloadData mapRow(ResultSet rs, int rowNum) throws SQLException {
             WorkloadData data = new WorkloadData();
-            data.setGroupName(rs.getString("group_name"));
-            data.setUserFullname(rs.getString("user_fullname"));
-            data.setUserLogin(rs.getString("user_login"));
-            data.setProjectName(rs.getString("project_name"));
+            data.setGroupName(dictionary.canonical(rs.getString("group_name")));
+            data.setUserFullname(dictionary.canonical(rs.getString("user_fullname")));
+            data.setUserLogin(dictionary.canonical(rs.getString("user_login")));
+            data.setProjectName(dictionary.canonical(rs.getString("project_name")));
             data.setIssueId(rs.getLong("issue_id"));
             data.setIssueSubject(rs.getString("issue_subject"));
             
@@ -184,7 +407,7 @@ public class WorkloadRepository {
             
             data.setEstimatedHours(rs.getBigDecimal("estimated_hours"));
             data.setAvgHoursPerDay(rs.getBigDecimal("avg_hours_per_day"));
-            data.setStatusName(rs.getString("status_name"));
+            data.setStatusName(dictionary.canonical(rs.getString("status_name")));
             data.setIsClosed(rs.getBoolean("is_closed"));
             
             if (rs.getDate("closed_on") != null) {
@@ -198,66 +421,20 @@ public class WorkloadRepository {
     // 新增2D分析查詢方法
     public List<WorkloadAnalysis2D> getWorkloadAnalysis2D(String groupName, String userFullname, 
                                                           LocalDate startDate, LocalDate endDate) {
-        System.out.println("=== Executing 2D Analysis Query ===");
-        System.out.println("Group Name: " + groupName);
-        System.out.println("User Fullname: " + userFullname);
-        System.out.println("Start Date: " + startDate);
-        System.out.println("End Date: " + endDate);
-        
-        String query2D = 
-            "SELECT " +
-            "    g.lastname AS group_name, " +
-            "    CONCAT(u.lastname, u.firstname) AS user_fullname, " +
-            "    p.name AS project_name, " +
-            "    i.id AS issue_id, " +
-            "    i.subject AS issue_subject, " +
-            "    i.start_date, " +
-            "    i.due_date, " +
-            "    i.estimated_hours, " +
-            "    s.is_closed " +
-            "FROM issues i " +
-            "JOIN projects p ON p.id = i.project_id " +
-            "JOIN users u ON u.id = i.assigned_to_id " +
-            "JOIN groups_users gu ON gu.user_id = u.id " +
-            "JOIN users g ON g.id = gu.group_id " +
-            "JOIN issue_statuses s ON s.id = i.status_id " +
-            "WHERE " +
-            "    g.lastname = ? " +
-            "    AND (? IS NULL OR ? = '' OR CONCAT(u.lastname, u.firstname) = ?) " +
-            "    AND u.status = 1 " +
-            "    AND g.status = 1 " +
-            "    AND i.start_date IS NOT NULL " +
-            "    AND i.due_date IS NOT NULL " +
-            "    AND i.estimated_hours IS NOT NULL " +
-            "    AND (i.start_date <= ? and i.due_date >= ?) " +
-            "ORDER BY g.lastname, user_fullname, p.name, i.id ASC";
-        
-        // 生成完整的 SQL 指令用於除錯
-        String finalSql = query2D;
-        finalSql = finalSql.replaceFirst("\\?", "'" + groupName + "'");
-        finalSql = finalSql.replaceFirst("\\?", userFullname == null ? "NULL" : "'" + userFullname + "'");
-        finalSql = finalSql.replaceFirst("\\?", userFullname == null ? "''" : "'" + userFullname + "'");
-        finalSql = finalSql.replaceFirst("\\?", userFullname == null ? "NULL" : "'" + userFullname + "'");
-        finalSql = finalSql.replaceFirst("\\?", "'" + endDate + "'");
-        finalSql = finalSql.replaceFirst("\\?", "'" + startDate + "'");
-        System.out.println("=== Final 2D Analysis SQL Command ===");
-        System.out.println(finalSql);
-        System.out.println("=====================================");
-        
-        List<WorkloadAnalysis2D> result = jdbcTemplate.query(query2D, 
-            new WorkloadAnalysis2DRowMapper(), 
+        return query("getWorkloadAnalysis2D", ANALYSIS_2D_QUERY, new WorkloadAnalysis2DRowMapper(),
             groupName, userFullname, userFullname, userFullname, endDate, startDate);
-        System.out.println("2D Analysis Result count: " + result.size());
-        return result;
     }
 
+    // 每次查詢建立新的實例，字串字典隨查詢結束釋放（串流查詢亦同）
     private static class WorkloadAnalysis2DRowMapper implements RowMapper<WorkloadAnalysis2D> {
+        private final StringDictionary dictionary = new StringDictionary();
+
         @Override
         public WorkloadAnalysis2D mapRow(ResultSet rs, int rowNum) throws SQLException {
             WorkloadAnalysis2D data = new WorkloadAnalysis2D();
-            data.setGroupName(rs.getString("group_name"));
-            data.setUserFullname(rs.getString("user_fullname"));
-            data.setProjectName(rs.getString("project_name"));
+            data.setGroupName(dictionary.canonical(rs.getString("group_name")));
+            data.setUserFullname(dictionary.canonical(rs.getString("user_fullname")));
+            data.setProjectName(dictionary.canonical(rs.getString("project_name")));
             data.setIssueId(rs.getLong("issue_id"));
             data.setIssueSubject(rs.getString("issue_subject"));
             data.setStartDate(rs.getDate("start_date").toLocalDate());
@@ -267,4 +444,169 @@ public class WorkloadRepository {
             return data;
         }
     }
+
+    // 多使用者 2D 分析批次查詢，結果依傳入的使用者順序排列
+    public List<WorkloadAnalysis2D> getWorkloadAnalysis2DForUsers(String groupName, List<String> userFullnames,
+                                                                  LocalDate startDate, LocalDate endDate) {
+        return metrics.query("getWorkloadAnalysis2DForUsers",
+            () -> queryForUsers(ANALYSIS_2D_MULTI_USER_QUERY, new WorkloadAnalysis2DRowMapper(),
+                WorkloadAnalysis2D::getUserFullname, groupName, userFullnames, startDate, endDate),
+            List::size);
+    }
+
+    // 串流版本的 2D 分析查詢：以 fetch size 逐列讀取（MySQL 串流模式），每列對應後直接交給 consumer，
+    // 不建立結果清單。未指定使用者時查詢整個群組；指定使用者時依 IN (...) 分批，
+    // 列依 SQL 排序（使用者 → 專案 → 議題）送出，同一位使用者的列必定連續
+    public void streamWorkloadAnalysis2D(String groupName, List<String> userFullnames,
+                                         LocalDate startDate, LocalDate endDate,
+                                         Consumer<WorkloadAnalysis2D> consumer) {
+        // 耗時包含 consumer（彙總器）處理每一列的時間
+        metrics.query("streamWorkloadAnalysis2D",
+            () -> streamForUsers(ANALYSIS_2D_QUERY, new Object[]{groupName, null, null, null, endDate, startDate},
+                ANALYSIS_2D_MULTI_USER_QUERY, new WorkloadAnalysis2DRowMapper(), consumer,
+                groupName, userFullnames, startDate, endDate),
+            Long::longValue);
+    }
+
+    // 串流版本的工作負載明細查詢（匯出用），列依 SQL 排序（使用者 → 專案 → 議題）逐列交給 consumer
+    public void streamWorkloadData(String groupName, List<String> userFullnames,
+                                   LocalDate startDate, LocalDate endDate,
+                                   Consumer<WorkloadData> consumer) {
+        metrics.query("streamWorkloadData",
+            () -> streamForUsers(WORKLOAD_GROUP_QUERY, new Object[]{groupName, endDate, startDate},
+                WORKLOAD_MULTI_USER_QUERY, new WorkloadRowMapper(), consumer,
+                groupName, userFullnames, startDate, endDate),
+            Long::longValue);
+    }
+
+    // 未指定使用者時以 groupQuery / groupParams 查詢整個群組；指定使用者時以 multiUserQuery 依 IN (...) 分批，
+    // 各批次共用同一個 RowMapper（與其字串字典），回傳送出的列數
+    private <T> long streamForUsers(String groupQuery, Object[] groupParams, String multiUserQuery,
+                                    RowMapper<T> rowMapper, Consumer<T> consumer, String groupName,
+                                    List<String> userFullnames, LocalDate startDate, LocalDate endDate) {
+        if (userFullnames == null || userFullnames.isEmpty()) {
+            return streamQuery(groupQuery, rowMapper, consumer, groupParams);
+        }
+        long rowCount = 0;
+        List<String> distinctUsers = new ArrayList<>(new LinkedHashSet<>(userFullnames));
+        for (int from = 0; from < distinctUsers.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<String> chunk = distinctUsers.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, distinctUsers.size()));
+            String sql = multiUserQuery.replace("{USERS}", String.join(", ", Collections.nCopies(chunk.size(), "?")));
+
+            List<Object> params = new ArrayList<>(chunk.size() + 3);
+            params.add(groupName);
+            params.addAll(chunk);
+            params.add(endDate);
+            params.add(startDate);
+            rowCount += streamQuery(sql, rowMapper, consumer, params.toArray());
+        }
+        return rowCount;
+    }
+
+    private <T> long streamQuery(String sql, RowMapper<T> rowMapper, Consumer<T> consumer, Object... params) {
+        logSql(sql, params);
+        long[] rowCount = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(streamFetchSize);
+            new ArgumentPreparedStatementSetter(params).setValues(statement);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(rowMapper.mapRow(rs, (int) rowCount[0]++)));
+        return rowCount[0];
+    }
+
+    // 以 IN (...) 分批查詢多位使用者，再依傳入順序重新排列，
+    // 使結果與逐一查詢每位使用者後合併的順序完全一致
+    private <T> List<T> queryForUsers(String queryTemplate, RowMapper<T> rowMapper,
+                                      Function<T, String> userKey,
+                                      String groupName, List<String> userFullnames,
+                                      LocalDate startDate, LocalDate endDate) {
+        if (userFullnames == null || userFullnames.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<String> distinctUsers = new ArrayList<>(new LinkedHashSet<>(userFullnames));
+        Map<String, List<T>> rowsByUser = new LinkedHashMap<>();
+
+        for (int from = 0; from < distinctUsers.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<String> chunk = distinctUsers.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, distinctUsers.size()));
+            String sql = queryTemplate.replace("{USERS}", String.join(", ", Collections.nCopies(chunk.size(), "?")));
+
+            List<Object> params = new ArrayList<>(chunk.size() + 3);
+            params.add(groupName);
+            params.addAll(chunk);
+            params.add(endDate);
+            params.add(startDate);
+
+            logSql(sql, params.toArray());
+            List<T> rows = jdbcTemplate.query(sql, rowMapper, params.toArray());
+            for (T row : rows) {
+                rowsByUser.computeIfAbsent(userKey.apply(row), k -> new ArrayList<>()).add(row);
+            }
+        }
+
+        // 依使用者傳入順序組合結果（重複指定的使用者會重複出現，與逐一查詢行為相同）
+        List<T> result = new ArrayList<>();
+        for (String userFullname : userFullnames) {
+            List<T> userRows = rowsByUser.get(userFullname);
+            if (userRows != null) {
+                result.addAll(userRows);
+            }
+        }
+        return result;
+    }
+
+    // 單次查詢：記錄耗時與筆數，DEBUG 等級時輸出代入參數後的 SQL
+    private <T> List<T> query(String method, String sql, RowMapper<T> rowMapper, Object... params) {
+        logSql(sql, params);
+        return metrics.query(method, () -> jdbcTemplate.query(sql, rowMapper, params), List::size);
+    }
+
+    static void logSql(String sql, Object[] params) {
+        if (log.isDebugEnabled()) {
+            log.debug("SQL: {}", renderSql(sql, params));
+        }
+    }
+
+    // 將參數代入 ? 產生可直接貼到 MySQL 執行的 SQL（僅供除錯）：單次掃描，不使用正規表示式；
+    // 字串中的引號與反斜線會跳脫，換行等控制字元以空白取代，避免參數內容偽造日誌內容
+    static String renderSql(String sql, Object[] params) {
+        StringBuilder rendered = new StringBuilder(sql.length() + 16 * params.length);
+        int paramIndex = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?' && paramIndex < params.length) {
+                appendLiteral(rendered, params[paramIndex++]);
+            } else {
+                rendered.append(c);
+            }
+        }
+        return rendered.toString();
+    }
+
+    private static void appendLiteral(StringBuilder rendered, Object value) {
+        if (value == null) {
+            rendered.append("NULL");
+            return;
+        }
+        if (value instanceof Number) {
+            rendered.append(value);
+            return;
+        }
+        String text = value.toString();
+        rendered.append('\'');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\'' || c == '\\') {
+                rendered.append('\\');
+                rendered.append(c);
+            } else if (Character.isISOControl(c)) {
+                rendered.append(' ');
+            } else {
+                rendered.append(c);
+            }
+        }
+        rendered.append('\'');
+    }
 }
@@ -0,0 +1,334 @@
+package com.redmine.workload.repository;
+
+import com.redmine.workload.metrics.WorkloadMetrics;
+import com.redmine.workload.model.WorkloadRollup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+// SQL 彙總模式：議題與日曆表 workload_calendar（資料表由 db/workload-calendar.sql 建立，資料由應用程式補齊）JOIN，由 MySQL 直接算出
+// (使用者, 專案, 期間) 的工時總和，分攤規則與 WorkloadAnalysisAggregator 相同：
+// 每日工時 = ROUND(預估工時 / 議題本身的工作日數, 2)，只分配在查詢區間內的工作日
+@Repository
+public class WorkloadRollupRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkloadRollupRepository.class);
+
+    // 日曆表的建立腳本（working_day_seq 的定義見腳本說明），由 DBA 執行或設定允許應用程式自行建立
+    private static final String CALENDAR_SCHEMA = "db/workload-calendar.sql";
+
+    private static final String CALENDAR_DAYS_QUERY =
+        "SELECT cal_date, is_working_day FROM workload_calendar ORDER BY cal_date";
+
+    private static final String CALENDAR_SEQ_QUERY =
+        "SELECT is_working_day, working_day_seq FROM workload_calendar WHERE cal_date = ?";
+
+    private static final String INSERT_CALENDAR_DAY =
+        "INSERT IGNORE INTO workload_calendar " +
+        "(cal_date, is_working_day, working_day_seq, week_start, month_start, quarter_start) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_CALENDAR = "DELETE FROM workload_calendar";
+
+    // 查詢範圍內的議題數與議題日期的最小／最大值（決定是否使用 SQL 彙總，以及日曆表需涵蓋的範圍）
+    private static final String ROLLUP_STATS_QUERY =
+        "SELECT COUNT(*) AS issue_count, MIN(i.start_date) AS first_date, MAX(i.due_date) AS last_date " +
+        "FROM issues i " +
+        "JOIN users u ON u.id = i.assigned_to_id " +
+        "JOIN groups_users gu ON gu.user_id = u.id " +
+        "JOIN users g ON g.id = gu.group_id " +
+        "WHERE " +
+        "    g.lastname = ? " +
+        "    {USER_FILTER} " +
+        "    AND u.status = 1 " +
+        "    AND g.status = 1 " +
+        "    AND i.start_date IS NOT NULL " +
+        "    AND i.due_date IS NOT NULL " +
+        "    AND i.estimated_hours IS NOT NULL " +
+        "    AND i.start_date <= ? " +
+        "    AND i.due_date >= ?";
+
+    // 內層查詢算出每個議題的每日工時（百分之一小時），外層與日曆表的工作日 JOIN 後依期間加總。
+    // 預估工時先轉成字串（指定長度，未指定時部分資料庫只取一個字元）再轉 DECIMAL，
+    // 與 JDBC 讀成 BigDecimal 的值相同，四捨五入才會與 Java 一致；
+    // 區間內沒有工作日的議題以 LEFT JOIN 保留（bucket_start 為 NULL），使用者清單與 Java 彙總相同
+    private static final String ROLLUP_QUERY =
+        "SELECT x.group_name, x.user_fullname, x.project_name, c.{BUCKET} AS bucket_start, " +
+        "    SUM(CASE WHEN c.cal_date IS NULL THEN 0 ELSE x.daily_hundredths END) AS hundredths " +
+        "FROM ( " +
+        "    SELECT " +
+        "        g.lastname AS group_name, " +
+        "        CONCAT(u.lastname, u.firstname) AS user_fullname, " +
+        "        p.name AS project_name, " +
+        "        GREATEST(i.start_date, CAST(? AS DATE)) AS from_date, " +
+        "        LEAST(i.due_date, CAST(? AS DATE)) AS to_date, " +
+        "        COALESCE(CAST(ROUND(CAST(CAST(i.estimated_hours AS CHAR(32)) AS DECIMAL(30, 10)) " +
+        "            / NULLIF(ce.working_day_seq - cs.working_day_seq + cs.is_working_day, 0), 2) * 100 AS SIGNED), 0) " +
+        "            AS daily_hundredths " +
+        "    FROM issues i " +
+        "    JOIN projects p ON p.id = i.project_id " +
+        "    JOIN users u ON u.id = i.assigned_to_id " +
+        "    JOIN groups_users gu ON gu.user_id = u.id " +
+        "    JOIN users g ON g.id = gu.group_id " +
+        "    JOIN issue_statuses s ON s.id = i.status_id " +
+        "    JOIN workload_calendar cs ON cs.cal_date = i.start_date " +
+        "    JOIN workload_calendar ce ON ce.cal_date = i.due_date " +
+        "    WHERE " +
+        "        g.lastname = ? " +
+        "        {USER_FILTER} " +
+        "        AND u.status = 1 " +
+        "        AND g.status = 1 " +
+        "        AND i.start_date IS NOT NULL " +
+        "        AND i.due_date IS NOT NULL " +
+        "        AND i.estimated_hours IS NOT NULL " +
+        "        AND i.start_date <= ? " +
+        "        AND i.due_date >= ? " +
+        ") x " +
+        "LEFT JOIN workload_calendar c " +
+        "    ON c.cal_date BETWEEN x.from_date AND x.to_date AND c.is_working_day = 1 " +
+        "GROUP BY x.group_name, x.user_fullname, x.project_name, bucket_start " +
+        "ORDER BY x.group_name, x.user_fullname, x.project_name, bucket_start";
+
+    // 各顆粒度對應的日曆欄位（只允許這幾個欄位名稱替換進 SQL）
+    private static final Map<String, String> BUCKET_COLUMNS = Map.of(
+        "weekly", "week_start",
+        "monthly", "month_start",
+        "quarterly", "quarter_start");
+
+    // 單次 IN (...) 的最大參數數量，超過時分批查詢
+    private static final int IN_CLAUSE_CHUNK_SIZE = 500;
+
+    private static final int CALENDAR_BATCH_SIZE = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private WorkloadMetrics metrics;
+
+    // 允許應用程式在第一次使用時自行建立日曆表（需要 CREATE 權限）；否則須先執行 db/workload-calendar.sql
+    @Value("${workload.analysis.sql-rollup.create-calendar-table:false}")
+    private boolean createCalendarTable;
+
+    // 日曆表目前涵蓋的範圍（null 表示尚未讀取）
+    private LocalDate calendarFirst;
+    private LocalDate calendarLast;
+
+    public static boolean supportsGranularity(String timeGranularity) {
+        return BUCKET_COLUMNS.containsKey(timeGranularity);
+    }
+
+    // 查詢範圍內的議題數、最早開始日與最晚到期日，沒有議題時日期為 null
+    public RollupStats getRollupStats(String groupName, List<String> userFullnames,
+                                      LocalDate startDate, LocalDate endDate) {
+        return metrics.query("getRollupStats", () -> {
+            RollupStats total = new RollupStats(0, null, null);
+            for (List<Object> params : userChunks(groupName, userFullnames, endDate, startDate)) {
+                String sql = ROLLUP_STATS_QUERY.replace("{USER_FILTER}", userFilter(params.size() - 3));
+                WorkloadRepository.logSql(sql, params.toArray());
+                RollupStats chunk = jdbcTemplate.queryForObject(sql, (rs, rowNum) -> new RollupStats(
+                    rs.getLong("issue_count"),
+                    rs.getDate("first_date") != null ? rs.getDate("first_date").toLocalDate() : null,
+                    rs.getDate("last_date") != null ? rs.getDate("last_date").toLocalDate() : null),
+                    params.toArray());
+                total = total.merge(chunk);
+            }
+            return total;
+        }, stats -> 1);
+    }
+
+    // 確保日曆表涵蓋 [from, to]；不足時向前或向後補齊（工作日判斷由呼叫端提供）
+    public synchronized void ensureCalendar(LocalDate from, LocalDate to, Predicate<LocalDate> workingDay) {
+        if (calendarFirst == null) {
+            if (createCalendarTable) {
+                DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource(CALENDAR_SCHEMA)),
+                    jdbcTemplate.getDataSource());
+            }
+            // 資料表可能是以舊的假日資料產生的：工作日與目前規則不一致時整個重建
+            boolean[] stale = {false};
+            try {
+                jdbcTemplate.query(CALENDAR_DAYS_QUERY, rs -> {
+                    LocalDate day = rs.getDate("cal_date").toLocalDate();
+                    if (calendarFirst == null) {
+                        calendarFirst = day;
+                    }
+                    calendarLast = day;
+                    stale[0] |= workingDay.test(day) != rs.getBoolean("is_working_day");
+                });
+            } catch (BadSqlGrammarException e) {
+                throw new IllegalStateException("workload_calendar is not available: run " + CALENDAR_SCHEMA
+                    + " or set workload.analysis.sql-rollup.create-calendar-table=true", e);
+            }
+            if (stale[0]) {
+                rebuildCalendar(from, to, workingDay);
+                return;
+            }
+            if (calendarFirst == null) {
+                insertCalendarDays(from, to, workingDay.test(from) ? 1 : 0, workingDay);
+                calendarFirst = from;
+                calendarLast = to;
+                return;
+            }
+        }
+
+        if (to.isAfter(calendarLast)) {
+            // 向後延伸：seq 接續最後一天的累計值
+            int lastSeq = jdbcTemplate.queryForObject(CALENDAR_SEQ_QUERY,
+                (rs, rowNum) -> rs.getInt("working_day_seq"), Date.valueOf(calendarLast));
+            LocalDate first = calendarLast.plusDays(1);
+            insertCalendarDays(first, to, lastSeq + (workingDay.test(first) ? 1 : 0), workingDay);
+            calendarLast = to;
+        }
+        if (from.isBefore(calendarFirst)) {
+            // 向前延伸：seq(d - 1) = seq(d) - (d 是否為工作日)，由第一天往回推到 from
+            int seq = jdbcTemplate.queryForObject(CALENDAR_SEQ_QUERY,
+                (rs, rowNum) -> rs.getInt("working_day_seq") - rs.getInt("is_working_day"),
+                Date.valueOf(calendarFirst));
+            for (LocalDate day = calendarFirst.minusDays(1); day.isAfter(from); day = day.minusDays(1)) {
+                seq -= workingDay.test(day) ? 1 : 0;
+            }
+            insertCalendarDays(from, calendarFirst.minusDays(1), seq, workingDay);
+            calendarFirst = from;
+        }
+    }
+
+    // 以目前的工作日規則重建日曆表，範圍為原本的範圍與 [from, to] 的聯集（其他執行個體可能仍依賴原本的範圍）。
+    // 刪除與重新插入在同一個交易中：提交前其他連線的查詢仍讀到完整的舊日曆表，不會讀到空的或只填一半的表
+    private void rebuildCalendar(LocalDate from, LocalDate to, Predicate<LocalDate> workingDay) {
+        LocalDate first = from.isBefore(calendarFirst) ? from : calendarFirst;
+        LocalDate last = to.isAfter(calendarLast) ? to : calendarLast;
+        log.info("Workload calendar does not match the working-day rules, rebuilding {} ~ {}", first, last);
+        calendarFirst = null;
+        calendarLast = null;
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update(DELETE_CALENDAR);
+            insertCalendarDays(first, last, workingDay.test(first) ? 1 : 0, workingDay);
+        });
+        calendarFirst = first;
+        calendarLast = last;
+    }
+
+    // 工作日規則變更（例如重新載入假日資料）後呼叫：下次查詢時重新比對，不一致時重建日曆表
+    public synchronized void resetCalendar() {
+        calendarFirst = null;
+        calendarLast = null;
+    }
+
+    // 依期間加總的工時，依使用者、專案、期間排序；指定使用者時依 IN (...) 分批
+    public List<WorkloadRollup> getWorkloadRollup(String groupName, List<String> userFullnames,
+                                                  LocalDate startDate, LocalDate endDate, String timeGranularity) {
+        String bucketColumn = BUCKET_COLUMNS.get(timeGranularity);
+        if (bucketColumn == null) {
+            throw new IllegalArgumentException("Unsupported rollup granularity: " + timeGranularity);
+        }
+
+        return metrics.query("getWorkloadRollup", () -> {
+            List<WorkloadRollup> result = new ArrayList<>();
+            // 各時間區間的列重複相同的群組、姓名與專案，共用同一份字串實例
+            StringDictionary dictionary = new StringDictionary();
+            for (List<Object> params : userChunks(groupName, userFullnames, endDate, startDate)) {
+                String sql = ROLLUP_QUERY.replace("{BUCKET}", bucketColumn)
+                    .replace("{USER_FILTER}", userFilter(params.size() - 3));
+                List<Object> rollupParams = new ArrayList<>(params.size() + 2);
+                rollupParams.add(startDate);
+                rollupParams.add(endDate);
+                rollupParams.addAll(params);
+
+                WorkloadRepository.logSql(sql, rollupParams.toArray());
+                result.addAll(jdbcTemplate.query(sql, (rs, rowNum) -> new WorkloadRollup(
+                    dictionary.canonical(rs.getString("group_name")),
+                    dictionary.canonical(rs.getString("user_fullname")),
+                    dictionary.canonical(rs.getString("project_name")),
+                    rs.getDate("bucket_start") != null ? rs.getDate("bucket_start").toLocalDate() : null,
+                    rs.getLong("hundredths")), rollupParams.toArray()));
+            }
+            return result;
+        }, List::size);
+    }
+
+    // 連續插入 [from, to] 的日曆資料，firstSeq 為 from 當天的累計工作日數
+    private void insertCalendarDays(LocalDate from, LocalDate to, int firstSeq, Predicate<LocalDate> workingDay) {
+        List<Object[]> batch = new ArrayList<>(CALENDAR_BATCH_SIZE);
+        int seq = firstSeq;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            boolean working = workingDay.test(day);
+            if (!day.equals(from) && working) {
+                seq++;
+            }
+            LocalDate monthStart = day.with(TemporalAdjusters.firstDayOfMonth());
+            batch.add(new Object[]{
+                Date.valueOf(day),
+                working ? 1 : 0,
+                seq,
+                Date.valueOf(day.with(DayOfWeek.MONDAY)),
+                Date.valueOf(monthStart),
+                Date.valueOf(monthStart.withMonth((day.getMonthValue() - 1) / 3 * 3 + 1))
+            });
+            if (batch.size() == CALENDAR_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(INSERT_CALENDAR_DAY, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_CALENDAR_DAY, batch);
+        }
+        log.info("Workload calendar filled: {} ~ {}", from, to);
+    }
+
+    // 參數為 [群組, 使用者..., 結束日, 開始日]；未指定使用者時只有一組不含使用者的參數
+    private static List<List<Object>> userChunks(String groupName, List<String> userFullnames,
+                                                 LocalDate endDate, LocalDate startDate) {
+        List<List<Object>> chunks = new ArrayList<>();
+        List<String> distinctUsers = userFullnames == null ? List.of() : new ArrayList<>(new LinkedHashSet<>(userFullnames));
+        int from = 0;
+        do {
+            List<String> chunk = distinctUsers.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, distinctUsers.size()));
+            List<Object> params = new ArrayList<>(chunk.size() + 3);
+            params.add(groupName);
+            params.addAll(chunk);
+            params.add(endDate);
+            params.add(startDate);
+            chunks.add(params);
+            from += IN_CLAUSE_CHUNK_SIZE;
+        } while (from < distinctUsers.size());
+        return chunks;
+    }
+
+    private static String userFilter(int userCount) {
+        return userCount == 0 ? ""
+            : "AND CONCAT(u.lastname, u.firstname) IN (" + String.join(", ", Collections.nCopies(userCount, "?")) + ")";
+    }
+
+    // 查詢範圍內的議題數與議題日期範圍
+    public record RollupStats(long issueCount, LocalDate firstDate, LocalDate lastDate) {
+
+        RollupStats merge(RollupStats other) {
+            return new RollupStats(issueCount + other.issueCount,
+                firstDate == null || (other.firstDate != null && other.firstDate.isBefore(firstDate)) ? other.firstDate : firstDate,
+                lastDate == null || (other.lastDate != null && other.lastDate.isAfter(lastDate)) ? other.lastDate : lastDate);
+        }
+    }
+}
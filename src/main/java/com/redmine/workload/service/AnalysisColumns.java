@@ -0,0 +1,88 @@
+package com.redmine.workload.service;
+
+import com.redmine.workload.model.WorkloadAnalysis2D;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 2D 分析列的欄位工時（每日模式為每天、週／月／季模式為期間軸上的每個期間），以百分之一小時表示
+public final class AnalysisColumns {
+
+    private AnalysisColumns() {
+    }
+
+    public static boolean isDaily(String timeGranularity) {
+        return !PeriodAxis.isPeriodGranularity(timeGranularity);
+    }
+
+    // 每日模式回傳 null
+    public static PeriodAxis periodAxis(LocalDate startDate, LocalDate endDate, String timeGranularity) {
+        return isDaily(timeGranularity) ? null : PeriodAxis.of(startDate, endDate, timeGranularity);
+    }
+
+    public static int columnCount(LocalDate startDate, LocalDate endDate, PeriodAxis periodAxis) {
+        return periodAxis == null ? (int) (endDate.toEpochDay() - startDate.toEpochDay() + 1) : periodAxis.size();
+    }
+
+    // 將列的工時填入 cells（長度為欄數），週／月模式依期間標籤對應到欄位
+    public static void fill(WorkloadAnalysis2D row, PeriodAxis periodAxis, long[] cells) {
+        Arrays.fill(cells, 0);
+        if (periodAxis == null) {
+            if (row.getDailyHundredths() != null) {
+                System.arraycopy(row.getDailyHundredths(), 0, cells, 0, Math.min(cells.length, row.getDailyHundredths().length));
+            } else if (row.getDailyWorkloads() != null) {
+                List<WorkloadAnalysis2D.DailyWorkload> dailyWorkloads = row.getDailyWorkloads();
+                for (int i = 0; i < cells.length && i < dailyWorkloads.size(); i++) {
+                    cells[i] = WorkloadAnalysis2D.toHundredths(dailyWorkloads.get(i).getHours());
+                }
+            }
+        } else if (row.getPeriodWorkloads() != null) {
+            for (WorkloadAnalysis2D.PeriodWorkload period : row.getPeriodWorkloads()) {
+                int index = periodAxis.indexOf(period.getPeriod());
+                if (index >= 0) {
+                    cells[index] = WorkloadAnalysis2D.toHundredths(period.getHours());
+                }
+            }
+        }
+    }
+
+    // 由每日模式的分析結果重新切成週／月／季期間（不需重新查詢與計算工作日）。
+    // 輸出為新的列物件，並依週／月／季模式的排列（使用者總計在其專案之後）
+    public static List<WorkloadAnalysis2D> rebucket(List<WorkloadAnalysis2D> dailyRows, LocalDate startDate,
+                                                    LocalDate endDate, String timeGranularity) {
+        PeriodAxis periodAxis = PeriodAxis.of(startDate, endDate, timeGranularity);
+        int dayCount = columnCount(startDate, endDate, null);
+        long[] cells = new long[dayCount];
+
+        List<WorkloadAnalysis2D> result = new ArrayList<>(dailyRows.size());
+        WorkloadAnalysis2D pendingUserSummary = null;
+        for (WorkloadAnalysis2D row : dailyRows) {
+            fill(row, null, cells);
+            WorkloadAnalysis2D periodRow = new WorkloadAnalysis2D();
+            periodRow.setGroupName(row.getGroupName());
+            periodRow.setUserFullname(row.getUserFullname());
+            periodRow.setProjectName(row.getProjectName());
+            periodRow.setIssueId(row.getIssueId());
+            periodRow.setIssueSubject(row.getIssueSubject());
+            periodRow.setStartDate(row.getStartDate());
+            periodRow.setDueDate(row.getDueDate());
+            periodRow.setEstimatedHours(row.getEstimatedHours());
+            periodRow.setPeriodWorkloads(periodAxis.rollup(cells, 0, dayCount - 1));
+
+            if (row.getIssueId() != null && row.getIssueId() == -1L) {
+                if (pendingUserSummary != null) {
+                    result.add(pendingUserSummary);
+                }
+                pendingUserSummary = periodRow;
+            } else {
+                result.add(periodRow);
+            }
+        }
+        if (pendingUserSummary != null) {
+            result.add(pendingUserSummary);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,223 @@
+package com.redmine.workload.service;
+
+import com.redmine.workload.model.CostExclusionChange;
+import com.redmine.workload.model.CostExclusionResult;
+import com.redmine.workload.model.WorkloadAnalysis2D;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// 成本計算的伺服器端模型：保存每個議題在區間內的工時與勾選狀態，以及使用者／專案的總計。
+// 勾選變更時只對受影響的議題加減一次，不必重新掃描整份分析結果。
+public class CostExclusionModel implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Map<Long, IssueEntry> issues = new LinkedHashMap<>();
+    private final Map<String, Totals> userTotals = new LinkedHashMap<>();
+    private final Map<String, Totals> projectTotals = new LinkedHashMap<>();
+    private final Totals grandTotals;
+
+    private CostExclusionModel(int columnCount) {
+        this.grandTotals = new Totals(null, null, 0L, columnCount);
+    }
+
+    // 由分析結果建立模型，所有議題預設納入成本計算
+    public static CostExclusionModel of(List<WorkloadAnalysis2D> analysis, LocalDate startDate, LocalDate endDate,
+                                        String timeGranularity) {
+        PeriodAxis periodAxis = AnalysisColumns.periodAxis(startDate, endDate, timeGranularity);
+        int columnCount = AnalysisColumns.columnCount(startDate, endDate, periodAxis);
+        CostExclusionModel model = new CostExclusionModel(columnCount);
+
+        for (WorkloadAnalysis2D row : analysis) {
+            if (row.getIssueId() == null || row.getIssueId() < 0) {
+                continue;
+            }
+            long[] cells = new long[columnCount];
+            AnalysisColumns.fill(row, periodAxis, cells);
+            IssueEntry issue = new IssueEntry(row.getUserFullname(), row.getProjectName(), cells);
+            model.issues.put(row.getIssueId(), issue);
+            model.userTotals.computeIfAbsent(row.getUserFullname(),
+                user -> new Totals(user, "總計", -1L, columnCount)).issues.add(issue);
+            model.projectTotals.computeIfAbsent(projectKey(row.getUserFullname(), row.getProjectName()),
+                key -> new Totals(row.getUserFullname(), row.getProjectName(), -2L, columnCount)).issues.add(issue);
+            model.apply(issue, +1, true);
+        }
+        return model;
+    }
+
+    // 目前所有使用者／專案總計與整體統計
+    public synchronized CostExclusionResult snapshot() {
+        Set<Totals> all = new LinkedHashSet<>(userTotals.values());
+        all.addAll(projectTotals.values());
+        return result(all);
+    }
+
+    // 套用勾選變更，只回傳有變動的總計列
+    public synchronized CostExclusionResult applyChanges(List<CostExclusionChange> changes) {
+        Set<Totals> changed = new LinkedHashSet<>();
+        for (CostExclusionChange change : changes) {
+            long issueId = change.getIssueId() != null ? change.getIssueId() : 0L;
+            List<IssueEntry> affected;
+            if (issueId == -1L) {
+                Totals user = userTotals.get(change.getUserFullname());
+                affected = user != null ? user.issues : List.of();
+            } else if (issueId == -2L) {
+                Totals project = projectTotals.get(projectKey(change.getUserFullname(), change.getProjectName()));
+                affected = project != null ? project.issues : List.of();
+            } else {
+                IssueEntry issue = issues.get(issueId);
+                affected = issue != null ? List.of(issue) : List.of();
+            }
+            for (IssueEntry issue : affected) {
+                toggle(issue, change.isIncluded(), changed);
+            }
+        }
+        return result(changed);
+    }
+
+    private void toggle(IssueEntry issue, boolean included, Set<Totals> changed) {
+        if (issue.included == included) {
+            return;
+        }
+        // 先以原狀態扣除，再以新狀態加回
+        apply(issue, -1, issue.included);
+        issue.included = included;
+        apply(issue, +1, included);
+        if (issue.hundredths > 0) {
+            changed.add(userTotals.get(issue.userFullname));
+            changed.add(projectTotals.get(projectKey(issue.userFullname, issue.projectName)));
+        }
+    }
+
+    // 與頁面上的統計一致：只有區間內工時大於 0 的議題才計入
+    private void apply(IssueEntry issue, int sign, boolean included) {
+        if (issue.hundredths <= 0) {
+            return;
+        }
+        Totals user = userTotals.get(issue.userFullname);
+        Totals project = projectTotals.get(projectKey(issue.userFullname, issue.projectName));
+        for (Totals totals : new Totals[]{user, project, grandTotals}) {
+            totals.total += sign * issue.hundredths;
+            totals.totalCount += sign;
+            if (included) {
+                totals.included += sign * issue.hundredths;
+                totals.includedCount += sign;
+                if (totals != grandTotals) {
+                    for (int i = 0; i < issue.cells.length; i++) {
+                        totals.includedCells[issue.firstColumn + i] += sign * issue.cells[i];
+                    }
+                }
+            }
+        }
+    }
+
+    private CostExclusionResult result(Set<Totals> rows) {
+        CostExclusionResult result = new CostExclusionResult();
+        for (Totals totals : rows) {
+            result.getSummaryRows().add(totals.toSummaryRow());
+        }
+        result.setIncludedHours(oneDecimal(grandTotals.included));
+        result.setExcludedHours(oneDecimal(grandTotals.total - grandTotals.included));
+        result.setTotalHours(oneDecimal(grandTotals.total));
+        result.setIncludedItems(grandTotals.includedCount);
+        result.setTotalItems(grandTotals.totalCount);
+        return result;
+    }
+
+    private static String projectKey(String userFullname, String projectName) {
+        return userFullname + "|" + projectName;
+    }
+
+    private static BigDecimal oneDecimal(long hundredths) {
+        return BigDecimal.valueOf(hundredths, 2).setScale(1, RoundingMode.HALF_UP);
+    }
+
+    // 議題在區間內的工時；每欄工時只保存頭尾非零之間的部分
+    private static class IssueEntry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String userFullname;
+        private final String projectName;
+        private final int firstColumn;
+        private final long[] cells;
+        private final long hundredths;
+        private boolean included = true;
+
+        IssueEntry(String userFullname, String projectName, long[] allCells) {
+            this.userFullname = userFullname;
+            this.projectName = projectName;
+            int first = 0;
+            int last = allCells.length - 1;
+            while (first <= last && allCells[first] == 0) first++;
+            while (last >= first && allCells[last] == 0) last--;
+            this.firstColumn = first;
+            this.cells = new long[Math.max(0, last - first + 1)];
+            System.arraycopy(allCells, first, cells, 0, cells.length);
+            long sum = 0;
+            for (long cell : cells) {
+                sum += cell;
+            }
+            this.hundredths = sum;
+        }
+    }
+
+    // 使用者或專案總計（百分之一小時）；includedCells 為每欄只計入勾選議題的工時，issues 為底下的議題
+    private static class Totals implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final String userFullname;
+        private final String projectName;
+        private final Long issueId;
+        private final long[] includedCells;
+        private final List<IssueEntry> issues = new ArrayList<>();
+        private long total;
+        private long included;
+        private int totalCount;
+        private int includedCount;
+
+        Totals(String userFullname, String projectName, Long issueId, int columnCount) {
+            this.userFullname = userFullname;
+            this.projectName = projectName;
+            this.issueId = issueId;
+            this.includedCells = new long[issueId != 0L ? columnCount : 0];
+        }
+
+        CostExclusionResult.SummaryRow toSummaryRow() {
+            BigDecimal includedHours = oneDecimal(included);
+            BigDecimal excludedHours = oneDecimal(total - included);
+
+            CostExclusionResult.SummaryRow row = new CostExclusionResult.SummaryRow();
+            row.setUserFullname(userFullname);
+            row.setProjectName(projectName);
+            row.setIssueId(issueId);
+            row.setIncludedHours(includedHours);
+            row.setExcludedHours(excludedHours);
+            row.setTotalHours(oneDecimal(total));
+            row.setIncludedCount(includedCount);
+            row.setTotalCount(totalCount);
+            // 與頁面上總計列的文字格式相同
+            if (includedCount == totalCount) {
+                row.setIssueSubject("總工時: " + includedHours + " 小時");
+            } else if (includedCount == 0) {
+                row.setIssueSubject("總工時: 0.0 小時 (排除 " + excludedHours + " 小時)");
+            } else {
+                row.setIssueSubject("總工時: " + includedHours + " 小時 (排除 " + excludedHours + " 小時)");
+            }
+            List<BigDecimal> hours = new ArrayList<>(includedCells.length);
+            for (long cell : includedCells) {
+                hours.add(WorkloadAnalysis2D.fromHundredths(cell));
+            }
+            row.setHours(hours);
+            return row;
+        }
+    }
+}
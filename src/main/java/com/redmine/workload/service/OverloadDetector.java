@@ -0,0 +1,193 @@
+package com.redmine.workload.service;
+
+import com.redmine.workload.model.OverloadReport;
+import com.redmine.workload.model.WorkloadAnalysis2D;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+// 超載偵測：每個議題在查詢區間內是一段固定每日工時的區間 [開始日, 到期日]，
+// 把區間端點排序後由左到右掃描，工時只在端點改變，每一段只需計算一次工作日數，不必展開每日矩陣。
+// 資料須依使用者排序（與 2D 分析查詢相同），每位使用者讀完時輸出結果
+public class OverloadDetector {
+
+    private final WorkingDayCalculator workingDayCalculator;
+    private final ToLongFunction<String> capacityHundredths;
+    private final Consumer<OverloadReport.UserOverload> sink;
+    private final long startEpochDay;
+    private final int dayCount;
+
+    private String currentUser;
+    // 端點事件：高 32 位元為相對於查詢開始日的天數，低 32 位元為工時變化（百分之一小時）
+    private long[] events = new long[64];
+    private int eventCount;
+
+    // 掃描中的狀態
+    private OverloadReport.UserOverload result;
+    private long capacity;
+    private long peak;
+    private OverloadReport.Interval openOverload;
+    private long openOverloadPeak;
+    private OverloadReport.Interval openIdle;
+
+    public OverloadDetector(WorkingDayCalculator workingDayCalculator, LocalDate startDate, LocalDate endDate,
+                            ToLongFunction<String> capacityHundredths, Consumer<OverloadReport.UserOverload> sink) {
+        this.workingDayCalculator = workingDayCalculator;
+        this.capacityHundredths = capacityHundredths;
+        this.sink = sink;
+        this.startEpochDay = startDate.toEpochDay();
+        this.dayCount = (int) (endDate.toEpochDay() - startEpochDay + 1);
+    }
+
+    // 讀入一筆議題資料；資料須依使用者排序
+    public void accept(WorkloadAnalysis2D item) {
+        if (currentUser == null || !Objects.equals(currentUser, item.getUserFullname())) {
+            if (currentUser != null) {
+                finishUser();
+            }
+            currentUser = item.getUserFullname();
+        }
+
+        long dailyHundredths = WorkloadAnalysisAggregator.issueDailyHundredths(workingDayCalculator, item);
+        int fromDay = (int) Math.max(0, item.getStartDate().toEpochDay() - startEpochDay);
+        int toDay = (int) Math.min(dayCount - 1, item.getDueDate().toEpochDay() - startEpochDay);
+        if (dailyHundredths != 0 && fromDay <= toDay) {
+            addEvent(fromDay, dailyHundredths);
+            addEvent(toDay + 1, -dailyHundredths);
+        }
+    }
+
+    // 沒有任何議題的使用者：整個區間都是空檔
+    public void acceptIdleUser(String userFullname) {
+        if (currentUser != null) {
+            finishUser();
+        }
+        currentUser = userFullname;
+        finishUser();
+        currentUser = null;
+    }
+
+    // 所有資料讀完後呼叫，輸出最後一位使用者
+    public void finish() {
+        if (currentUser != null) {
+            finishUser();
+            currentUser = null;
+        }
+    }
+
+    private void addEvent(int day, long delta) {
+        if (eventCount == events.length) {
+            events = Arrays.copyOf(events, eventCount * 2);
+        }
+        events[eventCount++] = ((long) day << 32) | (delta & 0xFFFFFFFFL);
+    }
+
+    private void finishUser() {
+        result = new OverloadReport.UserOverload();
+        result.setUserFullname(currentUser);
+        capacity = capacityHundredths.applyAsLong(currentUser);
+        peak = 0;
+        openOverload = null;
+        openIdle = null;
+
+        // 依天數排序後掃描：相鄰兩個端點之間的每日工時固定
+        Arrays.sort(events, 0, eventCount);
+        long level = 0;
+        int segmentStart = 0;
+        int index = 0;
+        while (index < eventCount && segmentStart < dayCount) {
+            int day = (int) (events[index] >>> 32);
+            segment(segmentStart, Math.min(day, dayCount) - 1, level);
+            while (index < eventCount && (int) (events[index] >>> 32) == day) {
+                level += (int) events[index];
+                index++;
+            }
+            segmentStart = day;
+        }
+        segment(segmentStart, dayCount - 1, level);
+        closeOverload();
+        closeIdle();
+
+        result.setCapacityHours(WorkloadAnalysis2D.fromHundredths(capacity));
+        result.setPeakHours(WorkloadAnalysis2D.fromHundredths(peak));
+        sink.accept(result);
+        eventCount = 0;
+    }
+
+    // [fromDay, toDay] 之間每個工作日的工時都是 level；沒有工作日的區段不影響超載或空檔是否連續
+    private void segment(int fromDay, int toDay, long level) {
+        if (fromDay > toDay) {
+            return;
+        }
+        LocalDate from = LocalDate.ofEpochDay(startEpochDay + fromDay);
+        LocalDate to = LocalDate.ofEpochDay(startEpochDay + toDay);
+        int workingDays = (int) workingDayCalculator.countWorkingDays(from, to);
+        if (workingDays == 0) {
+            return;
+        }
+
+        if (level > peak) {
+            peak = level;
+            result.setPeakDate(firstWorkingDay(from));
+        }
+
+        if (level > capacity) {
+            closeIdle();
+            if (openOverload == null) {
+                openOverload = new OverloadReport.Interval();
+                openOverload.setStartDate(firstWorkingDay(from));
+                openOverloadPeak = 0;
+            }
+            openOverload.setEndDate(lastWorkingDay(to));
+            openOverload.setWorkingDays(openOverload.getWorkingDays() + workingDays);
+            openOverloadPeak = Math.max(openOverloadPeak, level);
+            result.setOverloadedDays(result.getOverloadedDays() + workingDays);
+        } else if (level == 0) {
+            closeOverload();
+            if (openIdle == null) {
+                openIdle = new OverloadReport.Interval();
+                openIdle.setStartDate(firstWorkingDay(from));
+                openIdle.setPeakHours(WorkloadAnalysis2D.fromHundredths(0));
+            }
+            openIdle.setEndDate(lastWorkingDay(to));
+            openIdle.setWorkingDays(openIdle.getWorkingDays() + workingDays);
+            result.setIdleDays(result.getIdleDays() + workingDays);
+        } else {
+            closeOverload();
+            closeIdle();
+        }
+    }
+
+    private void closeOverload() {
+        if (openOverload != null) {
+            openOverload.setPeakHours(WorkloadAnalysis2D.fromHundredths(openOverloadPeak));
+            result.getOverloads().add(openOverload);
+            openOverload = null;
+        }
+    }
+
+    private void closeIdle() {
+        if (openIdle != null) {
+            result.getIdleGaps().add(openIdle);
+            openIdle = null;
+        }
+    }
+
+    // 區段內至少有一個工作日時才會呼叫，迴圈最多跨過連續的假日
+    private LocalDate firstWorkingDay(LocalDate date) {
+        while (!workingDayCalculator.isWorkingDay(date)) {
+            date = date.plusDays(1);
+        }
+        return date;
+    }
+
+    private LocalDate lastWorkingDay(LocalDate date) {
+        while (!workingDayCalculator.isWorkingDay(date)) {
+            date = date.minusDays(1);
+        }
+        return date;
+    }
+}
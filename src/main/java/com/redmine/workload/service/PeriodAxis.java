@@ -0,0 +1,190 @@
+package com.redmine.workload.service;
+
+import com.redmine.workload.model.WorkloadAnalysis2D;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// 週／月／季期間軸：將查詢區間切成期間（頭尾限制在查詢範圍內），每個區間只建立一次標籤。
+// 各期間的工時由每日序列以區段累加求得（見 rollup），不需重新計算工作日
+public class PeriodAxis {
+
+    public static final List<String> GRANULARITIES = List.of("weekly", "monthly", "quarterly");
+
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM");
+    private static final DateTimeFormatter MONTH_LABEL_FORMATTER = DateTimeFormatter.ofPattern("MM月");
+    private static final WeekFields WEEK_FIELDS = WeekFields.of(DayOfWeek.MONDAY, 4); // 週一開始的週
+
+    private final String granularity;
+    private final long startEpochDay;
+    private final List<String> labels = new ArrayList<>();
+    private final List<LocalDate> startDates = new ArrayList<>();
+    private final List<LocalDate> endDates = new ArrayList<>();
+    private final Map<String, Integer> indexByLabel = new HashMap<>();
+    private int[] firstDays;
+    private int[] lastDays;
+
+    private PeriodAxis(String granularity, LocalDate startDate) {
+        this.granularity = granularity;
+        this.startEpochDay = startDate.toEpochDay();
+    }
+
+    // 週、月、季以外的顆粒度都視為每日
+    public static boolean isPeriodGranularity(String granularity) {
+        return GRANULARITIES.contains(granularity);
+    }
+
+    public static PeriodAxis of(LocalDate startDate, LocalDate endDate, String granularity) {
+        PeriodAxis axis = new PeriodAxis(granularity, startDate);
+        if ("weekly".equals(granularity)) {
+            axis.buildWeekly(startDate, endDate);
+        } else if ("quarterly".equals(granularity)) {
+            axis.buildQuarterly(startDate, endDate);
+        } else {
+            axis.buildMonthly(startDate, endDate);
+        }
+        axis.firstDays = new int[axis.size()];
+        axis.lastDays = new int[axis.size()];
+        for (int i = 0; i < axis.size(); i++) {
+            axis.firstDays[i] = (int) (axis.startDates.get(i).toEpochDay() - axis.startEpochDay);
+            axis.lastDays[i] = (int) (axis.endDates.get(i).toEpochDay() - axis.startEpochDay);
+            axis.indexByLabel.put(axis.labels.get(i), i);
+        }
+        return axis;
+    }
+
+    public String getGranularity() {
+        return granularity;
+    }
+
+    public int size() {
+        return labels.size();
+    }
+
+    public String getLabel(int index) {
+        return labels.get(index);
+    }
+
+    public LocalDate getStartDate(int index) {
+        return startDates.get(index);
+    }
+
+    public LocalDate getEndDate(int index) {
+        return endDates.get(index);
+    }
+
+    // 期間第一天／最後一天相對於查詢開始日的索引
+    public int getFirstDay(int index) {
+        return firstDays[index];
+    }
+
+    public int getLastDay(int index) {
+        return lastDays[index];
+    }
+
+    // 依標籤找期間索引，找不到時回傳 -1
+    public int indexOf(String label) {
+        Integer index = indexByLabel.get(label);
+        return index != null ? index : -1;
+    }
+
+    // 第一個結束日不早於 day 的期間索引
+    public int firstIndexEndingOnOrAfter(int day) {
+        int index = Arrays.binarySearch(lastDays, day);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    // 將每日序列（百分之一小時，索引相對於查詢開始日）在 [fromDay, toDay] 內依期間累加，
+    // 只回傳有工時的期間
+    public List<WorkloadAnalysis2D.PeriodWorkload> rollup(long[] dailyHundredths, int fromDay, int toDay) {
+        List<WorkloadAnalysis2D.PeriodWorkload> periodWorkloads = new ArrayList<>();
+        if (fromDay > toDay) {
+            return periodWorkloads;
+        }
+        for (int b = firstIndexEndingOnOrAfter(fromDay); b < size() && firstDays[b] <= toDay; b++) {
+            long hundredths = 0;
+            int last = Math.min(lastDays[b], toDay);
+            for (int day = Math.max(firstDays[b], fromDay); day <= last; day++) {
+                hundredths += dailyHundredths[day];
+            }
+            if (hundredths > 0) {
+                periodWorkloads.add(newPeriodWorkload(b, hundredths));
+            }
+        }
+        return periodWorkloads;
+    }
+
+    public WorkloadAnalysis2D.PeriodWorkload newPeriodWorkload(int index, long hundredths) {
+        BigDecimal hours = WorkloadAnalysis2D.fromHundredths(hundredths);
+        WorkloadAnalysis2D.PeriodWorkload periodWorkload = new WorkloadAnalysis2D.PeriodWorkload();
+        periodWorkload.setPeriod(labels.get(index));
+        periodWorkload.setStartDate(startDates.get(index));
+        periodWorkload.setEndDate(endDates.get(index));
+        periodWorkload.setHours(hours);
+        periodWorkload.setStatus(hours.toString());
+        periodWorkload.setGranularity(granularity);
+        return periodWorkload;
+    }
+
+    // 從查詢開始日所在週的週一開始，按週切分
+    private void buildWeekly(LocalDate startDate, LocalDate endDate) {
+        LocalDate current = startDate.with(DayOfWeek.MONDAY);
+        while (!current.isAfter(endDate)) {
+            LocalDate weekStart = current.isBefore(startDate) ? startDate : current;
+            LocalDate weekEnd = current.with(DayOfWeek.SUNDAY);
+            if (weekEnd.isAfter(endDate)) weekEnd = endDate;
+
+            // 產生週次標籤，包含月份資訊
+            int year = weekStart.getYear();
+            int weekOfYear = weekStart.get(WEEK_FIELDS.weekOfWeekBasedYear());
+            String monthInfo = weekStart.format(MONTH_LABEL_FORMATTER);
+            if (!weekStart.getMonth().equals(weekEnd.getMonth())) {
+                monthInfo += "~" + weekEnd.format(MONTH_LABEL_FORMATTER);
+            }
+            add(year + "-W" + String.format("%02d", weekOfYear) + "(" + monthInfo + ")", weekStart, weekEnd);
+            current = current.plusWeeks(1);
+        }
+    }
+
+    // 從查詢開始日所在月份開始，按月切分
+    private void buildMonthly(LocalDate startDate, LocalDate endDate) {
+        LocalDate current = startDate.with(TemporalAdjusters.firstDayOfMonth());
+        while (!current.isAfter(endDate)) {
+            LocalDate monthStart = current.isBefore(startDate) ? startDate : current;
+            LocalDate monthEnd = current.with(TemporalAdjusters.lastDayOfMonth());
+            if (monthEnd.isAfter(endDate)) monthEnd = endDate;
+
+            add(current.format(MONTH_FORMATTER), monthStart, monthEnd);
+            current = current.plusMonths(1);
+        }
+    }
+
+    // 從查詢開始日所在季度開始，按季切分
+    private void buildQuarterly(LocalDate startDate, LocalDate endDate) {
+        LocalDate current = startDate.withMonth((startDate.getMonthValue() - 1) / 3 * 3 + 1)
+            .with(TemporalAdjusters.firstDayOfMonth());
+        while (!current.isAfter(endDate)) {
+            LocalDate quarterStart = current.isBefore(startDate) ? startDate : current;
+            LocalDate quarterEnd = current.plusMonths(2).with(TemporalAdjusters.lastDayOfMonth());
+            if (quarterEnd.isAfter(endDate)) quarterEnd = endDate;
+
+            add(current.getYear() + "-Q" + ((current.getMonthValue() - 1) / 3 + 1), quarterStart, quarterEnd);
+            current = current.plusMonths(3);
+        }
+    }
+
+    private void add(String label, LocalDate start, LocalDate end) {
+        labels.add(label);
+        startDates.add(start);
+        endDates.add(end);
+    }
+}
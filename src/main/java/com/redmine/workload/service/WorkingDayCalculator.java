@@ -0,0 +1,208 @@
+package com.redmine.workload.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// 工作日計算器：週六、週日為非工作日，再套用國定假日與補班日（來源為設定檔或資料表）。
+// 每一年預先算好工作日位元集合與累計工作日數，「是否為工作日」與「兩日期之間的工作日數」都是查表
+@Component
+public class WorkingDayCalculator {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkingDayCalculator.class);
+
+    // 假日資料來源：file（workload.calendar.file）、db（workload.calendar.table）或 none（只排除週末）
+    @Value("${workload.calendar.source:file}")
+    private String source = "none";
+
+    @Value("${workload.calendar.file:classpath:calendar/holidays-tw.csv}")
+    private Resource holidayFile;
+
+    // 資料表欄位：cal_date DATE、is_working_day TINYINT（0 = 放假、1 = 補班）
+    @Value("${workload.calendar.table:workload_holidays}")
+    private String holidayTable = "workload_holidays";
+
+    @Autowired(required = false)
+    private JdbcTemplate jdbcTemplate;
+
+    // 目前的假日資料與依此建立的年度表；重新載入時整組替換，
+    // 計算中的請求繼續使用取得時的那一組，不會把舊假日資料算出的年度表放進新的一組
+    private volatile CalendarSnapshot calendar = new CalendarSnapshot(Map.of());
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    // 重新載入假日資料，以新的一組（尚無年度表）替換目前的一組
+    public synchronized void reload() {
+        Map<LocalDate, Boolean> loaded;
+        if ("file".equalsIgnoreCase(source)) {
+            loaded = loadFromFile();
+        } else if ("db".equalsIgnoreCase(source)) {
+            loaded = loadFromTable();
+        } else {
+            loaded = Map.of();
+        }
+        calendar = new CalendarSnapshot(loaded);
+        log.info("Working-day calendar loaded ({}): {} overrides", source, loaded.size());
+    }
+
+    public Map<String, Object> getStats() {
+        CalendarSnapshot current = calendar;
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("source", source);
+        stats.put("overrides", current.overrides.size());
+        stats.put("cachedYears", current.years.size());
+        return stats;
+    }
+
+    public boolean isWorkingDay(LocalDate date) {
+        return calendar.year(date.getYear()).isWorkingDay(date.getDayOfYear() - 1);
+    }
+
+    // 計算 [start, end] 之間的工作日數，end 早於 start 時回傳 0
+    public long countWorkingDays(LocalDate start, LocalDate end) {
+        if (start == null || end == null || end.isBefore(start)) {
+            return 0;
+        }
+
+        // 跨年的各年度都取自同一組假日資料
+        CalendarSnapshot current = calendar;
+        int startYear = start.getYear();
+        int endYear = end.getYear();
+        if (startYear == endYear) {
+            return current.year(startYear).count(start.getDayOfYear() - 1, end.getDayOfYear() - 1);
+        }
+
+        // 跨年：開始年的剩餘天數 + 中間完整年度 + 結束年的前段
+        YearCalendar first = current.year(startYear);
+        long workingDays = first.count(start.getDayOfYear() - 1, first.length - 1);
+        for (int y = startYear + 1; y < endYear; y++) {
+            workingDays += current.year(y).total();
+        }
+        return workingDays + current.year(endYear).count(0, end.getDayOfYear() - 1);
+    }
+
+    // 計算兩個期間重疊部分的工作日數，例如議題期間與某一週／某一月的交集
+    public long countOverlapWorkingDays(LocalDate firstStart, LocalDate firstEnd,
+                                        LocalDate secondStart, LocalDate secondEnd) {
+        LocalDate overlapStart = firstStart.isAfter(secondStart) ? firstStart : secondStart;
+        LocalDate overlapEnd = firstEnd.isBefore(secondEnd) ? firstEnd : secondEnd;
+        return countWorkingDays(overlapStart, overlapEnd);
+    }
+
+    // 檔案格式：每行「日期,類型[,說明]」，類型為 holiday（放假）或 workday（補班），# 開頭為註解
+    private Map<LocalDate, Boolean> loadFromFile() {
+        Map<LocalDate, Boolean> loaded = new HashMap<>();
+        if (holidayFile == null || !holidayFile.exists()) {
+            log.warn("Holiday file not found: {}", holidayFile);
+            return loaded;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(holidayFile.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",", 3);
+                if (fields.length < 2) {
+                    throw new IllegalStateException("Invalid holiday entry: " + line);
+                }
+                String type = fields[1].trim();
+                if (!"holiday".equalsIgnoreCase(type) && !"workday".equalsIgnoreCase(type)) {
+                    throw new IllegalStateException("Unknown holiday type: " + line);
+                }
+                loaded.put(LocalDate.parse(fields[0].trim()), "workday".equalsIgnoreCase(type));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return loaded;
+    }
+
+    private Map<LocalDate, Boolean> loadFromTable() {
+        if (!holidayTable.matches("[A-Za-z0-9_]+")) {
+            throw new IllegalStateException("Invalid holiday table name: " + holidayTable);
+        }
+        Map<LocalDate, Boolean> loaded = new HashMap<>();
+        jdbcTemplate.query("SELECT cal_date, is_working_day FROM " + holidayTable, rs -> {
+            loaded.put(rs.getDate("cal_date").toLocalDate(), rs.getBoolean("is_working_day"));
+        });
+        return loaded;
+    }
+
+    // 一組假日資料（與週末規則不同的日期：false = 放假（國定假日、補假），true = 補班）
+    // 與依此建立的年度表，年度表在第一次用到時建立
+    private static final class CalendarSnapshot {
+        private final Map<LocalDate, Boolean> overrides;
+        private final Map<Integer, YearCalendar> years = new ConcurrentHashMap<>();
+
+        CalendarSnapshot(Map<LocalDate, Boolean> overrides) {
+            this.overrides = Map.copyOf(overrides);
+        }
+
+        YearCalendar year(int year) {
+            return years.computeIfAbsent(year, y -> new YearCalendar(y, overrides));
+        }
+    }
+
+    // 單一年度的工作日表：bits 為每天是否為工作日，prefix[d] 為該年前 d 天的工作日數
+    private static class YearCalendar {
+        private final int length;
+        private final long[] bits;
+        private final int[] prefix;
+
+        YearCalendar(int year, Map<LocalDate, Boolean> overrides) {
+            LocalDate first = LocalDate.of(year, 1, 1);
+            this.length = first.lengthOfYear();
+            this.bits = new long[(length + 63) / 64];
+            this.prefix = new int[length + 1];
+
+            LocalDate date = first;
+            for (int day = 0; day < length; day++) {
+                Boolean override = overrides.get(date);
+                boolean working = override != null ? override
+                    : date.getDayOfWeek() != DayOfWeek.SATURDAY && date.getDayOfWeek() != DayOfWeek.SUNDAY;
+                if (working) {
+                    bits[day >> 6] |= 1L << day;
+                }
+                prefix[day + 1] = prefix[day] + (working ? 1 : 0);
+                date = date.plusDays(1);
+            }
+        }
+
+        boolean isWorkingDay(int day) {
+            return (bits[day >> 6] & (1L << day)) != 0;
+        }
+
+        // 年內第 from 到第 to 天（含，從 0 起算）的工作日數
+        int count(int from, int to) {
+            return prefix[to + 1] - prefix[from];
+        }
+
+        int total() {
+            return prefix[length];
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.redmine.workload.service;
+
+import com.redmine.workload.model.WorkloadAnalysis2D;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+// 單次走訪的 2D 分析彙總器：依 SQL 排序（使用者 → 專案 → 議題）逐列讀入，
+// 每位使用者讀完時輸出使用者總計、專案總計與議題列，不建立依使用者／專案分組的中間 Map。
+// 每列只計算一次每日序列，週／月／季模式再由期間軸將每日序列累加成各期間的工時
+public class WorkloadAnalysisAggregator {
+
+    private final WorkingDayCalculator workingDayCalculator;
+    private final Consumer<WorkloadAnalysis2D> sink;
+    private final boolean compactDailyMatrix;
+    private final boolean daily;
+
+    private final long startEpochDay;
+    private final int dayCount;
+
+    // 查詢區間內每天是否為工作日（含國定假日與補班，見 WorkingDayCalculator）
+    private final boolean[] workingDays;
+    // 週／月／季模式：查詢區間切成的期間，以及累加期間用的每日暫存陣列（議題列不保留每日序列）
+    private PeriodAxis periodAxis;
+    private long[] periodScratch;
+
+    // 目前處理中的使用者與專案
+    private String currentUser;
+    private String currentGroup;
+    private String currentProject;
+
+    // 專案與使用者總計的差分陣列（長度 dayCount + 1）
+    private long[] userTotals;
+    private long[] projectTotals;
+
+    // 目前使用者已完成的專案列（專案總計 + 議題），以及目前專案的議題列
+    private final List<WorkloadAnalysis2D> userRows = new ArrayList<>();
+    private final List<WorkloadAnalysis2D> projectIssues = new ArrayList<>();
+
+    // 展開每日序列與計算總計累計的時間（奈秒），供 WorkloadMetrics 記錄各階段耗時
+    private long expandNanos;
+    private long summarizeNanos;
+
+    public WorkloadAnalysisAggregator(WorkingDayCalculator workingDayCalculator,
+                                      LocalDate startDate, LocalDate endDate, String timeGranularity,
+                                      boolean compactDailyMatrix, Consumer<WorkloadAnalysis2D> sink) {
+        this.workingDayCalculator = workingDayCalculator;
+        this.compactDailyMatrix = compactDailyMatrix;
+        this.sink = sink;
+        this.daily = !PeriodAxis.isPeriodGranularity(timeGranularity);
+        this.startEpochDay = startDate.toEpochDay();
+        this.dayCount = (int) (endDate.toEpochDay() - startEpochDay + 1);
+
+        workingDays = new boolean[dayCount];
+        for (int day = 0; day < dayCount; day++) {
+            workingDays[day] = workingDayCalculator.isWorkingDay(LocalDate.ofEpochDay(startEpochDay + day));
+        }
+        if (!daily) {
+            periodAxis = PeriodAxis.of(startDate, endDate, timeGranularity);
+            periodScratch = new long[dayCount];
+        }
+    }
+
+    // 讀入一筆議題資料；資料須依使用者、專案排序
+    public void accept(WorkloadAnalysis2D item) {
+        if (currentUser == null || !Objects.equals(currentUser, item.getUserFullname())) {
+            if (currentUser != null) {
+                finishUser();
+            }
+            currentUser = item.getUserFullname();
+            currentGroup = item.getGroupName();
+            currentProject = item.getProjectName();
+            userTotals = new long[dayCount + 1];
+            projectTotals = new long[dayCount + 1];
+        } else if (!Objects.equals(currentProject, item.getProjectName())) {
+            finishProject();
+            currentProject = item.getProjectName();
+            projectTotals = new long[dayCount + 1];
+        }
+
+        long start = System.nanoTime();
+        accumulate(item);
+        expandNanos += System.nanoTime() - start;
+        projectIssues.add(item);
+    }
+
+    // 所有資料讀完後呼叫，輸出最後一位使用者
+    public void finish() {
+        if (currentUser != null) {
+            finishUser();
+            currentUser = null;
+        }
+    }
+
+    public long getExpandNanos() {
+        return expandNanos;
+    }
+
+    public long getSummarizeNanos() {
+        return summarizeNanos;
+    }
+
+    // 計算議題每日平均工時（基於議題本身的工作日數），以百分之一小時表示（超載偵測使用相同的分攤規則）
+    static long issueDailyHundredths(WorkingDayCalculator workingDayCalculator, WorkloadAnalysis2D item) {
+        long issueWorkDays = workingDayCalculator.countWorkingDays(item.getStartDate(), item.getDueDate());
+        if (issueWorkDays > 0 && item.getEstimatedHours() != null) {
+            return WorkloadAnalysis2D.toHundredths(item.getEstimatedHours().divide(
+                BigDecimal.valueOf(issueWorkDays), 2, RoundingMode.HALF_UP));
+        }
+        return 0;
+    }
+
+    private void accumulate(WorkloadAnalysis2D item) {
+        long dailyHundredths = issueDailyHundredths(workingDayCalculator, item);
+        long[] issueDailyWorkloads = daily ? new long[dayCount] : periodScratch;
+
+        int fromDay = (int) Math.max(0, item.getStartDate().toEpochDay() - startEpochDay);
+        int toDay = (int) Math.min(dayCount - 1, item.getDueDate().toEpochDay() - startEpochDay);
+        if (fromDay <= toDay) {
+            for (int day = fromDay; day <= toDay; day++) {
+                if (workingDays[day]) {
+                    issueDailyWorkloads[day] = dailyHundredths;
+                }
+            }
+            // 專案與使用者總計以差分陣列累加，非工作日於輸出時歸零
+            projectTotals[fromDay] += dailyHundredths;
+            projectTotals[toDay + 1] -= dailyHundredths;
+            userTotals[fromDay] += dailyHundredths;
+            userTotals[toDay + 1] -= dailyHundredths;
+        }
+
+        if (daily) {
+            setDailyMatrix(item, issueDailyWorkloads);
+        } else {
+            // 只累加與議題重疊的期間，之後清空暫存陣列供下一個議題使用
+            item.setPeriodWorkloads(periodAxis.rollup(issueDailyWorkloads, fromDay, toDay));
+            for (int day = fromDay; day <= toDay; day++) {
+                issueDailyWorkloads[day] = 0;
+            }
+        }
+    }
+
+    private void finishProject() {
+        WorkloadAnalysis2D projectSummary = new WorkloadAnalysis2D();
+        projectSummary.setGroupName(currentGroup);
+        projectSummary.setUserFullname(currentUser);
+        projectSummary.setProjectName(currentProject);
+        projectSummary.setIssueId(-2L);
+
+        // 計算專案在查詢區間內的總工時
+        BigDecimal projectTotalHours = WorkloadAnalysis2D.fromHundredths(summarize(projectSummary, projectTotals));
+        projectSummary.setIssueSubject("專案總工時: " + projectTotalHours + " 小時");
+        projectSummary.setEstimatedHours(projectTotalHours);
+
+        userRows.add(projectSummary);
+        userRows.addAll(projectIssues);
+        projectIssues.clear();
+    }
+
+    private void finishUser() {
+        finishProject();
+
+        WorkloadAnalysis2D userSummary = new WorkloadAnalysis2D();
+        userSummary.setGroupName(currentGroup);
+        userSummary.setUserFullname(currentUser);
+        userSummary.setProjectName("總計");
+        userSummary.setIssueId(-1L);
+
+        // 計算使用者在查詢區間內的總工時
+        BigDecimal userTotalHours = WorkloadAnalysis2D.fromHundredths(summarize(userSummary, userTotals));
+        userSummary.setIssueSubject("總工時: " + userTotalHours + " 小時");
+        userSummary.setEstimatedHours(userTotalHours);
+
+        // 每日模式：使用者總計在最前；週／月／季模式：使用者總計在專案之後
+        if (daily) {
+            sink.accept(userSummary);
+        }
+        userRows.forEach(sink);
+        if (!daily) {
+            sink.accept(userSummary);
+        }
+        userRows.clear();
+    }
+
+    // 將總計寫入彙總列，回傳區間總工時（百分之一小時）
+    private long summarize(WorkloadAnalysis2D summary, long[] totals) {
+        long start = System.nanoTime();
+        // 差分陣列前綴和還原每日總計，非工作日不分配工時
+        long total = 0;
+        long[] dailyTotals = new long[dayCount];
+        long running = 0;
+        for (int day = 0; day < dayCount; day++) {
+            running += totals[day];
+            if (workingDays[day]) {
+                dailyTotals[day] = running;
+                total += running;
+            }
+        }
+        if (daily) {
+            setDailyMatrix(summary, dailyTotals);
+        } else {
+            summary.setPeriodWorkloads(periodAxis.rollup(dailyTotals, 0, dayCount - 1));
+        }
+        summarizeNanos += System.nanoTime() - start;
+        return total;
+    }
+
+    // 設定列的精簡每日矩陣；未啟用精簡模式時立即展開為 DailyWorkload 清單
+    private void setDailyMatrix(WorkloadAnalysis2D row, long[] dailyHundredths) {
+        row.setDailyStartEpochDay(startEpochDay);
+        row.setDailyHundredths(dailyHundredths);
+        row.setDailyWorkingDays(workingDays);
+        row.setDailyWorkloads(null);
+        if (!compactDailyMatrix) {
+            row.setDailyWorkloads(new ArrayList<>(row.getDailyWorkloads()));
+            row.setDailyHundredths(null);
+        }
+    }
+}
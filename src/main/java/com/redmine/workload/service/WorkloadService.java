@@ -1,32 +1,130 @@
 package com.redmine.workload.service;
 
+import com.redmine.workload.cache.AnalysisResultCache;
+import com.redmine.workload.cache.IssueSnapshotStore;
+import com.redmine.workload.cache.LookupCache;
+import com.redmine.workload.metrics.WorkloadMetrics;
+import com.redmine.workload.model.OverloadReport;
 import com.redmine.workload.model.WorkloadData;
 import com.redmine.workload.model.WorkloadStatistics;
 import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.model.WorkloadRollup;
+import com.redmine.workload.model.WorkloadViewport;
 import com.redmine.workload.repository.WorkloadRepository;
+import com.redmine.workload.repository.WorkloadRollupRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
-import java.time.DayOfWeek;
-import java.time.temporal.WeekFields;
-import java.time.temporal.TemporalAdjusters;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 @Service
 public class WorkloadService {
 
+    // SQL 彙總的總計列與完整結果分開快取
+    private static final String ROLLUP_CACHE_SUFFIX = "#rollup";
+
     @Autowired
     private WorkloadRepository workloadRepository;
 
+    @Autowired
+    private WorkloadRollupRepository workloadRollupRepository;
+
+    @Autowired
+    private WorkingDayCalculator workingDayCalculator;
+
+    @Autowired
+    private LookupCache lookupCache;
+
+    @Autowired
+    private AnalysisResultCache analysisResultCache;
+
+    @Autowired
+    private IssueSnapshotStore issueSnapshotStore;
+
+    @Autowired
+    private WorkloadMetrics metrics;
+
+    // 每日分析是否使用精簡的百分之一小時陣列（false 時立即展開為 DailyWorkload 物件）
+    @Value("${workload.analysis.compact-daily-matrix:true}")
+    private boolean compactDailyMatrix = true;
+
+    // 平行模式：各使用者的區塊彼此獨立，可於有上限的執行緒池中同時計算
+    @Value("${workload.analysis.parallel.enabled:false}")
+    private boolean parallelEnabled;
+
+    // 平行計算的執行緒上限（所有請求共用），避免單一大型部門查詢占滿 CPU
+    @Value("${workload.analysis.parallel.max-threads:4}")
+    private int parallelMaxThreads = 4;
+
+    // 使用者數量達到此門檻才使用平行模式
+    @Value("${workload.analysis.parallel.min-users:8}")
+    private int parallelMinUsers = 8;
+
+    // 串流模式：查詢結果逐列直接餵入彙總器，不先建立原始資料清單（平行模式與快照模式需要完整清單，不適用）
+    @Value("${workload.analysis.streaming.enabled:true}")
+    private boolean streamingEnabled = true;
+
+    // 逐段輸出（NDJSON、矩陣、匯出）時每次查詢的使用者數
+    @Value("${workload.analysis.output.users-per-query:20}")
+    private int outputUsersPerQuery = 20;
+
+    // SQL 彙總模式：總計列改由 MySQL 與日曆表 JOIN 後依期間加總（需要建立 workload_calendar 資料表的權限）
+    @Value("${workload.analysis.sql-rollup.enabled:false}")
+    private boolean sqlRollupEnabled;
+
+    @Value("${workload.analysis.sql-rollup.granularities:monthly,quarterly}")
+    private List<String> sqlRollupGranularities = List.of("monthly", "quarterly");
+
+    // 查詢範圍內的議題數達到此門檻才使用 SQL 彙總，資料量小時 Java 彙總較快
+    @Value("${workload.analysis.sql-rollup.min-issues:5000}")
+    private long sqlRollupMinIssues = 5000;
+
+    // 日曆表最多涵蓋的年數；議題日期異常（例如誤植的年份）時改用 Java 彙總，避免產生過大的日曆表
+    @Value("${workload.analysis.sql-rollup.max-calendar-years:30}")
+    private int sqlRollupMaxCalendarYears = 30;
+
+    // 超載偵測的每日工時上限（小時）；capacities 以「姓名:小時」逗號分隔，個別設定使用者的上限
+    @Value("${workload.overload.default-capacity-hours:8}")
+    private BigDecimal overloadDefaultCapacityHours = BigDecimal.valueOf(8);
+
+    @Value("${workload.overload.capacities:}")
+    private String overloadCapacities = "";
+
+    private ForkJoinPool analysisPool;
+
+    @PostConstruct
+    public void initAnalysisPool() {
+        if (parallelEnabled) {
+            analysisPool = new ForkJoinPool(Math.max(1, parallelMaxThreads));
+        }
+    }
+
+    @PreDestroy
+    public void shutdownAnalysisPool() {
+        if (analysisPool != null) {
+            analysisPool.shutdown();
+        }
+    }
+
     public WorkloadStatistics getWorkloadStatistics(String groupName, String userFullname,
                                                     LocalDate startDate, LocalDate endDate) {
         List<WorkloadData> workloadList = workloadRepository.getWorkloadData(
@@ -78,12 +176,9 @@ public class WorkloadService {
             // 如果沒有指定使用者，查詢整個群組
             allWorkloadList = workloadRepository.getWorkloadData(groupName, null, startDate, endDate);
         } else {
-            // 為每個使用者查詢資料並合併
-            for (String userFullname : userFullnames) {
-                List<WorkloadData> userWorkloadList = workloadRepository.getWorkloadData(
-                    groupName, userFullname, startDate, endDate);
-                allWorkloadList.addAll(userWorkloadList);
-            }
+            // 以單次批次查詢取回所有指定使用者的資料（依使用者順序合併）
+            allWorkloadList = workloadRepository.getWorkloadDataForUsers(
+                groupName, userFullnames, startDate, endDate);
         }
 
         WorkloadStatistics statistics = new WorkloadStatistics();
@@ -123,559 +218,592 @@ public class WorkloadService {
         return statistics;
     }
 
+    // 匯出用：每筆明細依 SQL 排序（使用者 → 專案 → 議題）直接交給 sink，只累計統計數字，
+    // 不保留議題清單（回傳的 workloadList 為 null）；重複指定的使用者只輸出一次。
+    // sink 在 MySQL 串流結果集的讀取迴圈中呼叫，不可寫給用戶端（匯出時寫入暫存檔，查詢結束、連線歸還後才送出）
+    public WorkloadStatistics streamWorkloadStatisticsForMultipleUsers(String groupName, List<String> userFullnames,
+                                                                       LocalDate startDate, LocalDate endDate,
+                                                                       Consumer<WorkloadData> sink) {
+        StatisticsTotals totals = new StatisticsTotals();
+        workloadRepository.streamWorkloadData(groupName, userFullnames, startDate, endDate, totals.andThen(sink));
+        return totals.toStatistics();
+    }
+
     public List<String> getAllGroups() {
-        return workloadRepository.getAllGroups();
+        return lookupCache.getAllGroups();
     }
 
     public List<String> getUsersByGroup(String groupName) {
-        return workloadRepository.getUsersByGroup(groupName);
+        return lookupCache.getUsersByGroup(groupName);
+    }
+
+    // 區間內的非工作日（週末、國定假日；補班日不算），供頁面標示日期欄
+    public Set<LocalDate> getNonWorkingDays(LocalDate startDate, LocalDate endDate) {
+        Set<LocalDate> nonWorkingDays = new TreeSet<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            if (!workingDayCalculator.isWorkingDay(day)) {
+                nonWorkingDays.add(day);
+            }
+        }
+        return nonWorkingDays;
     }
 
     public List<WorkloadAnalysis2D> getWorkloadAnalysis2D(String groupName, String userFullname,
                                                           LocalDate startDate, LocalDate endDate, String timeGranularity) {
-        List<WorkloadAnalysis2D> rawData = workloadRepository.getWorkloadAnalysis2D(
-            groupName, userFullname, startDate, endDate);
+        List<WorkloadAnalysis2D> rawData = metrics.stage("fetch",
+            () -> workloadRepository.getWorkloadAnalysis2D(groupName, userFullname, startDate, endDate));
         
-        // 根據時間顆粒度選擇處理邏輯
-        if ("weekly".equals(timeGranularity)) {
-            return processWeeklyAnalysis(rawData, startDate, endDate);
-        } else if ("monthly".equals(timeGranularity)) {
-            return processMonthlyAnalysis(rawData, startDate, endDate);
-        } else {
-            return processDailyAnalysis(rawData, startDate, endDate);
-        }
+        return processAnalysis(rawData, startDate, endDate, timeGranularity);
     }
     
-    private List<WorkloadAnalysis2D> processDailyAnalysis(List<WorkloadAnalysis2D> rawData,
-                                                          LocalDate startDate, LocalDate endDate) {
-        // 按使用者分組數據
-        Map<String, List<WorkloadAnalysis2D>> userDataMap = rawData.stream()
-            .collect(Collectors.groupingBy(WorkloadAnalysis2D::getUserFullname));
-        
-        List<WorkloadAnalysis2D> result = new ArrayList<>();
-        
-        for (Map.Entry<String, List<WorkloadAnalysis2D>> userEntry : userDataMap.entrySet()) {
-            String userName = userEntry.getKey();
-            List<WorkloadAnalysis2D> userItems = userEntry.getValue();
-            
-            // 創建一個Map來存儲該使用者每天的總工時
-            Map<LocalDate, BigDecimal> userDailyTotals = new HashMap<>();
-            
-            // 初始化使用者每日工時為0
-            LocalDate current = startDate;
-            while (!current.isAfter(endDate)) {
-                userDailyTotals.put(current, BigDecimal.ZERO);
-                current = current.plusDays(1);
-            }
-            
-            // 按專案分組該使用者的數據
-            Map<String, List<WorkloadAnalysis2D>> projectDataMap = userItems.stream()
-                .collect(Collectors.groupingBy(WorkloadAnalysis2D::getProjectName));
-            
-            // 存儲專案每日工時的Map
-            Map<String, Map<LocalDate, BigDecimal>> projectDailyTotalsMap = new HashMap<>();
-            
-            // 處理每個專案
-            for (Map.Entry<String, List<WorkloadAnalysis2D>> projectEntry : projectDataMap.entrySet()) {
-                String projectName = projectEntry.getKey();
-                List<WorkloadAnalysis2D> projectItems = projectEntry.getValue();
-                
-                // 創建專案每日工時Map
-                Map<LocalDate, BigDecimal> projectDailyTotals = new HashMap<>();
-                current = startDate;
-                while (!current.isAfter(endDate)) {
-                    projectDailyTotals.put(current, BigDecimal.ZERO);
-                    current = current.plusDays(1);
-                }
-                
-                // 處理專案內的每個議題
-                for (WorkloadAnalysis2D item : projectItems) {
-                    // 使用議題本身的開始和結束時間（不受查詢區間限制）
-                    LocalDate issueStart = item.getStartDate();
-                    LocalDate issueEnd = item.getDueDate();
-                    
-                    // 計算議題本身期間的工作日數（排除週末）
-                    long issueWorkDays = 0;
-                    LocalDate issueDate = issueStart;
-                    while (!issueDate.isAfter(issueEnd)) {
-                        if (issueDate.getDayOfWeek() != DayOfWeek.SATURDAY && 
-                            issueDate.getDayOfWeek() != DayOfWeek.SUNDAY) {
-                            issueWorkDays++;
-                        }
-                        issueDate = issueDate.plusDays(1);
-                    }
-                    
-                    // 計算議題每日平均工時（基於議題本身的工作日數）
-                    BigDecimal issueDailyHours = BigDecimal.ZERO;
-                    if (issueWorkDays > 0 && item.getEstimatedHours() != null) {
-                        issueDailyHours = item.getEstimatedHours().divide(
-                            BigDecimal.valueOf(issueWorkDays), 2, RoundingMode.HALF_UP);
-                    }
-                    
-                    // 為議題創建每日工作量分佈
-                    List<WorkloadAnalysis2D.DailyWorkload> issueDailyWorkloads = new ArrayList<>();
-                    current = startDate;
-                    while (!current.isAfter(endDate)) {
-                        WorkloadAnalysis2D.DailyWorkload dailyWorkload = new WorkloadAnalysis2D.DailyWorkload();
-                        dailyWorkload.setDate(current);
-                        dailyWorkload.setWeekend(current.getDayOfWeek() == DayOfWeek.SATURDAY || 
-                                                current.getDayOfWeek() == DayOfWeek.SUNDAY);
-                        
-                        // 檢查是否在議題的實際時間範圍內且為工作日
-                        if (current.isBefore(issueStart) || current.isAfter(issueEnd) || dailyWorkload.isWeekend()) {
-                            // 不在議題時間範圍內或是週末
-                            dailyWorkload.setHours(BigDecimal.ZERO);
-                            dailyWorkload.setStatus("0.0");
-                        } else {
-                            // 在議題工作日範圍內，分配每日工時
-                            dailyWorkload.setHours(issueDailyHours);
-                            dailyWorkload.setStatus(issueDailyHours.toString());
-                            
-                            // 累加到專案每日總計
-                            projectDailyTotals.put(current, 
-                                projectDailyTotals.get(current).add(issueDailyHours));
-                            
-                            // 累加到使用者每日總計
-                            userDailyTotals.put(current, 
-                                userDailyTotals.get(current).add(issueDailyHours));
-                        }
-                        
-                        issueDailyWorkloads.add(dailyWorkload);
-                        current = current.plusDays(1);
-                    }
-                    
-                    item.setDailyWorkloads(issueDailyWorkloads);
-                }
-                
-                // 保存專案每日總計
-                projectDailyTotalsMap.put(projectName, projectDailyTotals);
+    // 單次走訪彙總：資料已依 SQL 的使用者、專案順序排列，直接串流輸出使用者／專案總計與議題列
+    private List<WorkloadAnalysis2D> processAnalysis(List<WorkloadAnalysis2D> rawData, LocalDate startDate,
+                                                     LocalDate endDate, String timeGranularity) {
+        if (analysisPool != null) {
+            List<List<WorkloadAnalysis2D>> userSlices = metrics.stage("group", () -> splitByUser(rawData));
+            if (userSlices.size() >= parallelMinUsers) {
+                return processAnalysisInParallel(userSlices, startDate, endDate, timeGranularity);
             }
-            
-            // 計算使用者在查詢區間內的總工時（基於每日分配的工時）
-            BigDecimal userTotalHours = userDailyTotals.values().stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            
-            // 創建使用者層級的匯總數據
-            WorkloadAnalysis2D userSummary = new WorkloadAnalysis2D();
-            userSummary.setGroupName(userItems.get(0).getGroupName());
-            userSummary.setUserFullname(userName);
-            userSummary.setProjectName("總計");
-            userSummary.setIssueId(-1L);
-            userSummary.setIssueSubject("總工時: " + userTotalHours + " 小時");
-            userSummary.setEstimatedHours(userTotalHours);
-            
-            // 為使用者總計創建每日工作量分佈
-            List<WorkloadAnalysis2D.DailyWorkload> userDailyWorkloads = new ArrayList<>();
-            current = startDate;
-            while (!current.isAfter(endDate)) {
-                WorkloadAnalysis2D.DailyWorkload dailyWorkload = new WorkloadAnalysis2D.DailyWorkload();
-                dailyWorkload.setDate(current);
-                dailyWorkload.setWeekend(current.getDayOfWeek() == DayOfWeek.SATURDAY || 
-                                        current.getDayOfWeek() == DayOfWeek.SUNDAY);
-                
-                BigDecimal dayTotal = userDailyTotals.get(current);
-                dailyWorkload.setHours(dayTotal);
-                dailyWorkload.setStatus(dayTotal.toString());
-                
-                userDailyWorkloads.add(dailyWorkload);
-                current = current.plusDays(1);
+        }
+        return aggregate(rawData, startDate, endDate, timeGranularity);
+    }
+
+    // 平行模式：每位使用者各自彙總，再依原本的使用者順序組合結果
+    private List<WorkloadAnalysis2D> processAnalysisInParallel(List<List<WorkloadAnalysis2D>> userSlices,
+                                                               LocalDate startDate, LocalDate endDate,
+                                                               String timeGranularity) {
+        List<CompletableFuture<List<WorkloadAnalysis2D>>> futures = new ArrayList<>(userSlices.size());
+        for (List<WorkloadAnalysis2D> userSlice : userSlices) {
+            futures.add(CompletableFuture.supplyAsync(
+                () -> aggregate(userSlice, startDate, endDate, timeGranularity), analysisPool));
+        }
+
+        List<WorkloadAnalysis2D> result = new ArrayList<>();
+        try {
+            for (CompletableFuture<List<WorkloadAnalysis2D>> future : futures) {
+                result.addAll(future.join());
             }
-            userSummary.setDailyWorkloads(userDailyWorkloads);
-            result.add(userSummary);
-            
-            // 添加專案層級數據
-            for (Map.Entry<String, List<WorkloadAnalysis2D>> projectEntry : projectDataMap.entrySet()) {
-                String projectName = projectEntry.getKey();
-                List<WorkloadAnalysis2D> projectItems = projectEntry.getValue();
-                
-                // 計算專案在查詢區間內的總工時（基於每日分配的工時）
-                Map<LocalDate, BigDecimal> projectDailyTotals = projectDailyTotalsMap.get(projectName);
-                BigDecimal projectTotalHours = projectDailyTotals.values().stream()
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-                
-                // 創建專案層級的匯總數據
-                WorkloadAnalysis2D projectSummary = new WorkloadAnalysis2D();
-                projectSummary.setGroupName(userItems.get(0).getGroupName());
-                projectSummary.setUserFullname(userName);
-                projectSummary.setProjectName(projectName);
-                projectSummary.setIssueId(-2L);
-                projectSummary.setIssueSubject("專案總工時: " + projectTotalHours + " 小時");
-                projectSummary.setEstimatedHours(projectTotalHours);
-                
-                // 為專案創建每日工作量分佈
-                List<WorkloadAnalysis2D.DailyWorkload> projectDailyWorkloads = new ArrayList<>();
-                
-                current = startDate;
-                while (!current.isAfter(endDate)) {
-                    WorkloadAnalysis2D.DailyWorkload dailyWorkload = new WorkloadAnalysis2D.DailyWorkload();
-                    dailyWorkload.setDate(current);
-                    dailyWorkload.setWeekend(current.getDayOfWeek() == DayOfWeek.SATURDAY || 
-                                            current.getDayOfWeek() == DayOfWeek.SUNDAY);
-                    
-                    BigDecimal dayTotal = projectDailyTotals.get(current);
-                    dailyWorkload.setHours(dayTotal);
-                    dailyWorkload.setStatus(dayTotal.toString());
-                    
-                    projectDailyWorkloads.add(dailyWorkload);
-                    current = current.plusDays(1);
-                }
-                projectSummary.setDailyWorkloads(projectDailyWorkloads);
-                result.add(projectSummary);
-                
-                // 添加專案下的具體議題（已在上面處理過每日工作量）
-                result.addAll(projectItems);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
+            throw e;
         }
-        
         return result;
     }
-    
-    private List<WorkloadAnalysis2D> processWeeklyAnalysis(List<WorkloadAnalysis2D> rawData,
-                                                           LocalDate startDate, LocalDate endDate) {
-        // 按使用者分組數據
-        Map<String, List<WorkloadAnalysis2D>> userDataMap = rawData.stream()
-            .collect(Collectors.groupingBy(WorkloadAnalysis2D::getUserFullname));
-        
+
+    // 將已排序的資料切成每位使用者一段（子清單檢視，不複製資料）；
+    // 同一次查詢的姓名為字串字典中的共用實例，相鄰列比較多半以 == 即可判定
+    private List<List<WorkloadAnalysis2D>> splitByUser(List<WorkloadAnalysis2D> rawData) {
+        List<List<WorkloadAnalysis2D>> slices = new ArrayList<>();
+        int from = 0;
+        for (int i = 1; i <= rawData.size(); i++) {
+            if (i == rawData.size() || !Objects.equals(rawData.get(i).getUserFullname(),
+                                                       rawData.get(from).getUserFullname())) {
+                slices.add(rawData.subList(from, i));
+                from = i;
+            }
+        }
+        return slices;
+    }
+
+    private List<WorkloadAnalysis2D> aggregate(List<WorkloadAnalysis2D> rawData, LocalDate startDate,
+                                               LocalDate endDate, String timeGranularity) {
         List<WorkloadAnalysis2D> result = new ArrayList<>();
-        WeekFields weekFields = WeekFields.of(DayOfWeek.MONDAY, 4); // 週一開始的週
-        
-        for (Map.Entry<String, List<WorkloadAnalysis2D>> userEntry : userDataMap.entrySet()) {
-            String userName = userEntry.getKey();
-            List<WorkloadAnalysis2D> userItems = userEntry.getValue();
-            
-            // 創建一個Map來存儲該使用者每週的總工時
-            Map<String, BigDecimal> userWeeklyTotals = new HashMap<>();
-            
-            // 按專案分組該使用者的數據
-            Map<String, List<WorkloadAnalysis2D>> projectDataMap = userItems.stream()
-                .collect(Collectors.groupingBy(WorkloadAnalysis2D::getProjectName));
-            
-            // 處理每個專案
-            for (Map.Entry<String, List<WorkloadAnalysis2D>> projectEntry : projectDataMap.entrySet()) {
-                String projectName = projectEntry.getKey();
-                List<WorkloadAnalysis2D> projectItems = projectEntry.getValue();
-                
-                Map<String, BigDecimal> projectWeeklyTotals = new HashMap<>();
-                
-                // 處理專案內的每個議題
-                for (WorkloadAnalysis2D item : projectItems) {
-                    LocalDate issueStart = item.getStartDate();
-                    LocalDate issueEnd = item.getDueDate();
-                    
-                    // 計算議題的工作日數
-                    long issueWorkDays = 0;
-                    LocalDate issueDate = issueStart;
-                    while (!issueDate.isAfter(issueEnd)) {
-                        if (issueDate.getDayOfWeek() != DayOfWeek.SATURDAY && 
-                            issueDate.getDayOfWeek() != DayOfWeek.SUNDAY) {
-                            issueWorkDays++;
-                        }
-                        issueDate = issueDate.plusDays(1);
-                    }
-                    
-                    BigDecimal issueDailyHours = BigDecimal.ZERO;
-                    if (issueWorkDays > 0 && item.getEstimatedHours() != null) {
-                        issueDailyHours = item.getEstimatedHours().divide(
-                            BigDecimal.valueOf(issueWorkDays), 2, RoundingMode.HALF_UP);
-                    }
-                    
-                    // 按週分配工時
-                    List<WorkloadAnalysis2D.PeriodWorkload> periodWorkloads = new ArrayList<>();
-                    Map<String, BigDecimal> issueWeeklyTotals = new HashMap<>();
-                    
-                    // 從使用者輸入的開始日期開始，按週計算
-                    LocalDate current = startDate.with(DayOfWeek.MONDAY); // 確保從週一開始
-                    while (!current.isAfter(endDate)) {
-                        LocalDate weekStart = current;
-                        LocalDate weekEnd = current.with(DayOfWeek.SUNDAY);
-                        
-                        // 限制週末日期在使用者指定範圍內
-                        if (weekStart.isBefore(startDate)) weekStart = startDate;
-                        if (weekEnd.isAfter(endDate)) weekEnd = endDate;
-                        
-                        // 產生週次標籤，包含月份資訊
-                        int year = weekStart.getYear();
-                        int weekOfYear = weekStart.get(weekFields.weekOfWeekBasedYear());
-                        String monthInfo = weekStart.format(DateTimeFormatter.ofPattern("MM月"));
-                        if (!weekStart.getMonth().equals(weekEnd.getMonth())) {
-                            monthInfo += "~" + weekEnd.format(DateTimeFormatter.ofPattern("MM月"));
-                        }
-                        String weekKey = year + "-W" + String.format("%02d", weekOfYear) + "(" + monthInfo + ")";
-                        
-                        // 計算該週在議題期間內的工作日數，且在使用者指定範圍內
-                        BigDecimal weekHours = BigDecimal.ZERO;
-                        LocalDate weekDay = weekStart;
-                        while (!weekDay.isAfter(weekEnd)) {
-                            if (weekDay.getDayOfWeek() != DayOfWeek.SATURDAY && 
-                                weekDay.getDayOfWeek() != DayOfWeek.SUNDAY &&
-                                !weekDay.isBefore(issueStart) && !weekDay.isAfter(issueEnd) &&
-                                !weekDay.isBefore(startDate) && !weekDay.isAfter(endDate)) {
-                                weekHours = weekHours.add(issueDailyHours);
-                            }
-                            weekDay = weekDay.plusDays(1);
-                        }
-                        
-                        if (weekHours.compareTo(BigDecimal.ZERO) > 0) {
-                            issueWeeklyTotals.put(weekKey, weekHours);
-                            projectWeeklyTotals.put(weekKey, 
-                                projectWeeklyTotals.getOrDefault(weekKey, BigDecimal.ZERO).add(weekHours));
-                            userWeeklyTotals.put(weekKey, 
-                                userWeeklyTotals.getOrDefault(weekKey, BigDecimal.ZERO).add(weekHours));
-                        }
-                        
-                        current = current.plusWeeks(1);
-                    }
-                    
-                    // 為議題創建週期工作量
-                    for (Map.Entry<String, BigDecimal> weekEntry : issueWeeklyTotals.entrySet()) {
-                        WorkloadAnalysis2D.PeriodWorkload periodWorkload = new WorkloadAnalysis2D.PeriodWorkload();
-                        periodWorkload.setPeriod(weekEntry.getKey());
-                        periodWorkload.setHours(weekEntry.getValue());
-                        periodWorkload.setStatus(weekEntry.getValue().toString());
-                        periodWorkload.setGranularity("weekly");
-                        periodWorkloads.add(periodWorkload);
-                    }
-                    
-                    item.setPeriodWorkloads(periodWorkloads);
-                }
-                
-                // 為專案創建週工作量摘要
-                WorkloadAnalysis2D projectSummary = new WorkloadAnalysis2D();
-                projectSummary.setGroupName(projectItems.get(0).getGroupName());
-                projectSummary.setUserFullname(userName);
-                projectSummary.setProjectName(projectName);
-                projectSummary.setIssueId(-2L);
-                
-                // 計算專案在查詢區間內的總工時（基於週工時累加）
-                BigDecimal projectTotalHours = projectWeeklyTotals.values().stream()
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-                projectSummary.setIssueSubject("專案總工時: " + projectTotalHours + " 小時");
-                projectSummary.setEstimatedHours(projectTotalHours);
-                
-                List<WorkloadAnalysis2D.PeriodWorkload> projectPeriodWorkloads = new ArrayList<>();
-                for (Map.Entry<String, BigDecimal> weekEntry : projectWeeklyTotals.entrySet()) {
-                    WorkloadAnalysis2D.PeriodWorkload periodWorkload = new WorkloadAnalysis2D.PeriodWorkload();
-                    periodWorkload.setPeriod(weekEntry.getKey());
-                    periodWorkload.setHours(weekEntry.getValue());
-                    periodWorkload.setStatus(weekEntry.getValue().toString());
-                    periodWorkload.setGranularity("weekly");
-                    projectPeriodWorkloads.add(periodWorkload);
-                }
-                projectSummary.setPeriodWorkloads(projectPeriodWorkloads);
-                result.add(projectSummary);
-                result.addAll(projectItems);
+        WorkloadAnalysisAggregator aggregator = new WorkloadAnalysisAggregator(
+            workingDayCalculator, startDate, endDate, timeGranularity, compactDailyMatrix, result::add);
+        for (WorkloadAnalysis2D item : rawData) {
+            aggregator.accept(item);
+        }
+        aggregator.finish();
+        recordAggregatorStages(aggregator);
+        return result;
+    }
+
+    // 記錄彙總器展開每日序列與計算總計的累計耗時
+    private void recordAggregatorStages(WorkloadAnalysisAggregator aggregator) {
+        metrics.recordStage("expand", aggregator.getExpandNanos());
+        metrics.recordStage("summarize", aggregator.getSummarizeNanos());
+    }
+
+    // 支援多使用者查詢的 2D 分析版本（結果經由快取，同一部門與區間重新整理時不需重新計算）
+    public List<WorkloadAnalysis2D> getWorkloadAnalysis2DForMultipleUsers(String groupName, List<String> userFullnames,
+                                                                          LocalDate startDate, LocalDate endDate, String timeGranularity) {
+        return analysisResultCache.get(groupName, userFullnames, startDate, endDate, timeGranularity,
+            () -> computeWorkloadAnalysis2DForMultipleUsers(groupName, userFullnames, startDate, endDate, timeGranularity));
+    }
+
+    // 延遲展開：只取使用者總計列
+    public List<WorkloadAnalysis2D> getWorkloadAnalysis2DUserSummaries(String groupName, List<String> userFullnames,
+                                                                       LocalDate startDate, LocalDate endDate, String timeGranularity) {
+        List<WorkloadAnalysis2D> summaries = new ArrayList<>();
+        for (WorkloadAnalysis2D row : getWorkloadAnalysis2DSummaries(
+                groupName, userFullnames, startDate, endDate, timeGranularity)) {
+            if (row.getIssueId() != null && row.getIssueId() == -1L) {
+                summaries.add(row);
             }
-            
-            // 創建使用者層級的匯總數據
-            WorkloadAnalysis2D userSummary = new WorkloadAnalysis2D();
-            userSummary.setGroupName(userItems.get(0).getGroupName());
-            userSummary.setUserFullname(userName);
-            userSummary.setProjectName("總計");
-            userSummary.setIssueId(-1L);
-            
-            // 計算使用者在查詢區間內的總工時（基於週工時累加）
-            BigDecimal userTotalHours = userWeeklyTotals.values().stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            userSummary.setIssueSubject("總工時: " + userTotalHours + " 小時");
-            userSummary.setEstimatedHours(userTotalHours);
-            
-            List<WorkloadAnalysis2D.PeriodWorkload> userPeriodWorkloads = new ArrayList<>();
-            for (Map.Entry<String, BigDecimal> weekEntry : userWeeklyTotals.entrySet()) {
-                WorkloadAnalysis2D.PeriodWorkload periodWorkload = new WorkloadAnalysis2D.PeriodWorkload();
-                periodWorkload.setPeriod(weekEntry.getKey());
-                periodWorkload.setHours(weekEntry.getValue());
-                periodWorkload.setStatus(weekEntry.getValue().toString());
-                periodWorkload.setGranularity("weekly");
-                userPeriodWorkloads.add(periodWorkload);
+        }
+        return summaries;
+    }
+
+    // 只取使用者與專案總計列（不含議題列），列的排列與完整結果相同。
+    // 週／月／季模式且資料量大時改由 SQL 彙總；否則由快取的完整結果篩選
+    public List<WorkloadAnalysis2D> getWorkloadAnalysis2DSummaries(String groupName, List<String> userFullnames,
+                                                                   LocalDate startDate, LocalDate endDate, String timeGranularity) {
+        if (useSqlRollup(timeGranularity)
+                && peekCachedAnalysis(groupName, userFullnames, startDate, endDate, timeGranularity) == null) {
+            return analysisResultCache.get(groupName, userFullnames, startDate, endDate, timeGranularity + ROLLUP_CACHE_SUFFIX,
+                () -> computeWorkloadAnalysis2DSummaries(groupName, userFullnames, startDate, endDate, timeGranularity));
+        }
+        return summaryRows(getWorkloadAnalysis2DForMultipleUsers(groupName, userFullnames, startDate, endDate, timeGranularity));
+    }
+
+    // 延遲展開：單一使用者的專案總計與議題列
+    public List<WorkloadAnalysis2D> getWorkloadAnalysis2DUserRows(String groupName, List<String> userFullnames,
+                                                                  LocalDate startDate, LocalDate endDate, String timeGranularity,
+                                                                  String userFullname) {
+        // SQL 彙總模式下完整結果通常不在快取中，只計算展開的這位使用者（各使用者的區塊彼此獨立）
+        List<String> users = userFullnames;
+        if (useSqlRollup(timeGranularity)
+                && peekCachedAnalysis(groupName, userFullnames, startDate, endDate, timeGranularity) == null) {
+            users = List.of(userFullname);
+        }
+
+        List<WorkloadAnalysis2D> rows = new ArrayList<>();
+        for (WorkloadAnalysis2D row : getWorkloadAnalysis2DForMultipleUsers(
+                groupName, users, startDate, endDate, timeGranularity)) {
+            if (Objects.equals(row.getUserFullname(), userFullname)
+                    && (row.getIssueId() == null || row.getIssueId() != -1L)) {
+                rows.add(row);
             }
-            userSummary.setPeriodWorkloads(userPeriodWorkloads);
-            result.add(userSummary);
         }
-        
-        return result;
+        return rows;
     }
-    
-    private List<WorkloadAnalysis2D> processMonthlyAnalysis(List<WorkloadAnalysis2D> rawData,
-                                                            LocalDate startDate, LocalDate endDate) {
-        // 按使用者分組數據
-        Map<String, List<WorkloadAnalysis2D>> userDataMap = rawData.stream()
-            .collect(Collectors.groupingBy(WorkloadAnalysis2D::getUserFullname));
-        
-        List<WorkloadAnalysis2D> result = new ArrayList<>();
-        DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    // 虛擬捲動用的可視區塊：從快取的完整結果取出列範圍與日期視窗（週／月模式為與視窗重疊的期間）
+    public WorkloadViewport getWorkloadAnalysis2DViewport(String groupName, List<String> userFullnames,
+                                                          LocalDate startDate, LocalDate endDate, String timeGranularity,
+                                                          int rowOffset, int rowLimit,
+                                                          LocalDate windowStart, LocalDate windowEnd) {
+        List<WorkloadAnalysis2D> analysis = getWorkloadAnalysis2DForMultipleUsers(
+            groupName, userFullnames, startDate, endDate, timeGranularity);
+        PeriodAxis periodAxis = AnalysisColumns.periodAxis(startDate, endDate, timeGranularity);
+        int columnCount = AnalysisColumns.columnCount(startDate, endDate, periodAxis);
+
+        // 日期視窗限制在查詢區間內，換算成欄位範圍 [fromColumn, toColumn)
+        LocalDate from = windowStart == null || windowStart.isBefore(startDate) ? startDate : windowStart;
+        LocalDate to = windowEnd == null || windowEnd.isAfter(endDate) ? endDate : windowEnd;
+        int fromColumn;
+        int toColumn;
+        if (from.isAfter(to)) {
+            fromColumn = 0;
+            toColumn = 0;
+        } else if (periodAxis == null) {
+            fromColumn = (int) (from.toEpochDay() - startDate.toEpochDay());
+            toColumn = (int) (to.toEpochDay() - startDate.toEpochDay()) + 1;
+        } else {
+            fromColumn = periodAxis.firstIndexEndingOnOrAfter((int) (from.toEpochDay() - startDate.toEpochDay()));
+            toColumn = periodAxis.firstIndexEndingOnOrAfter((int) (to.toEpochDay() - startDate.toEpochDay())) + 1;
+        }
+
+        WorkloadViewport viewport = new WorkloadViewport();
+        viewport.setTotalRows(analysis.size());
+        viewport.setTotalColumns(columnCount);
+        viewport.setRowOffset(Math.min(Math.max(0, rowOffset), analysis.size()));
+        viewport.setColumnOffset(fromColumn);
+        for (int column = fromColumn; column < toColumn; column++) {
+            WorkloadViewport.Column viewportColumn = new WorkloadViewport.Column();
+            if (periodAxis == null) {
+                LocalDate day = startDate.plusDays(column);
+                viewportColumn.setLabel(day.toString());
+                viewportColumn.setStartDate(day);
+                viewportColumn.setEndDate(day);
+            } else {
+                viewportColumn.setLabel(periodAxis.getLabel(column));
+                viewportColumn.setStartDate(periodAxis.getStartDate(column));
+                viewportColumn.setEndDate(periodAxis.getEndDate(column));
+            }
+            viewport.getColumns().add(viewportColumn);
+        }
+
+        long totalHundredths = 0;
+        for (WorkloadAnalysis2D row : analysis) {
+            if (row.getIssueId() != null && row.getIssueId() == -1L && row.getEstimatedHours() != null) {
+                totalHundredths += WorkloadAnalysis2D.toHundredths(row.getEstimatedHours());
+            }
+        }
+        viewport.setTotalHours(WorkloadAnalysis2D.fromHundredths(totalHundredths));
+
+        long[] cells = new long[columnCount];
+        int lastRow = (int) Math.min(analysis.size(), (long) viewport.getRowOffset() + Math.max(0, rowLimit));
+        for (int index = viewport.getRowOffset(); index < lastRow; index++) {
+            WorkloadAnalysis2D row = analysis.get(index);
+            AnalysisColumns.fill(row, periodAxis, cells);
+
+            WorkloadViewport.Row viewportRow = new WorkloadViewport.Row();
+            long issueId = row.getIssueId() != null ? row.getIssueId() : 0L;
+            viewportRow.setLevel(issueId == -1L ? 0 : (issueId == -2L ? 1 : 2));
+            viewportRow.setUserFullname(row.getUserFullname());
+            viewportRow.setProjectName(row.getProjectName());
+            viewportRow.setIssueId(row.getIssueId());
+            viewportRow.setIssueSubject(row.getIssueSubject());
+            viewportRow.setStartDate(row.getStartDate());
+            viewportRow.setDueDate(row.getDueDate());
+            viewportRow.setEstimatedHours(row.getEstimatedHours());
+
+            long rowTotal = 0;
+            for (long cell : cells) {
+                rowTotal += cell;
+            }
+            viewportRow.setTotalHours(WorkloadAnalysis2D.fromHundredths(rowTotal));
+            List<BigDecimal> hours = new ArrayList<>(toColumn - fromColumn);
+            for (int column = fromColumn; column < toColumn; column++) {
+                hours.add(WorkloadAnalysis2D.fromHundredths(cells[column]));
+            }
+            viewportRow.setHours(hours);
+            viewport.getRows().add(viewportRow);
+        }
+        return viewport;
+    }
+
+    // 超載偵測：每位使用者每日工時超過上限的區間與空檔。以議題區間端點掃描計算，不建立每日矩陣。
+    // capacityHours 為空時使用設定的預設上限；userCapacities 為「姓名:小時」，優先於設定檔
+    public OverloadReport getOverloadReport(String groupName, List<String> userFullnames,
+                                            LocalDate startDate, LocalDate endDate,
+                                            BigDecimal capacityHours, List<String> userCapacities) {
+        BigDecimal defaultCapacity = capacityHours != null ? capacityHours : overloadDefaultCapacityHours;
+        Map<String, Long> capacities = new HashMap<>();
+        parseCapacities(List.of(overloadCapacities.split(",")), capacities);
+        if (userCapacities != null) {
+            parseCapacities(userCapacities, capacities);
+        }
+        long defaultHundredths = WorkloadAnalysis2D.toHundredths(defaultCapacity);
+
+        Map<String, OverloadReport.UserOverload> byUser = new LinkedHashMap<>();
+        OverloadDetector detector = new OverloadDetector(workingDayCalculator, startDate, endDate,
+            user -> capacities.getOrDefault(user, defaultHundredths),
+            userOverload -> byUser.put(userOverload.getUserFullname(), userOverload));
+        if (useStreamingQuery()) {
+            workloadRepository.streamWorkloadAnalysis2D(groupName, userFullnames, startDate, endDate, detector::accept);
+        } else {
+            fetchAnalysis2DRows(groupName, userFullnames, startDate, endDate).forEach(detector::accept);
+        }
+        detector.finish();
+
+        // 區間內沒有任何議題的使用者整段都是空檔；依選取順序（未選取時為群組成員順序）輸出
+        List<String> users = userFullnames == null || userFullnames.isEmpty()
+            ? getUsersByGroup(groupName) : new ArrayList<>(new LinkedHashSet<>(userFullnames));
+        for (String user : users) {
+            if (!byUser.containsKey(user)) {
+                detector.acceptIdleUser(user);
+            }
+        }
+
+        OverloadReport report = new OverloadReport();
+        report.setGroupName(groupName);
+        report.setStartDate(startDate);
+        report.setEndDate(endDate);
+        report.setDefaultCapacityHours(defaultCapacity);
+        for (String user : users) {
+            report.getUsers().add(byUser.remove(user));
+        }
+        report.getUsers().addAll(byUser.values());
+        return report;
+    }
+
+    private static void parseCapacities(List<String> entries, Map<String, Long> capacities) {
+        for (String entry : entries) {
+            int separator = entry.lastIndexOf(':');
+            if (separator <= 0) {
+                continue;
+            }
+            capacities.put(entry.substring(0, separator).trim(),
+                WorkloadAnalysis2D.toHundredths(new BigDecimal(entry.substring(separator + 1).trim())));
+        }
+    }
+
+    // 建立成本計算模型（由快取的分析結果產生），之後的勾選變更只需增減受影響的議題
+    public CostExclusionModel createCostExclusionModel(String groupName, List<String> userFullnames,
+                                                       LocalDate startDate, LocalDate endDate, String timeGranularity) {
+        List<WorkloadAnalysis2D> analysis = getWorkloadAnalysis2DForMultipleUsers(
+            groupName, userFullnames, startDate, endDate, timeGranularity);
+        return CostExclusionModel.of(analysis, startDate, endDate, timeGranularity);
+    }
+
+    // 輸出用（NDJSON、矩陣、匯出）：快取中已有結果時直接逐列輸出；否則每次查詢 users-per-query 位使用者，
+    // 該段的列讀完（連線已歸還）才彙總並交給 sink，每彙總完一位使用者就送出，不建立完整的結果清單。
+    // 寫給慢速用戶端時不佔用連線，記憶體只保留一段使用者的資料；輸出順序與 getWorkloadAnalysis2DForMultipleUsers 相同
+    public void streamWorkloadAnalysis2DForMultipleUsers(String groupName, List<String> userFullnames,
+                                                         LocalDate startDate, LocalDate endDate, String timeGranularity,
+                                                         Consumer<WorkloadAnalysis2D> sink) {
+        List<WorkloadAnalysis2D> cached = peekCachedAnalysis(groupName, userFullnames, startDate, endDate, timeGranularity);
+        if (cached != null) {
+            cached.forEach(sink);
+            return;
+        }
+
+        // 未指定使用者時依群組成員的 SQL 排序（與整個群組查詢的 ORDER BY user_fullname 相同）分段
+        List<String> users = userFullnames == null || userFullnames.isEmpty()
+            ? workloadRepository.getUsersByGroup(groupName) : userFullnames;
+        // 同一個彙總器接收所有分段，餵入的列與一次查詢完全相同；使用者區塊結束時才輸出該使用者的列
+        WorkloadAnalysisAggregator aggregator = new WorkloadAnalysisAggregator(
+            workingDayCalculator, startDate, endDate, timeGranularity, compactDailyMatrix, sink);
+        for (int from = 0; from < users.size(); from += outputUsersPerQuery) {
+            List<String> page = users.subList(from, Math.min(from + outputUsersPerQuery, users.size()));
+            for (WorkloadAnalysis2D item : fetchAnalysis2DRows(groupName, page, startDate, endDate)) {
+                aggregator.accept(item);
+            }
+        }
+        aggregator.finish();
+        recordAggregatorStages(aggregator);
+    }
+
+    private List<WorkloadAnalysis2D> computeWorkloadAnalysis2DForMultipleUsers(String groupName, List<String> userFullnames,
+                                                                               LocalDate startDate, LocalDate endDate, String timeGranularity) {
+        List<WorkloadAnalysis2D> rebucketed = rebucketCachedDaily(groupName, userFullnames, startDate, endDate, timeGranularity);
+        if (rebucketed != null) {
+            return rebucketed;
+        }
+
+        if (useStreamingQuery()) {
+            List<WorkloadAnalysis2D> result = new ArrayList<>();
+            streamAnalysis(groupName, userFullnames, startDate, endDate, timeGranularity, result::add);
+            return result;
+        }
+
+        List<WorkloadAnalysis2D> allRawData = fetchAnalysis2DRows(groupName, userFullnames, startDate, endDate);
         
-        for (Map.Entry<String, List<WorkloadAnalysis2D>> userEntry : userDataMap.entrySet()) {
-            String userName = userEntry.getKey();
-            List<WorkloadAnalysis2D> userItems = userEntry.getValue();
-            
-            // 創建一個Map來存儲該使用者每月的總工時
-            Map<String, BigDecimal> userMonthlyTotals = new HashMap<>();
-            
-            // 按專案分組該使用者的數據
-            Map<String, List<WorkloadAnalysis2D>> projectDataMap = userItems.stream()
-                .collect(Collectors.groupingBy(WorkloadAnalysis2D::getProjectName));
-            
-            // 處理每個專案
-            for (Map.Entry<String, List<WorkloadAnalysis2D>> projectEntry : projectDataMap.entrySet()) {
-                String projectName = projectEntry.getKey();
-                List<WorkloadAnalysis2D> projectItems = projectEntry.getValue();
-                
-                Map<String, BigDecimal> projectMonthlyTotals = new HashMap<>();
-                
-                // 處理專案內的每個議題
-                for (WorkloadAnalysis2D item : projectItems) {
-                    LocalDate issueStart = item.getStartDate();
-                    LocalDate issueEnd = item.getDueDate();
-                    
-                    // 計算議題的工作日數
-                    long issueWorkDays = 0;
-                    LocalDate issueDate = issueStart;
-                    while (!issueDate.isAfter(issueEnd)) {
-                        if (issueDate.getDayOfWeek() != DayOfWeek.SATURDAY && 
-                            issueDate.getDayOfWeek() != DayOfWeek.SUNDAY) {
-                            issueWorkDays++;
-                        }
-                        issueDate = issueDate.plusDays(1);
-                    }
-                    
-                    BigDecimal issueDailyHours = BigDecimal.ZERO;
-                    if (issueWorkDays > 0 && item.getEstimatedHours() != null) {
-                        issueDailyHours = item.getEstimatedHours().divide(
-                            BigDecimal.valueOf(issueWorkDays), 2, RoundingMode.HALF_UP);
-                    }
-                    
-                    // 按月分配工時
-                    List<WorkloadAnalysis2D.PeriodWorkload> periodWorkloads = new ArrayList<>();
-                    Map<String, BigDecimal> issueMonthlyTotals = new HashMap<>();
-                    
-                    // 從使用者輸入的開始日期所在月份開始
-                    LocalDate current = startDate.with(TemporalAdjusters.firstDayOfMonth());
-                    while (!current.isAfter(endDate)) {
-                        String monthKey = current.format(monthFormatter);
-                        LocalDate monthStart = current.with(TemporalAdjusters.firstDayOfMonth());
-                        LocalDate monthEnd = current.with(TemporalAdjusters.lastDayOfMonth());
-                        
-                        // 限制月份範圍在使用者指定範圍內
-                        if (monthStart.isBefore(startDate)) monthStart = startDate;
-                        if (monthEnd.isAfter(endDate)) monthEnd = endDate;
-                        
-                        // 計算該月在議題期間內的工作日數
-                        BigDecimal monthHours = BigDecimal.ZERO;
-                        LocalDate monthDay = monthStart;
-                        while (!monthDay.isAfter(monthEnd)) {
-                            if (monthDay.getDayOfWeek() != DayOfWeek.SATURDAY && 
-                                monthDay.getDayOfWeek() != DayOfWeek.SUNDAY &&
-                                !monthDay.isBefore(issueStart) && !monthDay.isAfter(issueEnd) &&
-                                !monthDay.isBefore(startDate) && !monthDay.isAfter(endDate)) {
-                                monthHours = monthHours.add(issueDailyHours);
-                            }
-                            monthDay = monthDay.plusDays(1);
-                        }
-                        
-                        if (monthHours.compareTo(BigDecimal.ZERO) > 0) {
-                            issueMonthlyTotals.put(monthKey, monthHours);
-                            projectMonthlyTotals.put(monthKey, 
-                                projectMonthlyTotals.getOrDefault(monthKey, BigDecimal.ZERO).add(monthHours));
-                            userMonthlyTotals.put(monthKey, 
-                                userMonthlyTotals.getOrDefault(monthKey, BigDecimal.ZERO).add(monthHours));
-                        }
-                        
-                        current = current.plusMonths(1);
-                    }
-                    
-                    // 為議題創建週期工作量
-                    for (Map.Entry<String, BigDecimal> monthEntry : issueMonthlyTotals.entrySet()) {
-                        WorkloadAnalysis2D.PeriodWorkload periodWorkload = new WorkloadAnalysis2D.PeriodWorkload();
-                        periodWorkload.setPeriod(monthEntry.getKey());
-                        periodWorkload.setHours(monthEntry.getValue());
-                        periodWorkload.setStatus(monthEntry.getValue().toString());
-                        periodWorkload.setGranularity("monthly");
-                        periodWorkloads.add(periodWorkload);
+        // 依時間顆粒度（每日／每週／每月／每季）彙總
+        return processAnalysis(allRawData, startDate, endDate, timeGranularity);
+    }
+
+    private boolean useSqlRollup(String timeGranularity) {
+        return sqlRollupEnabled && WorkloadRollupRepository.supportsGranularity(timeGranularity)
+            && sqlRollupGranularities.contains(timeGranularity);
+    }
+
+    // 依資料量選擇彙總方式：議題數達門檻時由 SQL 依期間加總，否則由 Java 完整彙總後篩選總計列
+    private List<WorkloadAnalysis2D> computeWorkloadAnalysis2DSummaries(String groupName, List<String> userFullnames,
+                                                                        LocalDate startDate, LocalDate endDate, String timeGranularity) {
+        WorkloadRollupRepository.RollupStats stats = workloadRollupRepository.getRollupStats(
+            groupName, userFullnames, startDate, endDate);
+        if (stats.issueCount() < sqlRollupMinIssues || stats.issueCount() == 0
+                || stats.firstDate().plusYears(sqlRollupMaxCalendarYears).isBefore(stats.lastDate())) {
+            return summaryRows(getWorkloadAnalysis2DForMultipleUsers(groupName, userFullnames, startDate, endDate, timeGranularity));
+        }
+
+        // 日曆表須涵蓋所有議題的開始日與到期日（議題工作日數以整個議題期間計算）
+        LocalDate calendarFrom = stats.firstDate().isBefore(startDate) ? stats.firstDate() : startDate;
+        LocalDate calendarTo = stats.lastDate().isAfter(endDate) ? stats.lastDate() : endDate;
+        workloadRollupRepository.ensureCalendar(calendarFrom, calendarTo, workingDayCalculator::isWorkingDay);
+
+        List<WorkloadRollup> rollups = metrics.stage("fetch", () -> workloadRollupRepository.getWorkloadRollup(
+            groupName, userFullnames, startDate, endDate, timeGranularity));
+        return metrics.stage("summarize",
+            () -> buildRollupSummaries(rollups, userFullnames, startDate, endDate, timeGranularity));
+    }
+
+    // 由 (使用者, 專案, 期間) 工時組出總計列：每位使用者依序為各專案總計、最後為使用者總計，
+    // 與 WorkloadAnalysisAggregator 在週／月／季模式的輸出相同（只是不含議題列）
+    private List<WorkloadAnalysis2D> buildRollupSummaries(List<WorkloadRollup> rollups, List<String> userFullnames,
+                                                          LocalDate startDate, LocalDate endDate, String timeGranularity) {
+        PeriodAxis periodAxis = PeriodAxis.of(startDate, endDate, timeGranularity);
+        Map<String, List<WorkloadAnalysis2D>> rowsByUser = new LinkedHashMap<>();
+
+        int index = 0;
+        while (index < rollups.size()) {
+            String group = rollups.get(index).getGroupName();
+            String user = rollups.get(index).getUserFullname();
+            List<WorkloadAnalysis2D> userRows = new ArrayList<>();
+            long[] userBuckets = new long[periodAxis.size()];
+
+            while (index < rollups.size() && Objects.equals(group, rollups.get(index).getGroupName())
+                    && Objects.equals(user, rollups.get(index).getUserFullname())) {
+                String project = rollups.get(index).getProjectName();
+                long[] projectBuckets = new long[periodAxis.size()];
+                while (index < rollups.size() && Objects.equals(group, rollups.get(index).getGroupName())
+                        && Objects.equals(user, rollups.get(index).getUserFullname())
+                        && Objects.equals(project, rollups.get(index).getProjectName())) {
+                    WorkloadRollup rollup = rollups.get(index++);
+                    if (rollup.getBucketStart() != null) {
+                        // 期間第一天可能早於查詢開始日（例如查詢從月中開始），以查詢開始日對應到第一個期間
+                        int day = (int) Math.max(0, rollup.getBucketStart().toEpochDay() - startDate.toEpochDay());
+                        int bucket = periodAxis.firstIndexEndingOnOrAfter(day);
+                        projectBuckets[bucket] += rollup.getHundredths();
+                        userBuckets[bucket] += rollup.getHundredths();
                     }
-                    
-                    item.setPeriodWorkloads(periodWorkloads);
                 }
-                
-                // 為專案創建月工作量摘要
-                WorkloadAnalysis2D projectSummary = new WorkloadAnalysis2D();
-                projectSummary.setGroupName(projectItems.get(0).getGroupName());
-                projectSummary.setUserFullname(userName);
-                projectSummary.setProjectName(projectName);
-                projectSummary.setIssueId(-2L);
-                
-                // 計算專案在查詢區間內的總工時（基於月工時累加）
-                BigDecimal projectTotalHours = projectMonthlyTotals.values().stream()
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-                projectSummary.setIssueSubject("專案總工時: " + projectTotalHours + " 小時");
-                projectSummary.setEstimatedHours(projectTotalHours);
-                
-                List<WorkloadAnalysis2D.PeriodWorkload> projectPeriodWorkloads = new ArrayList<>();
-                for (Map.Entry<String, BigDecimal> monthEntry : projectMonthlyTotals.entrySet()) {
-                    WorkloadAnalysis2D.PeriodWorkload periodWorkload = new WorkloadAnalysis2D.PeriodWorkload();
-                    periodWorkload.setPeriod(monthEntry.getKey());
-                    periodWorkload.setHours(monthEntry.getValue());
-                    periodWorkload.setStatus(monthEntry.getValue().toString());
-                    periodWorkload.setGranularity("monthly");
-                    projectPeriodWorkloads.add(periodWorkload);
-                }
-                projectSummary.setPeriodWorkloads(projectPeriodWorkloads);
-                result.add(projectSummary);
-                result.addAll(projectItems);
+                WorkloadAnalysis2D projectSummary = summaryRow(periodAxis, projectBuckets, group, user, project, -2L);
+                projectSummary.setIssueSubject("專案總工時: " + projectSummary.getEstimatedHours() + " 小時");
+                userRows.add(projectSummary);
             }
-            
-            // 創建使用者層級的匯總數據
-            WorkloadAnalysis2D userSummary = new WorkloadAnalysis2D();
-            userSummary.setGroupName(userItems.get(0).getGroupName());
-            userSummary.setUserFullname(userName);
-            userSummary.setProjectName("總計");
-            userSummary.setIssueId(-1L);
-            
-            // 計算使用者在查詢區間內的總工時（基於月工時累加）
-            BigDecimal userTotalHours = userMonthlyTotals.values().stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            userSummary.setIssueSubject("總工時: " + userTotalHours + " 小時");
-            userSummary.setEstimatedHours(userTotalHours);
-            
-            List<WorkloadAnalysis2D.PeriodWorkload> userPeriodWorkloads = new ArrayList<>();
-            for (Map.Entry<String, BigDecimal> monthEntry : userMonthlyTotals.entrySet()) {
-                WorkloadAnalysis2D.PeriodWorkload periodWorkload = new WorkloadAnalysis2D.PeriodWorkload();
-                periodWorkload.setPeriod(monthEntry.getKey());
-                periodWorkload.setHours(monthEntry.getValue());
-                periodWorkload.setStatus(monthEntry.getValue().toString());
-                periodWorkload.setGranularity("monthly");
-                userPeriodWorkloads.add(periodWorkload);
+
+            WorkloadAnalysis2D userSummary = summaryRow(periodAxis, userBuckets, group, user, "總計", -1L);
+            userSummary.setIssueSubject("總工時: " + userSummary.getEstimatedHours() + " 小時");
+            userRows.add(userSummary);
+            rowsByUser.computeIfAbsent(user, key -> new ArrayList<>()).addAll(userRows);
+        }
+
+        if (userFullnames == null || userFullnames.isEmpty()) {
+            List<WorkloadAnalysis2D> result = new ArrayList<>();
+            rowsByUser.values().forEach(result::addAll);
+            return result;
+        }
+        // 依傳入的使用者順序輸出（重複指定的使用者會重複出現）
+        List<WorkloadAnalysis2D> result = new ArrayList<>();
+        for (String userFullname : userFullnames) {
+            List<WorkloadAnalysis2D> userRows = rowsByUser.get(userFullname);
+            if (userRows != null) {
+                result.addAll(userRows);
             }
-            userSummary.setPeriodWorkloads(userPeriodWorkloads);
-            result.add(userSummary);
         }
-        
         return result;
     }
 
-    // 支援多使用者查詢的 2D 分析版本
-    public List<WorkloadAnalysis2D> getWorkloadAnalysis2DForMultipleUsers(String groupName, List<String> userFullnames,
-                                                                          LocalDate startDate, LocalDate endDate, String timeGranularity) {
-        List<WorkloadAnalysis2D> allRawData = new ArrayList<>();
-        
+    private static WorkloadAnalysis2D summaryRow(PeriodAxis periodAxis, long[] buckets, String groupName,
+                                                 String userFullname, String projectName, long issueId) {
+        WorkloadAnalysis2D summary = new WorkloadAnalysis2D();
+        summary.setGroupName(groupName);
+        summary.setUserFullname(userFullname);
+        summary.setProjectName(projectName);
+        summary.setIssueId(issueId);
+
+        long total = 0;
+        List<WorkloadAnalysis2D.PeriodWorkload> periodWorkloads = new ArrayList<>();
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            total += buckets[bucket];
+            if (buckets[bucket] > 0) {
+                periodWorkloads.add(periodAxis.newPeriodWorkload(bucket, buckets[bucket]));
+            }
+        }
+        summary.setPeriodWorkloads(periodWorkloads);
+        summary.setEstimatedHours(WorkloadAnalysis2D.fromHundredths(total));
+        return summary;
+    }
+
+    private static List<WorkloadAnalysis2D> summaryRows(List<WorkloadAnalysis2D> analysis) {
+        List<WorkloadAnalysis2D> summaries = new ArrayList<>();
+        for (WorkloadAnalysis2D row : analysis) {
+            if (row.getIssueId() != null && row.getIssueId() < 0) {
+                summaries.add(row);
+            }
+        }
+        return summaries;
+    }
+
+    private boolean useStreamingQuery() {
+        return streamingEnabled && analysisPool == null && !issueSnapshotStore.isEnabled();
+    }
+
+    // 串流查詢直接餵入彙總器，記憶體只保留彙總後的列。
+    // 指定使用者時 SQL 依姓名排序，彙總結果先依使用者暫存，再依傳入順序輸出（重複指定的使用者會重複出現）
+    private void streamAnalysis(String groupName, List<String> userFullnames, LocalDate startDate, LocalDate endDate,
+                                String timeGranularity, Consumer<WorkloadAnalysis2D> sink) {
         if (userFullnames == null || userFullnames.isEmpty()) {
-            // 如果沒有指定使用者，查詢整個群組
-            allRawData = workloadRepository.getWorkloadAnalysis2D(groupName, null, startDate, endDate);
-        } else {
-            // 為每個使用者查詢資料並合併
-            for (String userFullname : userFullnames) {
-                List<WorkloadAnalysis2D> userRawData = workloadRepository.getWorkloadAnalysis2D(
-                    groupName, userFullname, startDate, endDate);
-                allRawData.addAll(userRawData);
+            WorkloadAnalysisAggregator aggregator = new WorkloadAnalysisAggregator(
+                workingDayCalculator, startDate, endDate, timeGranularity, compactDailyMatrix, sink);
+            streamIntoAggregator(groupName, null, startDate, endDate, aggregator);
+            return;
+        }
+
+        Map<String, List<WorkloadAnalysis2D>> rowsByUser = new HashMap<>();
+        WorkloadAnalysisAggregator aggregator = new WorkloadAnalysisAggregator(
+            workingDayCalculator, startDate, endDate, timeGranularity, compactDailyMatrix,
+            row -> rowsByUser.computeIfAbsent(row.getUserFullname(), user -> new ArrayList<>()).add(row));
+        streamIntoAggregator(groupName, userFullnames, startDate, endDate, aggregator);
+
+        long groupStart = System.nanoTime();
+        for (String userFullname : userFullnames) {
+            List<WorkloadAnalysis2D> userRows = rowsByUser.get(userFullname);
+            if (userRows != null) {
+                userRows.forEach(sink);
             }
         }
-        
-        // 根據時間顆粒度選擇處理邏輯
-        if ("weekly".equals(timeGranularity)) {
-            return processWeeklyAnalysis(allRawData, startDate, endDate);
-        } else if ("monthly".equals(timeGranularity)) {
-            return processMonthlyAnalysis(allRawData, startDate, endDate);
-        } else {
-            return processDailyAnalysis(allRawData, startDate, endDate);
+        metrics.recordStage("group", System.nanoTime() - groupStart);
+    }
+
+    // 查詢與彙總交錯進行：fetch 階段為整段串流時間扣除彙總器本身的時間（含 JDBC 讀取與列對應）
+    private void streamIntoAggregator(String groupName, List<String> userFullnames, LocalDate startDate, LocalDate endDate,
+                                      WorkloadAnalysisAggregator aggregator) {
+        long start = System.nanoTime();
+        workloadRepository.streamWorkloadAnalysis2D(groupName, userFullnames, startDate, endDate, aggregator::accept);
+        aggregator.finish();
+        long aggregatorNanos = aggregator.getExpandNanos() + aggregator.getSummarizeNanos();
+        metrics.recordStage("fetch", System.nanoTime() - start - aggregatorNanos);
+        recordAggregatorStages(aggregator);
+    }
+
+    // 快取中的結果；週／月／季模式沒有對應結果時，改由快取中的每日結果重新切分期間
+    private List<WorkloadAnalysis2D> peekCachedAnalysis(String groupName, List<String> userFullnames,
+                                                        LocalDate startDate, LocalDate endDate, String timeGranularity) {
+        List<WorkloadAnalysis2D> cached = analysisResultCache.peek(groupName, userFullnames, startDate, endDate, timeGranularity);
+        return cached != null ? cached : rebucketCachedDaily(groupName, userFullnames, startDate, endDate, timeGranularity);
+    }
+
+    // 週／月／季：同一查詢的每日結果已在快取中時，直接由每日序列重新切分期間，不需重新查詢與計算
+    private List<WorkloadAnalysis2D> rebucketCachedDaily(String groupName, List<String> userFullnames,
+                                                         LocalDate startDate, LocalDate endDate, String timeGranularity) {
+        if (!PeriodAxis.isPeriodGranularity(timeGranularity)) {
+            return null;
+        }
+        List<WorkloadAnalysis2D> dailyRows = analysisResultCache.peek(groupName, userFullnames, startDate, endDate, "daily");
+        return dailyRows != null ? AnalysisColumns.rebucket(dailyRows, startDate, endDate, timeGranularity) : null;
+    }
+
+    // 取得 2D 分析的原始議題資料（依使用者、專案排序）
+    private List<WorkloadAnalysis2D> fetchAnalysis2DRows(String groupName, List<String> userFullnames,
+                                                         LocalDate startDate, LocalDate endDate) {
+        return metrics.stage("fetch", () -> {
+            if (issueSnapshotStore.isEnabled()) {
+                // 增量模式：由群組議題快照取得資料，只重新讀取 updated_on 有異動的議題
+                return issueSnapshotStore.getWorkloadAnalysis2D(groupName, userFullnames, startDate, endDate);
+            } else if (userFullnames == null || userFullnames.isEmpty()) {
+                // 如果沒有指定使用者，查詢整個群組
+                return workloadRepository.getWorkloadAnalysis2D(groupName, null, startDate, endDate);
+            } else {
+                // 以單次批次查詢取回所有指定使用者的資料（依使用者順序合併）
+                return workloadRepository.getWorkloadAnalysis2DForUsers(
+                    groupName, userFullnames, startDate, endDate);
+            }
+        });
+    }
+
+    // 匯出統計摘要的累計值：議題數、已結案數、預估工時與日均工時總和
+    private static final class StatisticsTotals implements Consumer<WorkloadData> {
+
+        private int issues;
+        private int closed;
+        private BigDecimal estimatedHours = BigDecimal.ZERO;
+        private BigDecimal avgHoursPerDay = BigDecimal.ZERO;
+
+        @Override
+        public void accept(WorkloadData data) {
+            issues++;
+            if (data.getEstimatedHours() != null) {
+                estimatedHours = estimatedHours.add(data.getEstimatedHours());
+            }
+            if (data.getAvgHoursPerDay() != null) {
+                avgHoursPerDay = avgHoursPerDay.add(data.getAvgHoursPerDay());
+            }
+            if (data.getIsClosed() != null && data.getIsClosed()) {
+                closed++;
+            }
+        }
+
+        WorkloadStatistics toStatistics() {
+            WorkloadStatistics statistics = new WorkloadStatistics();
+            statistics.setTotalIssues(issues);
+            statistics.setTotalEstimatedHours(estimatedHours.setScale(2, RoundingMode.HALF_UP));
+            statistics.setClosedIssues(closed);
+            statistics.setOpenIssues(issues - closed);
+            if (issues > 0) {
+                statistics.setAvgHoursPerDay(avgHoursPerDay.divide(BigDecimal.valueOf(issues), 2, RoundingMode.HALF_UP));
+                statistics.setCompletionRate((double) closed / issues * 100);
+            } else {
+                statistics.setAvgHoursPerDay(BigDecimal.ZERO);
+                statistics.setCompletionRate(0.0);
+            }
+            return statistics;
         }
     }
 }
@@ -0,0 +1,16 @@
+-- SQL 彙總模式（workload.analysis.sql-rollup.enabled=true）使用的日曆表。
+-- 請由 DBA 在 Redmine 資料庫執行一次；應用程式只需要 SELECT / INSERT / DELETE 權限，
+-- 日曆資料由應用程式依工作日規則補齊。
+-- 若允許應用程式自行建立，可設定 workload.analysis.sql-rollup.create-calendar-table=true（需要 CREATE 權限）
+--
+-- working_day_seq 為自某一天起累計的工作日數（含當天），
+-- 議題的工作日數 = seq(到期日) - seq(開始日) + 開始日是否為工作日，不必逐日計數
+CREATE TABLE IF NOT EXISTS workload_calendar (
+    cal_date DATE NOT NULL PRIMARY KEY,
+    is_working_day TINYINT NOT NULL,
+    working_day_seq INT NOT NULL,
+    week_start DATE NOT NULL,
+    month_start DATE NOT NULL,
+    quarter_start DATE NOT NULL,
+    KEY idx_workload_calendar_working (is_working_day, cal_date)
+);
@@ -0,0 +1,131 @@
+package com.redmine.workload.cache;
+
+import com.redmine.workload.metrics.WorkloadMetrics;
+import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.repository.WorkloadRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 同一個鍵同時未命中時只計算一次；指紋在檢查間隔內不重複查詢
+class AnalysisResultCacheTest {
+
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    private static final LocalDate END = LocalDate.of(2025, 1, 31);
+
+    private final AtomicInteger fingerprintQueries = new AtomicInteger();
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private AnalysisResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        WorkloadMetrics metrics = new WorkloadMetrics(new SimpleMeterRegistry());
+        WorkloadRepository repository = new WorkloadRepository() {
+            @Override
+            public String getIssueFingerprint(String groupName) {
+                fingerprintQueries.incrementAndGet();
+                return "42@2025-01-01";
+            }
+        };
+
+        IssueFingerprints fingerprints = new IssueFingerprints();
+        ReflectionTestUtils.setField(fingerprints, "workloadRepository", repository);
+        ReflectionTestUtils.setField(fingerprints, "metrics", metrics);
+        ReflectionTestUtils.setField(fingerprints, "checkIntervalSeconds", 60L);
+        fingerprints.init();
+
+        cache = new AnalysisResultCache();
+        ReflectionTestUtils.setField(cache, "issueFingerprints", fingerprints);
+        ReflectionTestUtils.setField(cache, "metrics", metrics);
+        cache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentMissesForTheSameKeyComputeOnce() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<List<WorkloadAnalysis2D>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> cache.get("研發部", List.of("王小明"), START, END, "daily", () -> {
+                computations.incrementAndGet();
+                await(release);
+                return List.of(row("王小明"));
+            })));
+        }
+        // 等到其餘請求都已在等待第一個請求的結果
+        waitUntil(() -> ((Number) cache.getStats().get("inFlight")).intValue() == 1 && computations.get() == 1);
+        Thread.sleep(100);
+        release.countDown();
+
+        for (Future<List<WorkloadAnalysis2D>> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).extracting(WorkloadAnalysis2D::getUserFullname)
+                .containsExactly("王小明");
+        }
+        assertThat(computations).hasValue(1);
+        assertThat(cache.getStats().get("inFlight")).isEqualTo(0);
+        // 計算前取一次指紋，之後的命中在檢查間隔內共用同一次查詢
+        assertThat(fingerprintQueries).hasValue(1);
+    }
+
+    @Test
+    void waitingRequestsSeeTheFailureAndTheNextRequestRetries() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> first = executor.submit(() -> cache.get("研發部", null, START, END, "daily", () -> {
+            await(release);
+            throw new IllegalStateException("query failed");
+        }));
+        waitUntil(() -> ((Number) cache.getStats().get("inFlight")).intValue() == 1);
+        Future<?> second = executor.submit(() -> cache.get("研發部", null, START, END, "daily", List::of));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThatThrownBy(() -> first.get(10, TimeUnit.SECONDS)).hasRootCauseMessage("query failed");
+        assertThatThrownBy(() -> second.get(10, TimeUnit.SECONDS)).hasRootCauseMessage("query failed");
+        assertThat(cache.get("研發部", null, START, END, "daily", () -> List.of(row("王小明")))).hasSize(1);
+    }
+
+    private static WorkloadAnalysis2D row(String user) {
+        WorkloadAnalysis2D row = new WorkloadAnalysis2D();
+        row.setUserFullname(user);
+        row.setIssueId(1L);
+        return row;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -0,0 +1,124 @@
+package com.redmine.workload.cache;
+
+import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.repository.WorkloadRepository;
+import com.redmine.workload.support.RedmineTestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 增量更新後的快照必須與重新執行完整查詢的結果相同（含資料庫定序決定的順序），
+// 刪除議題與群組成員異動以筆數比對發現
+class IssueSnapshotStoreTest {
+
+    private static final String GROUP = "研發部";
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    private static final LocalDate END = LocalDate.of(2025, 3, 31);
+
+    private RedmineTestDatabase database;
+    private WorkloadRepository repository;
+    private IssueSnapshotStore store;
+    private LocalDateTime updatedOn = LocalDateTime.now().plusMinutes(1);
+
+    private int group;
+    private int alpha;
+    private int beta;
+    private int[] users;
+    private long[] issues;
+
+    @BeforeEach
+    void setUp() {
+        database = new RedmineTestDatabase();
+        repository = database.workloadRepository();
+
+        group = database.insertGroup(GROUP);
+        alpha = database.insertProject("Alpha");
+        beta = database.insertProject("beta");
+        users = new int[]{
+            database.insertUser(group, "陳", "大文"),
+            database.insertUser(group, "Wang", "Amy"),
+            database.insertUser(group, "lin", "bob")
+        };
+        issues = new long[users.length * 2];
+        for (int i = 0; i < users.length; i++) {
+            issues[2 * i] = database.insertIssue(alpha, users[i], START.plusDays(i), START.plusDays(i + 10),
+                BigDecimal.valueOf(16), false);
+            issues[2 * i + 1] = database.insertIssue(beta, users[i], START.plusDays(20), START.plusDays(40),
+                BigDecimal.valueOf(24), false);
+        }
+
+        store = new IssueSnapshotStore();
+        ReflectionTestUtils.setField(store, "workloadRepository", repository);
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "minSyncIntervalSeconds", 0L);
+        store.init();
+        assertMatchesFullQuery();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void patchedSnapshotKeepsDatabaseOrder() {
+        // 改派給另一位使用者並換專案，兩位使用者的區塊都要依資料庫順序重排
+        update("UPDATE issues SET assigned_to_id = ?, project_id = ? WHERE id = ?", users[2], alpha, issues[1]);
+        assertMatchesFullQuery();
+
+        long added = database.insertIssue(beta, users[1], START.plusDays(5), START.plusDays(6), BigDecimal.ONE, false);
+        update("UPDATE issues SET subject = ? WHERE id = ?", "新議題", added);
+        assertMatchesFullQuery();
+
+        // 移出查詢區間
+        update("UPDATE issues SET start_date = ?, due_date = ? WHERE id = ?",
+            END.plusDays(30), END.plusDays(40), issues[4]);
+        assertMatchesFullQuery();
+    }
+
+    @Test
+    void issueAssignedToUserMissingFromSnapshotTriggersFullLoad() {
+        int newcomer = database.insertUser(group, "Adams", "Zoe");
+        update("UPDATE issues SET assigned_to_id = ? WHERE id = ?", newcomer, issues[0]);
+        assertMatchesFullQuery();
+        assertThat(store.getWorkloadAnalysis2D(GROUP, null, START, END))
+            .extracting(WorkloadAnalysis2D::getUserFullname).contains("AdamsZoe");
+    }
+
+    @Test
+    void deletionsAndMembershipChangesAreDetectedByCount() {
+        database.jdbcTemplate().update("DELETE FROM issues WHERE id = ?", issues[3]);
+        assertMatchesFullQuery();
+
+        database.jdbcTemplate().update("DELETE FROM groups_users WHERE user_id = ?", users[0]);
+        assertMatchesFullQuery();
+        assertThat(store.getWorkloadAnalysis2D(GROUP, null, START, END))
+            .extracting(WorkloadAnalysis2D::getUserFullname).doesNotContain("陳大文");
+    }
+
+    private void update(String sql, Object... params) {
+        database.jdbcTemplate().update(sql, params);
+        // 每次異動的 updated_on 都晚於快照的水位
+        updatedOn = updatedOn.plusSeconds(1);
+        database.jdbcTemplate().update("UPDATE issues SET updated_on = ? WHERE id = ?",
+            Timestamp.valueOf(updatedOn), params[params.length - 1]);
+    }
+
+    private void assertMatchesFullQuery() {
+        List<WorkloadAnalysis2D> expected = repository.getWorkloadAnalysis2D(GROUP, null, START, END);
+        assertThat(store.getWorkloadAnalysis2D(GROUP, null, START, END)).isEqualTo(expected);
+
+        List<String> selected = List.of("linbob", "陳大文");
+        assertThat(store.getWorkloadAnalysis2D(GROUP, selected, START, END))
+            .isEqualTo(repository.getWorkloadAnalysis2DForUsers(GROUP, selected, START, END));
+    }
+}
@@ -0,0 +1,127 @@
+package com.redmine.workload.repository;
+
+import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.model.WorkloadData;
+import com.redmine.workload.support.RedmineTestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 多使用者批次查詢：指定 N 位使用者只執行一次 IN (...) 查詢（超過 500 位時分批），
+// 結果依傳入的使用者順序排列，與逐一查詢每位使用者後合併的結果相同
+class WorkloadRepositoryTest {
+
+    private static final String GROUP = "研發部";
+    private static final LocalDate START = LocalDate.of(2025, 1, 1);
+    private static final LocalDate END = LocalDate.of(2025, 3, 31);
+
+    private RedmineTestDatabase database;
+    private WorkloadRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        database = new RedmineTestDatabase();
+        repository = database.workloadRepository();
+
+        int group = database.insertGroup(GROUP);
+        int alpha = database.insertProject("Alpha");
+        int beta = database.insertProject("Beta");
+        // 姓名的字母順序（SQL ORDER BY）與測試指定的使用者順序不同
+        int[] users = {
+            database.insertUser(group, "陳", "大文"),
+            database.insertUser(group, "王", "小明"),
+            database.insertUser(group, "林", "美玲")
+        };
+        for (int i = 0; i < users.length; i++) {
+            database.insertIssue(alpha, users[i], START.plusDays(i), START.plusDays(i + 10), BigDecimal.valueOf(16), false);
+            database.insertIssue(beta, users[i], START.plusDays(20), START.plusDays(40), BigDecimal.valueOf(24), i == 0);
+            // 查詢區間外的議題不應出現
+            database.insertIssue(beta, users[i], END.plusDays(10), END.plusDays(20), BigDecimal.valueOf(8), false);
+        }
+        database.clearStatements();
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.close();
+    }
+
+    @Test
+    void workloadDataForUsersRunsOneInQueryInRequestedUserOrder() {
+        List<String> users = List.of("林美玲", "陳大文", "王小明");
+
+        List<WorkloadData> rows = repository.getWorkloadDataForUsers(GROUP, users, START, END);
+
+        assertThat(database.statements()).hasSize(1);
+        assertThat(database.statements().get(0)).contains("IN (?, ?, ?)");
+        assertThat(rows).extracting(WorkloadData::getUserFullname).containsExactly(
+            "林美玲", "林美玲", "陳大文", "陳大文", "王小明", "王小明");
+
+        database.clearStatements();
+        List<WorkloadData> perUser = new ArrayList<>();
+        for (String user : users) {
+            perUser.addAll(repository.getWorkloadData(GROUP, user, START, END));
+        }
+        assertThat(database.statements()).hasSize(users.size());
+        assertThat(rows).isEqualTo(perUser);
+    }
+
+    @Test
+    void analysis2DForUsersRunsOneInQueryInRequestedUserOrder() {
+        List<String> users = List.of("王小明", "林美玲");
+
+        List<WorkloadAnalysis2D> rows = repository.getWorkloadAnalysis2DForUsers(GROUP, users, START, END);
+
+        assertThat(database.statements()).hasSize(1);
+        assertThat(database.statements().get(0)).contains("IN (?, ?)");
+        assertThat(rows).extracting(WorkloadAnalysis2D::getUserFullname).containsExactly(
+            "王小明", "王小明", "林美玲", "林美玲");
+        assertThat(rows).extracting(WorkloadAnalysis2D::getProjectName).containsExactly(
+            "Alpha", "Beta", "Alpha", "Beta");
+
+        List<WorkloadAnalysis2D> perUser = new ArrayList<>();
+        for (String user : users) {
+            perUser.addAll(repository.getWorkloadAnalysis2D(GROUP, user, START, END));
+        }
+        assertThat(rows).isEqualTo(perUser);
+    }
+
+    @Test
+    void duplicateUsersAreQueriedOnceAndRepeatedInTheResult() {
+        List<WorkloadAnalysis2D> rows = repository.getWorkloadAnalysis2DForUsers(
+            GROUP, List.of("陳大文", "王小明", "陳大文"), START, END);
+
+        assertThat(database.statements()).hasSize(1);
+        assertThat(database.statements().get(0)).contains("IN (?, ?)");
+        assertThat(rows).extracting(WorkloadAnalysis2D::getUserFullname).containsExactly(
+            "陳大文", "陳大文", "王小明", "王小明", "陳大文", "陳大文");
+    }
+
+    @Test
+    void userListsLongerThanTheInClauseLimitAreChunked() {
+        List<String> users = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            users.add(String.format("不存在%04d", i));
+        }
+        users.add(300, "王小明");
+
+        List<WorkloadAnalysis2D> rows = repository.getWorkloadAnalysis2DForUsers(GROUP, users, START, END);
+
+        // 601 位使用者：500 + 101
+        assertThat(database.statements()).hasSize(2);
+        assertThat(rows).extracting(WorkloadAnalysis2D::getUserFullname).containsOnly("王小明").hasSize(2);
+    }
+
+    @Test
+    void emptyUserListRunsNoQuery() {
+        assertThat(repository.getWorkloadDataForUsers(GROUP, List.of(), START, END)).isEmpty();
+        assertThat(database.statements()).isEmpty();
+    }
+}
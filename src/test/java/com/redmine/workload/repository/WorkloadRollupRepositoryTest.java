@@ -0,0 +1,108 @@
+package com.redmine.workload.repository;
+
+import com.redmine.workload.support.RedmineTestDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 日曆表：預設不在執行期間建立資料表；工作日規則變更後的重建在交易中進行，
+// 重建期間其他連線仍讀到完整的舊日曆表，重建後的範圍不會縮小
+class WorkloadRollupRepositoryTest {
+
+    private static final LocalDate FIRST = LocalDate.of(2025, 1, 1);
+    private static final LocalDate LAST = LocalDate.of(2025, 12, 31);
+    private static final LocalDate HOLIDAY = LocalDate.of(2025, 10, 10);
+
+    private static final Predicate<LocalDate> WEEKDAYS =
+        day -> day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY;
+
+    private RedmineTestDatabase database;
+    private WorkloadRollupRepository repository;
+    private final ExecutorService reader = Executors.newSingleThreadExecutor();
+
+    @BeforeEach
+    void setUp() {
+        database = new RedmineTestDatabase();
+        repository = database.workloadRollupRepository();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reader.shutdownNow();
+        database.close();
+    }
+
+    @Test
+    void missingCalendarTableIsNotCreatedWithoutOptIn() {
+        ReflectionTestUtils.setField(repository, "createCalendarTable", false);
+
+        assertThatThrownBy(() -> repository.ensureCalendar(FIRST, LAST, WEEKDAYS))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("db/workload-calendar.sql");
+        assertThat(database.statements()).noneMatch(sql -> sql.toUpperCase().contains("CREATE TABLE"));
+    }
+
+    @Test
+    void staleCalendarIsRebuiltAtomicallyWithoutShrinking() throws Exception {
+        repository.ensureCalendar(FIRST, LAST, WEEKDAYS);
+        assertThat(calendarDays()).isEqualTo(365);
+        assertThat(isWorkingDay(HOLIDAY)).isTrue();
+
+        // 另一個執行個體以新的假日規則啟動，只需要較小的範圍
+        WorkloadRollupRepository restarted = database.workloadRollupRepository();
+        List<Long> seenDuringRebuild = new ArrayList<>();
+        Predicate<LocalDate> withHoliday = day -> {
+            if (day.equals(HOLIDAY.minusDays(1)) && seenDuringRebuild.isEmpty()) {
+                // 重建進行到一半時，由另一條連線讀取日曆表
+                seenDuringRebuild.add(await(() -> calendarDays()));
+                seenDuringRebuild.add(await(() -> isWorkingDay(HOLIDAY) ? 1L : 0L));
+            }
+            return !day.equals(HOLIDAY) && WEEKDAYS.test(day);
+        };
+        restarted.ensureCalendar(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 30), withHoliday);
+
+        assertThat(seenDuringRebuild).containsExactly(365L, 1L);
+        assertThat(calendarDays()).isEqualTo(365);
+        assertThat(isWorkingDay(HOLIDAY)).isFalse();
+        // 累計工作日數依新規則重新計算
+        assertThat(seq(LAST) - seq(FIRST) + 1)
+            .isEqualTo(FIRST.datesUntil(LAST.plusDays(1)).filter(withHoliday).count());
+    }
+
+    private long calendarDays() {
+        return database.jdbcTemplate().queryForObject("SELECT COUNT(*) FROM workload_calendar", Long.class);
+    }
+
+    private boolean isWorkingDay(LocalDate day) {
+        return database.jdbcTemplate().queryForObject(
+            "SELECT is_working_day FROM workload_calendar WHERE cal_date = ?", Integer.class, Date.valueOf(day)) == 1;
+    }
+
+    private long seq(LocalDate day) {
+        return database.jdbcTemplate().queryForObject(
+            "SELECT working_day_seq FROM workload_calendar WHERE cal_date = ?", Long.class, Date.valueOf(day));
+    }
+
+    private Long await(Callable<Long> query) {
+        try {
+            return reader.submit(query).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
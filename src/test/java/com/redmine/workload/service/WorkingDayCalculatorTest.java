@@ -0,0 +1,166 @@
+package com.redmine.workload.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 以逐日迴圈（原本的計算方式）為基準，隨機比對查表版的工作日數：
+// 涵蓋跨年、跨多年、單日與反向區間，以及國定假日與補班日的覆寫
+class WorkingDayCalculatorTest {
+
+    private static final LocalDate FIRST = LocalDate.of(2019, 1, 1);
+    private static final LocalDate LAST = LocalDate.of(2031, 12, 31);
+
+    @Test
+    void countWorkingDaysMatchesDayByDayLoopWithoutOverrides() {
+        WorkingDayCalculator calculator = calculator("none", null);
+        assertMatchesLoop(calculator, Map.of(), new SplittableRandom(1), 5000);
+    }
+
+    @Test
+    void countWorkingDaysMatchesDayByDayLoopWithRandomOverrides() {
+        SplittableRandom random = new SplittableRandom(42);
+        Map<LocalDate, Boolean> overrides = new HashMap<>();
+        StringBuilder file = new StringBuilder("# 隨機產生的假日與補班日\n");
+        long days = LAST.toEpochDay() - FIRST.toEpochDay() + 1;
+        for (int i = 0; i < 400; i++) {
+            LocalDate date = FIRST.plusDays(random.nextLong(days));
+            // 假日多半落在平日、補班多半落在週末，但兩種情況都要能處理
+            boolean workday = random.nextInt(4) == 0;
+            overrides.put(date, workday);
+            file.append(date).append(',').append(workday ? "workday" : "holiday").append(",測試\n");
+        }
+        // 年底與年初的覆寫，跨年區間的邊界一定會碰到
+        for (int year = FIRST.getYear(); year <= LAST.getYear(); year++) {
+            LocalDate newYear = LocalDate.of(year, 1, 1);
+            LocalDate newYearsEve = LocalDate.of(year, 12, 31);
+            overrides.put(newYear, false);
+            overrides.put(newYearsEve, true);
+            file.append(newYear).append(",holiday\n").append(newYearsEve).append(",workday\n");
+        }
+
+        WorkingDayCalculator calculator = calculator("file",
+            new ByteArrayResource(file.toString().getBytes(StandardCharsets.UTF_8)));
+        assertMatchesLoop(calculator, overrides, random, 5000);
+    }
+
+    @Test
+    void countWorkingDaysMatchesDayByDayLoopWithBundledHolidayFile() throws IOException {
+        Resource holidayFile = new ClassPathResource("calendar/holidays-tw.csv");
+        Map<LocalDate, Boolean> overrides = new HashMap<>();
+        for (String line : holidayFile.getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isBlank() && !line.startsWith("#")) {
+                String[] fields = line.trim().split(",");
+                overrides.put(LocalDate.parse(fields[0]), "workday".equals(fields[1]));
+            }
+        }
+        // 2025 年農曆春節：1/27～1/31 放假，2/8（週六）補班
+        assertThat(overrides).containsEntry(LocalDate.of(2025, 1, 27), false)
+            .containsEntry(LocalDate.of(2025, 2, 8), true);
+
+        WorkingDayCalculator calculator = calculator("file", holidayFile);
+        assertThat(calculator.countWorkingDays(LocalDate.of(2025, 1, 25), LocalDate.of(2025, 2, 8))).isEqualTo(6);
+        assertMatchesLoop(calculator, overrides, new SplittableRandom(7), 2000);
+    }
+
+    @Test
+    void reversedAndMissingRangesHaveNoWorkingDays() {
+        WorkingDayCalculator calculator = calculator("none", null);
+        assertThat(calculator.countWorkingDays(LocalDate.of(2025, 3, 2), LocalDate.of(2025, 3, 1))).isZero();
+        assertThat(calculator.countWorkingDays(null, LocalDate.of(2025, 3, 1))).isZero();
+        assertThat(calculator.countWorkingDays(LocalDate.of(2025, 3, 1), null)).isZero();
+    }
+
+    @Test
+    void reloadReplacesOverridesAndCachedYearsTogether() {
+        LocalDate holiday = LocalDate.of(2025, 3, 5);
+        LocalDate lastDay = LocalDate.of(2026, 1, 9);
+        WorkingDayCalculator calculator = calculator("file",
+            new ByteArrayResource((holiday + ",holiday\n").getBytes(StandardCharsets.UTF_8)));
+        long weekdays = loop(Map.of(), FIRST, lastDay);
+        assertThat(calculator.countWorkingDays(FIRST, lastDay)).isEqualTo(weekdays - 1);
+        assertThat(calculator.getStats()).containsEntry("overrides", 1);
+
+        ReflectionTestUtils.setField(calculator, "holidayFile",
+            new ByteArrayResource((holiday.plusDays(1) + ",holiday\n" + holiday.plusDays(4) + ",workday\n")
+                .getBytes(StandardCharsets.UTF_8)));
+        calculator.reload();
+
+        // 已建立的年度表隨舊的假日資料一起替換
+        assertThat(calculator.getStats()).containsEntry("overrides", 2).containsEntry("cachedYears", 0);
+        assertThat(calculator.isWorkingDay(holiday)).isTrue();
+        assertThat(calculator.isWorkingDay(holiday.plusDays(1))).isFalse();
+        assertThat(calculator.countWorkingDays(FIRST, lastDay)).isEqualTo(weekdays);
+    }
+
+    private static void assertMatchesLoop(WorkingDayCalculator calculator, Map<LocalDate, Boolean> overrides,
+                                          SplittableRandom random, int samples) {
+        long days = LAST.toEpochDay() - FIRST.toEpochDay() + 1;
+        for (int i = 0; i < samples; i++) {
+            LocalDate start = FIRST.plusDays(random.nextLong(days));
+            // 長度以短區間為主，兼顧跨年（數百天）與跨多年的區間
+            long length = switch (random.nextInt(4)) {
+                case 0 -> random.nextLong(7);
+                case 1 -> random.nextLong(60);
+                case 2 -> random.nextLong(800);
+                default -> random.nextLong(-3, 4000);
+            };
+            LocalDate end = start.plusDays(length);
+            if (end.isAfter(LAST)) {
+                end = LAST;
+            }
+            assertThat(calculator.countWorkingDays(start, end))
+                .as("%s ~ %s", start, end)
+                .isEqualTo(loop(overrides, start, end));
+        }
+
+        // 每年的跨年邊界：12/31 ~ 隔年 1/1，以及整年
+        for (int year = FIRST.getYear(); year < LAST.getYear(); year++) {
+            LocalDate newYearsEve = LocalDate.of(year, 12, 31);
+            assertThat(calculator.countWorkingDays(newYearsEve, newYearsEve.plusDays(1)))
+                .as("%s ~ %s", newYearsEve, newYearsEve.plusDays(1))
+                .isEqualTo(loop(overrides, newYearsEve, newYearsEve.plusDays(1)));
+            assertThat(calculator.countWorkingDays(LocalDate.of(year, 1, 1), newYearsEve))
+                .as("year %d", year)
+                .isEqualTo(loop(overrides, LocalDate.of(year, 1, 1), newYearsEve));
+        }
+
+        for (LocalDate day = FIRST; !day.isAfter(LAST); day = day.plusDays(1)) {
+            assertThat(calculator.isWorkingDay(day)).as("%s", day).isEqualTo(loop(overrides, day, day) == 1);
+        }
+    }
+
+    // 原本的逐日計算：週六、週日以外為工作日，覆寫的日期以覆寫值為準
+    private static long loop(Map<LocalDate, Boolean> overrides, LocalDate start, LocalDate end) {
+        long workingDays = 0;
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            Boolean override = overrides.get(day);
+            boolean working = override != null ? override
+                : day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY;
+            if (working) {
+                workingDays++;
+            }
+        }
+        return workingDays;
+    }
+
+    private static WorkingDayCalculator calculator(String source, Resource holidayFile) {
+        WorkingDayCalculator calculator = new WorkingDayCalculator();
+        ReflectionTestUtils.setField(calculator, "source", source);
+        ReflectionTestUtils.setField(calculator, "holidayFile", holidayFile);
+        calculator.init();
+        return calculator;
+    }
+}
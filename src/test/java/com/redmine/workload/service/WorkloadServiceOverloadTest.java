@@ -0,0 +1,261 @@
+package com.redmine.workload.service;
+
+import com.redmine.workload.cache.AnalysisResultCache;
+import com.redmine.workload.cache.IssueSnapshotStore;
+import com.redmine.workload.cache.LookupCache;
+import com.redmine.workload.metrics.WorkloadMetrics;
+import com.redmine.workload.model.OverloadReport;
+import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.support.RedmineTestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 超載偵測以議題區間端點掃描計算，結果必須與每日矩陣逐個工作日比對得到的超載區間、空檔相同：
+// 國定假日（2025-10-10）與週末不中斷超載區間也不計入工作日數，個別上限優先於預設上限，
+// 區間內沒有議題的成員整段都是空檔。串流與清單兩種查詢路徑都要相同
+class WorkloadServiceOverloadTest {
+
+    private static final String GROUP = "研發部";
+    private static final LocalDate START = LocalDate.of(2025, 9, 1);
+    private static final LocalDate END = LocalDate.of(2025, 11, 28);
+    private static final LocalDate HOLIDAY = LocalDate.of(2025, 10, 10);
+
+    private static final String OVERLOADED = "測試超載";
+    private static final String CUSTOM_CAPACITY = "測試上限";
+    private static final String IDLE = "測試空閒";
+
+    private static RedmineTestDatabase database;
+    private static WorkloadService streaming;
+    private static WorkloadService list;
+
+    @BeforeAll
+    static void setUp() {
+        database = new RedmineTestDatabase();
+        SplittableRandom random = new SplittableRandom(18);
+
+        int group = database.insertGroup(GROUP);
+        int project = database.insertProject("專案 A");
+
+        // 10/06（中秋節）至 10/17 共 8 個工作日，每日 10 小時；超載區間跨過 10/10 國定假日與週末
+        int overloaded = database.insertUser(group, "測試", "超載");
+        database.insertIssue(project, overloaded, LocalDate.of(2025, 10, 6), LocalDate.of(2025, 10, 17),
+            BigDecimal.valueOf(80), false);
+
+        // 上限 4 小時：單一議題每日 5 小時即超載，與第二個議題重疊時更高
+        int customCapacity = database.insertUser(group, "測試", "上限");
+        database.insertIssue(project, customCapacity, LocalDate.of(2025, 9, 1), LocalDate.of(2025, 9, 12),
+            BigDecimal.valueOf(50), false);
+        database.insertIssue(project, customCapacity, LocalDate.of(2025, 9, 8), LocalDate.of(2025, 9, 19),
+            BigDecimal.valueOf(30), true);
+
+        database.insertUser(group, "測試", "空閒");
+
+        int[] users = new int[12];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = database.insertUser(group, "使用者", String.format("%02d", i));
+        }
+        long span = END.toEpochDay() - START.toEpochDay();
+        for (int i = 0; i < 300; i++) {
+            LocalDate start = START.plusDays(random.nextLong(-20, span));
+            LocalDate due = start.plusDays(random.nextLong(25));
+            BigDecimal hours = BigDecimal.valueOf(random.nextInt(1, 1200), 1);
+            database.insertIssue(project, users[random.nextInt(users.length)], start, due, hours, random.nextInt(5) == 0);
+        }
+
+        streaming = service(true);
+        list = service(false);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        database.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void wholeGroupMatchesTheRunsOfTheDailyMatrix(boolean streamingEnabled) {
+        WorkloadService service = streamingEnabled ? streaming : list;
+        Map<String, BigDecimal> capacities = Map.of(CUSTOM_CAPACITY, BigDecimal.valueOf(4));
+
+        OverloadReport report = service.getOverloadReport(GROUP, null, START, END, null,
+            List.of(CUSTOM_CAPACITY + ":4"));
+
+        List<String> members = database.workloadRepository().getUsersByGroup(GROUP);
+        assertThat(report.getDefaultCapacityHours()).isEqualByComparingTo("8");
+        assertThat(report.getUsers()).containsExactlyElementsOf(expected(
+            list.getWorkloadAnalysis2DForMultipleUsers(GROUP, null, START, END, "daily"),
+            members, BigDecimal.valueOf(8), capacities));
+
+        OverloadReport.UserOverload overloaded = user(report, OVERLOADED);
+        assertThat(overloaded.getOverloads()).hasSize(1);
+        OverloadReport.Interval interval = overloaded.getOverloads().get(0);
+        assertThat(interval.getStartDate()).isEqualTo(LocalDate.of(2025, 10, 7));
+        assertThat(interval.getEndDate()).isEqualTo(LocalDate.of(2025, 10, 17));
+        assertThat(interval.getStartDate()).isBefore(HOLIDAY);
+        assertThat(interval.getEndDate()).isAfter(HOLIDAY);
+        assertThat(interval.getWorkingDays()).isEqualTo(8);
+        assertThat(interval.getPeakHours()).isEqualByComparingTo("10");
+
+        OverloadReport.UserOverload customCapacity = user(report, CUSTOM_CAPACITY);
+        assertThat(customCapacity.getCapacityHours()).isEqualByComparingTo("4");
+        assertThat(customCapacity.getOverloads()).isNotEmpty();
+
+        OverloadReport.UserOverload idle = user(report, IDLE);
+        assertThat(idle.getOverloads()).isEmpty();
+        assertThat(idle.getIdleGaps()).hasSize(1);
+        assertThat(idle.getIdleDays()).isEqualTo(idle.getIdleGaps().get(0).getWorkingDays());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void selectedUsersMatchTheRunsOfTheDailyMatrix(boolean streamingEnabled) {
+        WorkloadService service = streamingEnabled ? streaming : list;
+        List<String> selected = List.of(IDLE, OVERLOADED, CUSTOM_CAPACITY, "使用者03", OVERLOADED);
+
+        OverloadReport report = service.getOverloadReport(GROUP, selected, START, END, BigDecimal.valueOf(6), null);
+
+        assertThat(report.getUsers()).containsExactlyElementsOf(expected(
+            list.getWorkloadAnalysis2DForMultipleUsers(GROUP, selected, START, END, "daily"),
+            new ArrayList<>(new LinkedHashSet<>(selected)), BigDecimal.valueOf(6), Map.of()));
+    }
+
+    private static OverloadReport.UserOverload user(OverloadReport report, String userFullname) {
+        return report.getUsers().stream()
+            .filter(user -> user.getUserFullname().equals(userFullname))
+            .findFirst()
+            .orElseThrow();
+    }
+
+    // 由每日矩陣的使用者總計列逐個工作日計算：超過上限的連續工作日為超載區間、0 工時為空檔，
+    // 非工作日直接略過（不中斷區間）。沒有總計列的使用者以全為 0 計算
+    private static List<OverloadReport.UserOverload> expected(List<WorkloadAnalysis2D> analysis, List<String> users,
+                                                              BigDecimal defaultCapacity,
+                                                              Map<String, BigDecimal> capacities) {
+        Map<String, List<WorkloadAnalysis2D.DailyWorkload>> totals = new HashMap<>();
+        for (WorkloadAnalysis2D row : analysis) {
+            if (row.getIssueId() != null && row.getIssueId() == -1L) {
+                totals.put(row.getUserFullname(), row.getDailyWorkloads());
+            }
+        }
+        WorkloadAnalysis2D calendar = analysis.stream()
+            .filter(row -> row.getIssueId() != null && row.getIssueId() == -1L)
+            .findFirst()
+            .orElseThrow();
+
+        List<OverloadReport.UserOverload> expected = new ArrayList<>();
+        for (String user : users) {
+            long capacity = WorkloadAnalysis2D.toHundredths(capacities.getOrDefault(user, defaultCapacity));
+            List<WorkloadAnalysis2D.DailyWorkload> days = totals.get(user);
+
+            OverloadReport.UserOverload userOverload = new OverloadReport.UserOverload();
+            userOverload.setUserFullname(user);
+            userOverload.setCapacityHours(WorkloadAnalysis2D.fromHundredths(capacity));
+            long peak = 0;
+            LocalDate peakDate = null;
+            OverloadReport.Interval overload = null;
+            OverloadReport.Interval idle = null;
+            long overloadPeak = 0;
+            List<WorkloadAnalysis2D.DailyWorkload> calendarDays = calendar.getDailyWorkloads();
+            for (int i = 0; i < calendarDays.size(); i++) {
+                if (calendarDays.get(i).isWeekend()) {
+                    continue;
+                }
+                LocalDate date = calendarDays.get(i).getDate();
+                long hours = days == null ? 0 : WorkloadAnalysis2D.toHundredths(days.get(i).getHours());
+                if (hours > peak) {
+                    peak = hours;
+                    peakDate = date;
+                }
+
+                if (hours > capacity) {
+                    if (overload == null) {
+                        overload = interval(date);
+                        overloadPeak = 0;
+                        userOverload.getOverloads().add(overload);
+                    }
+                    overloadPeak = Math.max(overloadPeak, hours);
+                    extend(overload, date);
+                    overload.setPeakHours(WorkloadAnalysis2D.fromHundredths(overloadPeak));
+                    userOverload.setOverloadedDays(userOverload.getOverloadedDays() + 1);
+                } else {
+                    overload = null;
+                }
+
+                if (hours == 0) {
+                    if (idle == null) {
+                        idle = interval(date);
+                        idle.setPeakHours(BigDecimal.ZERO);
+                        userOverload.getIdleGaps().add(idle);
+                    }
+                    extend(idle, date);
+                    userOverload.setIdleDays(userOverload.getIdleDays() + 1);
+                } else {
+                    idle = null;
+                }
+            }
+            userOverload.setPeakHours(WorkloadAnalysis2D.fromHundredths(peak));
+            userOverload.setPeakDate(peakDate);
+            expected.add(userOverload);
+        }
+        return expected;
+    }
+
+    private static OverloadReport.Interval interval(LocalDate startDate) {
+        OverloadReport.Interval interval = new OverloadReport.Interval();
+        interval.setStartDate(startDate);
+        return interval;
+    }
+
+    private static void extend(OverloadReport.Interval interval, LocalDate date) {
+        interval.setEndDate(date);
+        interval.setWorkingDays(interval.getWorkingDays() + 1);
+    }
+
+    private static WorkloadService service(boolean streamingEnabled) {
+        WorkloadMetrics metrics = new WorkloadMetrics(new SimpleMeterRegistry());
+
+        WorkingDayCalculator calculator = new WorkingDayCalculator();
+        ReflectionTestUtils.setField(calculator, "source", "file");
+        ReflectionTestUtils.setField(calculator, "holidayFile", new ClassPathResource("calendar/holidays-tw.csv"));
+        calculator.init();
+
+        AnalysisResultCache analysisResultCache = new AnalysisResultCache();
+        ReflectionTestUtils.setField(analysisResultCache, "metrics", metrics);
+        ReflectionTestUtils.setField(analysisResultCache, "enabled", false);
+        analysisResultCache.init();
+
+        IssueSnapshotStore issueSnapshotStore = new IssueSnapshotStore();
+        issueSnapshotStore.init();
+
+        LookupCache lookupCache = new LookupCache();
+        ReflectionTestUtils.setField(lookupCache, "workloadRepository", database.workloadRepository());
+        ReflectionTestUtils.setField(lookupCache, "metrics", metrics);
+        lookupCache.init();
+
+        WorkloadService service = new WorkloadService();
+        ReflectionTestUtils.setField(service, "workloadRepository", database.workloadRepository());
+        ReflectionTestUtils.setField(service, "workingDayCalculator", calculator);
+        ReflectionTestUtils.setField(service, "analysisResultCache", analysisResultCache);
+        ReflectionTestUtils.setField(service, "issueSnapshotStore", issueSnapshotStore);
+        ReflectionTestUtils.setField(service, "lookupCache", lookupCache);
+        ReflectionTestUtils.setField(service, "metrics", metrics);
+        ReflectionTestUtils.setField(service, "streamingEnabled", streamingEnabled);
+        return service;
+    }
+}
@@ -0,0 +1,130 @@
+package com.redmine.workload.service;
+
+import com.redmine.workload.cache.AnalysisResultCache;
+import com.redmine.workload.cache.IssueSnapshotStore;
+import com.redmine.workload.metrics.WorkloadMetrics;
+import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.support.RedmineTestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// SQL 彙總（議題與日曆表 JOIN 後依期間加總）與 Java 彙總後篩選的總計列必須完全相同：
+// 每日工時的四捨五入、區間截斷、國定假日與補班日、區間內沒有工作日的議題都要一致
+class WorkloadServiceRollupTest {
+
+    private static final String GROUP = "研發部";
+    // 從月中、週中開始與結束，第一個與最後一個期間都只涵蓋一部分
+    private static final LocalDate START = LocalDate.of(2024, 11, 13);
+    private static final LocalDate END = LocalDate.of(2025, 5, 14);
+
+    private static RedmineTestDatabase database;
+    private static WorkloadService sqlRollup;
+    private static WorkloadService javaAggregation;
+    private static final List<String> userNames = new ArrayList<>();
+
+    @BeforeAll
+    static void setUp() {
+        database = new RedmineTestDatabase();
+        SplittableRandom random = new SplittableRandom(16);
+
+        int group = database.insertGroup(GROUP);
+        int[] projects = new int[6];
+        for (int i = 0; i < projects.length; i++) {
+            projects[i] = database.insertProject("專案 " + (char) ('A' + i));
+        }
+        int[] users = new int[15];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = database.insertUser(group, "使用者", String.format("%02d", i));
+            userNames.add("使用者" + String.format("%02d", i));
+        }
+
+        long span = END.toEpochDay() - START.toEpochDay();
+        for (int i = 0; i < 2000; i++) {
+            LocalDate start = START.plusDays(random.nextLong(-90, span + 30));
+            LocalDate due = start.plusDays(random.nextInt(10) == 0 ? random.nextLong(400) : random.nextLong(20));
+            // 非整除的工時，每日工時需要四捨五入
+            BigDecimal hours = BigDecimal.valueOf(random.nextInt(1, 2000), 2);
+            database.insertIssue(projects[random.nextInt(projects.length)], users[random.nextInt(users.length)],
+                start, due, hours, random.nextInt(5) == 0);
+        }
+        // 只落在週末與春節假期的議題：區間內沒有工作日，仍列出使用者與專案
+        database.insertIssue(projects[0], users[0], LocalDate.of(2025, 1, 25), LocalDate.of(2025, 2, 2),
+            BigDecimal.valueOf(8), false);
+        database.insertIssue(projects[1], users[1], LocalDate.of(2025, 3, 1), LocalDate.of(2025, 3, 2),
+            BigDecimal.valueOf(5), false);
+
+        sqlRollup = service(true);
+        javaAggregation = service(false);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        database.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"weekly", "monthly", "quarterly"})
+    void sqlRollupMatchesJavaAggregationForWholeGroup(String timeGranularity) {
+        List<WorkloadAnalysis2D> expected = javaAggregation.getWorkloadAnalysis2DSummaries(
+            GROUP, null, START, END, timeGranularity);
+        assertThat(expected).hasSizeGreaterThan(userNames.size());
+
+        database.clearStatements();
+        List<WorkloadAnalysis2D> actual = sqlRollup.getWorkloadAnalysis2DSummaries(
+            GROUP, null, START, END, timeGranularity);
+        assertThat(database.statements()).anyMatch(sql -> sql.contains("workload_calendar"));
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"monthly", "quarterly"})
+    void sqlRollupMatchesJavaAggregationForSelectedUsers(String timeGranularity) {
+        List<String> selected = List.of(userNames.get(9), userNames.get(0), userNames.get(4), userNames.get(1));
+
+        assertThat(sqlRollup.getWorkloadAnalysis2DSummaries(GROUP, selected, START, END, timeGranularity))
+            .isEqualTo(javaAggregation.getWorkloadAnalysis2DSummaries(GROUP, selected, START, END, timeGranularity));
+    }
+
+    // 不使用分析快取；SQL 彙總不設議題數門檻
+    private static WorkloadService service(boolean sqlRollupEnabled) {
+        WorkloadMetrics metrics = new WorkloadMetrics(new SimpleMeterRegistry());
+
+        WorkingDayCalculator calculator = new WorkingDayCalculator();
+        ReflectionTestUtils.setField(calculator, "source", "file");
+        ReflectionTestUtils.setField(calculator, "holidayFile", new ClassPathResource("calendar/holidays-tw.csv"));
+        calculator.init();
+
+        AnalysisResultCache analysisResultCache = new AnalysisResultCache();
+        ReflectionTestUtils.setField(analysisResultCache, "metrics", metrics);
+        ReflectionTestUtils.setField(analysisResultCache, "enabled", false);
+        analysisResultCache.init();
+
+        IssueSnapshotStore issueSnapshotStore = new IssueSnapshotStore();
+        issueSnapshotStore.init();
+
+        WorkloadService service = new WorkloadService();
+        ReflectionTestUtils.setField(service, "workloadRepository", database.workloadRepository());
+        ReflectionTestUtils.setField(service, "workloadRollupRepository", database.workloadRollupRepository());
+        ReflectionTestUtils.setField(service, "workingDayCalculator", calculator);
+        ReflectionTestUtils.setField(service, "analysisResultCache", analysisResultCache);
+        ReflectionTestUtils.setField(service, "issueSnapshotStore", issueSnapshotStore);
+        ReflectionTestUtils.setField(service, "metrics", metrics);
+        ReflectionTestUtils.setField(service, "sqlRollupEnabled", sqlRollupEnabled);
+        ReflectionTestUtils.setField(service, "sqlRollupGranularities", List.of("weekly", "monthly", "quarterly"));
+        ReflectionTestUtils.setField(service, "sqlRollupMinIssues", 0L);
+        return service;
+    }
+}
@@ -0,0 +1,191 @@
+package com.redmine.workload.service;
+
+import com.redmine.workload.cache.AnalysisResultCache;
+import com.redmine.workload.cache.IssueSnapshotStore;
+import com.redmine.workload.metrics.WorkloadMetrics;
+import com.redmine.workload.model.WorkloadAnalysis2D;
+import com.redmine.workload.model.WorkloadData;
+import com.redmine.workload.model.WorkloadStatistics;
+import com.redmine.workload.support.RedmineTestDatabase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 串流模式（JDBC 逐列餵入 WorkloadAnalysisAggregator）與清單模式（先取回完整清單再彙總）
+// 對同一份大量的合成資料必須產生完全相同的結果：列的順序、每日工時陣列與期間工時都相同。
+// 分段輸出（NDJSON、矩陣、匯出）的結果也必須相同，且第一段彙總完就開始輸出；
+// 統計匯出逐列輸出的明細與摘要和清單模式相同
+class WorkloadServiceStreamingTest {
+
+    private static final String GROUP = "研發部";
+    private static final LocalDate START = LocalDate.of(2024, 11, 1);
+    private static final LocalDate END = LocalDate.of(2025, 4, 30);
+
+    private static RedmineTestDatabase database;
+    private static WorkloadService streaming;
+    private static WorkloadService list;
+    private static final List<String> userNames = new ArrayList<>();
+
+    @BeforeAll
+    static void setUp() {
+        database = new RedmineTestDatabase();
+        SplittableRandom random = new SplittableRandom(15);
+
+        int group = database.insertGroup(GROUP);
+        int[] projects = new int[12];
+        for (int i = 0; i < projects.length; i++) {
+            projects[i] = database.insertProject("專案 " + (char) ('A' + i));
+        }
+        int[] users = new int[40];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = database.insertUser(group, "使用者", String.format("%02d", i));
+            userNames.add("使用者" + String.format("%02d", i));
+        }
+
+        // 議題起訖日可能早於或晚於查詢區間（需要截斷），也包含單日與長達一年的議題
+        long span = END.toEpochDay() - START.toEpochDay();
+        for (int i = 0; i < 6000; i++) {
+            LocalDate start = START.plusDays(random.nextLong(-60, span));
+            LocalDate due = start.plusDays(random.nextInt(10) == 0 ? random.nextLong(365) : random.nextLong(30));
+            BigDecimal hours = BigDecimal.valueOf(random.nextInt(1, 800), 1);
+            database.insertIssue(projects[random.nextInt(projects.length)], users[random.nextInt(users.length)],
+                start, due, hours, random.nextInt(5) == 0);
+        }
+
+        streaming = service(true);
+        list = service(false);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        database.close();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"daily", "weekly", "monthly", "quarterly"})
+    void wholeGroupStreamsToTheSameResultAsTheListPath(String timeGranularity) {
+        List<WorkloadAnalysis2D> expected = list.getWorkloadAnalysis2DForMultipleUsers(
+            GROUP, null, START, END, timeGranularity);
+        assertThat(expected).hasSizeGreaterThan(5000);
+
+        assertThat(streaming.getWorkloadAnalysis2DForMultipleUsers(GROUP, null, START, END, timeGranularity))
+            .isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"daily", "monthly"})
+    void selectedUsersStreamToTheSameResultAsTheListPath(String timeGranularity) {
+        // 傳入順序與 SQL 排序不同
+        List<String> selected = new ArrayList<>();
+        for (int i = userNames.size() - 1; i >= 0; i -= 3) {
+            selected.add(userNames.get(i));
+        }
+
+        List<WorkloadAnalysis2D> expected = list.getWorkloadAnalysis2DForMultipleUsers(
+            GROUP, selected, START, END, timeGranularity);
+        assertThat(expected).extracting(WorkloadAnalysis2D::getUserFullname).startsWith(selected.get(0));
+
+        assertThat(streaming.getWorkloadAnalysis2DForMultipleUsers(GROUP, selected, START, END, timeGranularity))
+            .isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"daily", "monthly"})
+    void wholeGroupOutputIsWrittenPerPageOfUsers(String timeGranularity) {
+        List<WorkloadAnalysis2D> expected = list.getWorkloadAnalysis2DForMultipleUsers(
+            GROUP, null, START, END, timeGranularity);
+
+        database.clearStatements();
+        List<WorkloadAnalysis2D> written = new ArrayList<>();
+        List<Long> queriesBeforeFirstRow = new ArrayList<>();
+        streaming.streamWorkloadAnalysis2DForMultipleUsers(GROUP, null, START, END, timeGranularity, row -> {
+            if (written.isEmpty()) {
+                queriesBeforeFirstRow.add(analysisQueries());
+            }
+            written.add(row);
+        });
+
+        assertThat(written).isEqualTo(expected);
+        // 40 位使用者、每段 8 位：第一段讀完就開始輸出
+        assertThat(queriesBeforeFirstRow).containsExactly(1L);
+        assertThat(analysisQueries()).isEqualTo(5);
+    }
+
+    @Test
+    void selectedUsersOutputMatchesTheListPath() {
+        // 跨段重複指定的使用者會重複出現，與清單模式相同
+        List<String> selected = new ArrayList<>();
+        for (int i = userNames.size() - 1; i >= 0; i -= 4) {
+            selected.add(userNames.get(i));
+        }
+        selected.add(userNames.get(userNames.size() - 1));
+
+        List<WorkloadAnalysis2D> written = new ArrayList<>();
+        streaming.streamWorkloadAnalysis2DForMultipleUsers(GROUP, selected, START, END, "weekly", written::add);
+
+        assertThat(written).isEqualTo(list.getWorkloadAnalysis2DForMultipleUsers(GROUP, selected, START, END, "weekly"));
+    }
+
+    @Test
+    void exportStatisticsMatchTheListPath() {
+        WorkloadStatistics expected = list.getWorkloadStatisticsForMultipleUsers(GROUP, null, START, END);
+
+        List<WorkloadData> written = new ArrayList<>();
+        WorkloadStatistics actual = streaming.streamWorkloadStatisticsForMultipleUsers(
+            GROUP, null, START, END, written::add);
+
+        assertThat(written).isEqualTo(expected.getWorkloadList());
+        assertThat(actual.getWorkloadList()).isNull();
+        assertThat(actual.getTotalIssues()).isEqualTo(expected.getTotalIssues());
+        assertThat(actual.getClosedIssues()).isEqualTo(expected.getClosedIssues());
+        assertThat(actual.getOpenIssues()).isEqualTo(expected.getOpenIssues());
+        assertThat(actual.getTotalEstimatedHours()).isEqualByComparingTo(expected.getTotalEstimatedHours());
+        assertThat(actual.getAvgHoursPerDay()).isEqualByComparingTo(expected.getAvgHoursPerDay());
+        assertThat(actual.getCompletionRate()).isEqualTo(expected.getCompletionRate());
+    }
+
+    private static long analysisQueries() {
+        return database.statements().stream().filter(sql -> sql.contains("i.estimated_hours IS NOT NULL")).count();
+    }
+
+    // 不使用分析快取與快照，每次都實際查詢與彙總
+    private static WorkloadService service(boolean streamingEnabled) {
+        WorkloadMetrics metrics = new WorkloadMetrics(new SimpleMeterRegistry());
+
+        WorkingDayCalculator calculator = new WorkingDayCalculator();
+        ReflectionTestUtils.setField(calculator, "source", "file");
+        ReflectionTestUtils.setField(calculator, "holidayFile", new ClassPathResource("calendar/holidays-tw.csv"));
+        calculator.init();
+
+        AnalysisResultCache analysisResultCache = new AnalysisResultCache();
+        ReflectionTestUtils.setField(analysisResultCache, "metrics", metrics);
+        ReflectionTestUtils.setField(analysisResultCache, "enabled", false);
+        analysisResultCache.init();
+
+        IssueSnapshotStore issueSnapshotStore = new IssueSnapshotStore();
+        issueSnapshotStore.init();
+
+        WorkloadService service = new WorkloadService();
+        ReflectionTestUtils.setField(service, "workloadRepository", database.workloadRepository());
+        ReflectionTestUtils.setField(service, "workingDayCalculator", calculator);
+        ReflectionTestUtils.setField(service, "analysisResultCache", analysisResultCache);
+        ReflectionTestUtils.setField(service, "issueSnapshotStore", issueSnapshotStore);
+        ReflectionTestUtils.setField(service, "metrics", metrics);
+        ReflectionTestUtils.setField(service, "streamingEnabled", streamingEnabled);
+        ReflectionTestUtils.setField(service, "outputUsersPerQuery", 8);
+        return service;
+    }
+}
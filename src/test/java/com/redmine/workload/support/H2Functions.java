@@ -0,0 +1,18 @@
+package com.redmine.workload.support;
+
+import java.sql.Date;
+
+// H2 上模擬 MySQL 專用函式（於 redmine/redmine-schema.sql 以 CREATE ALIAS 註冊）
+public final class H2Functions {
+
+    private H2Functions() {
+    }
+
+    // MySQL DATEDIFF(a, b)：a 減 b 的天數
+    public static Long dateDiff(Date a, Date b) {
+        if (a == null || b == null) {
+            return null;
+        }
+        return a.toLocalDate().toEpochDay() - b.toLocalDate().toEpochDay();
+    }
+}
@@ -0,0 +1,168 @@
+package com.redmine.workload.support;
+
+import com.redmine.workload.metrics.WorkloadMetrics;
+import com.redmine.workload.repository.WorkloadRepository;
+import com.redmine.workload.repository.WorkloadRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// 測試用的 Redmine 資料庫：記憶體中的 H2（MySQL 相容模式），每個實例各自獨立。
+// 記錄經由 dataSource() 執行的每一個 SQL 陳述式，測試可據此檢查查詢次數
+public final class RedmineTestDatabase implements AutoCloseable {
+
+    private static final int GROUP_ID_BASE = 100_000;
+
+    private final DriverManagerDataSource target;
+    private final DelegatingDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+    private int nextUserId = 1;
+    private int nextGroupId = GROUP_ID_BASE;
+    private int nextProjectId = 1;
+    private int nextIssueId = 1;
+
+    public RedmineTestDatabase() {
+        target = new DriverManagerDataSource("jdbc:h2:mem:redmine-" + UUID.randomUUID()
+            + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;BUILTIN_ALIAS_OVERRIDE=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        dataSource = new DelegatingDataSource(target) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return recording(super.getConnection());
+            }
+        };
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        new ResourceDatabasePopulator(new ClassPathResource("redmine/redmine-schema.sql")).execute(target);
+    }
+
+    public DelegatingDataSource dataSource() {
+        return dataSource;
+    }
+
+    public JdbcTemplate jdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    // 以本資料庫組裝的儲存庫；H2 不接受負的 fetch size，串流查詢改用 0（由驅動程式決定）
+    public WorkloadRepository workloadRepository() {
+        WorkloadRepository repository = new WorkloadRepository();
+        ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(repository, "metrics", new WorkloadMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(repository, "streamFetchSize", 0);
+        return repository;
+    }
+
+    // 以本資料庫組裝的 SQL 彙總儲存庫，第一次使用時自行建立日曆表
+    public WorkloadRollupRepository workloadRollupRepository() {
+        WorkloadRollupRepository repository = new WorkloadRollupRepository();
+        ReflectionTestUtils.setField(repository, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(repository, "transactionManager", new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(repository, "metrics", new WorkloadMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(repository, "createCalendarTable", true);
+        return repository;
+    }
+
+    // 自上次 clearStatements 之後執行的 SQL（不含建立資料表與 insert* 寫入的資料）
+    public List<String> statements() {
+        return new ArrayList<>(statements);
+    }
+
+    public void clearStatements() {
+        statements.clear();
+    }
+
+    public int insertGroup(String name) {
+        int id = nextGroupId++;
+        insert(
+            "INSERT INTO users (id, login, firstname, lastname, type, status) VALUES (?, '', '', ?, 'Group', 1)",
+            id, name);
+        return id;
+    }
+
+    // 姓名為 lastname + firstname（查詢以 CONCAT(u.lastname, u.firstname) 比對）
+    public int insertUser(int groupId, String lastname, String firstname) {
+        int id = nextUserId++;
+        insert("INSERT INTO users (id, login, firstname, lastname, type, status) VALUES (?, ?, ?, ?, 'User', 1)",
+            id, "user" + id, firstname, lastname);
+        insert("INSERT INTO groups_users (group_id, user_id) VALUES (?, ?)", groupId, id);
+        return id;
+    }
+
+    public int insertProject(String name) {
+        int id = nextProjectId++;
+        insert("INSERT INTO projects (id, name) VALUES (?, ?)", id, name);
+        return id;
+    }
+
+    public long insertIssue(int projectId, int userId, LocalDate startDate, LocalDate dueDate,
+                            BigDecimal estimatedHours, boolean closed) {
+        int id = nextIssueId++;
+        insert("INSERT INTO issues (id, project_id, subject, status_id, assigned_to_id, start_date, due_date, "
+                + "estimated_hours, closed_on, updated_on) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)",
+            id, projectId, "議題 #" + id, closed ? 5 : 2, userId, Date.valueOf(startDate), Date.valueOf(dueDate),
+            estimatedHours, closed ? Date.valueOf(dueDate) : null);
+        return id;
+    }
+
+    // 測試資料直接寫入，不列入 statements()
+    private void insert(String sql, Object... params) {
+        new JdbcTemplate(target).update(sql, params);
+    }
+
+    @Override
+    public void close() {
+        new JdbcTemplate(target).execute("SHUTDOWN");
+    }
+
+    // 連線代理：記錄 prepareStatement 的 SQL 與 Statement 直接執行的 SQL
+    private Connection recording(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+            (proxy, method, args) -> {
+                if (method.getName().startsWith("prepare") && args != null && args[0] instanceof String sql) {
+                    statements.add(sql);
+                }
+                Object result = invoke(connection, method, args);
+                if (result instanceof Statement statement && method.getName().equals("createStatement")) {
+                    return recording(statement);
+                }
+                return result;
+            });
+    }
+
+    private Statement recording(Statement statement) {
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class},
+            (proxy, method, args) -> {
+                if (method.getName().startsWith("execute") && args != null && args[0] instanceof String sql) {
+                    statements.add(sql);
+                }
+                return invoke(statement, method, args);
+            });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}